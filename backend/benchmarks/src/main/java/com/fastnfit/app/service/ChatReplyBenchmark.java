@@ -0,0 +1,136 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.dto.ChatbotResponseDTO;
+import com.fastnfit.app.dto.WorkoutDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * the checks ChatbotService runs on every openai reply
+ * lives in the service package because the methods are package-private
+ * - parseResponse: split the <BEGIN_JSON> block off and read it into a WorkoutDTO
+ * - looksLikeWorkout*: the "did it forget the json" check, on a chatty reply and on a bullet list reply
+ * - hasMultipleWorkoutBullets: the bullet line count alone
+ * - classify*: ChatReplyClassifier on the whole reply and fed in 16 character chunks like a stream
+ * - regex*: the lowercase + replaceAll + regex checks the classifier replaced, kept for comparison
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatReplyBenchmark {
+
+    static final String WORKOUT_REPLY = """
+            <BEGIN_JSON>
+            {"name":"Quick HIIT","description":"Short full body session","category":"HIIT","level":"Intermediate",
+             "calories":200,"durationInMinutes":15,"workoutExercise":[
+              {"name":"Jumping Jacks","duration":40,"rest":20},
+              {"name":"Burpees","duration":40,"rest":20},
+              {"name":"Mountain Climbers","duration":40,"rest":20},
+              {"name":"High Knees","duration":40,"rest":20},
+              {"name":"Squat Jumps","duration":40,"rest":20}]}
+            <END_JSON>
+            Here's a quick workout to get your heart rate up!
+
+            **Warm-up**
+            • Jumping Jacks - 40 seconds work, 20 seconds rest
+            **Main Workout**
+            • Burpees - 40 seconds work, 20 seconds rest
+            • Mountain Climbers - 40 seconds work, 20 seconds rest
+            • High Knees - 40 seconds work, 20 seconds rest
+            **Cool Down**
+            • Squat Jumps - 40 seconds work, 20 seconds rest
+
+            Would you like to try this workout?
+            """;
+
+    static final String CHAT_REPLY = """
+            Great question! Staying hydrated matters a lot when you train, especially in warm weather.
+            Aim to drink water regularly through the day and sip a little during longer sessions.
+            If you feel dizzy or unusually tired, take a break and rest. Let me know if you want
+            a workout suggestion for today, I can tailor one to your fitness level and the time you have.
+            """;
+
+    static final String BULLET_REPLY = WORKOUT_REPLY.substring(WORKOUT_REPLY.indexOf("<END_JSON>") + 10);
+
+    // same reader ChatbotService builds from the shared mapper
+    private final ObjectReader workoutReader = new ObjectMapper().readerFor(WorkoutDTO.class);
+
+    @Benchmark
+    public ChatbotResponseDTO parseResponse() throws JsonProcessingException {
+        return ChatbotService.parseResponse(WORKOUT_REPLY, workoutReader);
+    }
+
+    @Benchmark
+    public boolean looksLikeWorkoutChat() {
+        return ChatbotService.looksLikeWorkoutSuggestion(CHAT_REPLY);
+    }
+
+    @Benchmark
+    public boolean looksLikeWorkoutBullets() {
+        return ChatbotService.looksLikeWorkoutSuggestion(BULLET_REPLY);
+    }
+
+    @Benchmark
+    public boolean hasMultipleWorkoutBullets() {
+        return ChatbotService.hasMultipleWorkoutBullets(BULLET_REPLY);
+    }
+
+    @Benchmark
+    public ChatReplyClassifier.Classification classifyWorkout() {
+        return ChatReplyClassifier.classify(WORKOUT_REPLY);
+    }
+
+    @Benchmark
+    public ChatReplyClassifier.Classification classifyStreamed() {
+        ChatReplyClassifier classifier = new ChatReplyClassifier();
+        for (int i = 0; i < WORKOUT_REPLY.length(); i += 16) {
+            classifier.feed(WORKOUT_REPLY.subSequence(i, Math.min(WORKOUT_REPLY.length(), i + 16)));
+        }
+        return classifier.finish();
+    }
+
+    @Benchmark
+    public boolean regexLooksLikeWorkoutChat() {
+        return regexLooksLikeWorkout(CHAT_REPLY);
+    }
+
+    @Benchmark
+    public boolean regexLooksLikeWorkoutBullets() {
+        return regexLooksLikeWorkout(BULLET_REPLY);
+    }
+
+    private static boolean regexLooksLikeWorkout(String naturalText) {
+        String cleanedText = naturalText.toLowerCase().replaceAll("[*_]{1,2}", "");
+        int keywordMatches = 0;
+        for (String keyword : ChatReplyClassifier.KEYWORDS) {
+            if (cleanedText.contains(keyword) && ++keywordMatches >= 2) break;
+        }
+        if (keywordMatches >= 2) return true;
+
+        Pattern bulletLine = Pattern.compile("•\\s+.+\\s-\\s\\d+\\sseconds work,\\s\\d+\\sseconds rest", Pattern.CASE_INSENSITIVE);
+        Matcher matcher = bulletLine.matcher(naturalText);
+        int count = 0;
+        while (matcher.find()) {
+            if (++count >= 3) return true;
+        }
+        return false;
+    }
+}
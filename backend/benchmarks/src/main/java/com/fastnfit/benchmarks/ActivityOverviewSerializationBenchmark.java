@@ -0,0 +1,88 @@
+package com.fastnfit.benchmarks;
+
+import com.fastnfit.app.dto.ActivityOverviewDTO;
+import com.fastnfit.app.dto.DailySummaryDTO;
+import com.fastnfit.app.dto.HistoryDTO;
+import com.fastnfit.app.dto.WorkoutDTO;
+import com.fastnfit.app.service.WorkoutService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * jackson serialization of the activity tab response (GET /api/history/overview)
+ * - the mapper is set up like spring boot's: java.time module, dates as strings
+ * - sharedMapper is what the app does, newMapperPerCall is the cost of building one per response
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityOverviewSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ActivityOverviewDTO overview;
+
+    @Setup
+    public void setup() {
+        objectMapper = mapper();
+
+        LocalDate today = LocalDate.of(2025, 6, 15);
+        List<DailySummaryDTO> weekly = new ArrayList<>();
+        for (int i = 6; i >= 0; i--) {
+            weekly.add(new DailySummaryDTO(today.minusDays(i), 250 + i * 10, 30 + i, 1 + i % 2));
+        }
+        WorkoutService workoutService = new WorkoutService(null);
+        List<HistoryDTO> recent = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            WorkoutDTO workout = workoutService.convertToDTO(Fixtures.workouts(i + 1, 10).get(i));
+            HistoryDTO history = new HistoryDTO();
+            history.setHistoryId((long) 100 - i);
+            history.setWorkoutDateTime(Timestamp.valueOf(LocalDateTime.of(2025, 6, 15 - i, 7, 30)));
+            history.setName(workout.getName());
+            history.setWorkout(workout);
+            history.setCaloriesBurned(workout.getCalories());
+            history.setDurationInMinutes(workout.getDurationInMinutes());
+            recent.add(history);
+        }
+        overview = new ActivityOverviewDTO(weekly.get(6), weekly, recent, "MjAyNS0wNi0xMVQwNzozMDowMFp8OTY");
+    }
+
+    @Benchmark
+    public byte[] sharedMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(overview);
+    }
+
+    @Benchmark
+    public byte[] newMapperPerCall() throws JsonProcessingException {
+        return mapper().writeValueAsBytes(overview);
+    }
+
+    private static ObjectMapper mapper() {
+        return JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
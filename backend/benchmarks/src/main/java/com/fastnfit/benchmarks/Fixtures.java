@@ -0,0 +1,85 @@
+package com.fastnfit.benchmarks;
+
+import com.fastnfit.app.dto.UserDetailsDTO;
+import com.fastnfit.app.enums.FitnessLevel;
+import com.fastnfit.app.enums.WorkoutLevel;
+import com.fastnfit.app.enums.WorkoutType;
+import com.fastnfit.app.model.Exercise;
+import com.fastnfit.app.model.Workout;
+import com.fastnfit.app.model.WorkoutExercise;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// in-memory data and repository stubs, the benchmarks never touch a database
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    // a repository interface where only the given query methods answer, anything else fails loudly
+    public static <T> T repository(Class<T> type, Map<String, Object> results) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (results.containsKey(method.getName())) {
+                return results.get(method.getName());
+            }
+            if (method.getName().equals("toString")) {
+                return type.getSimpleName() + " stub";
+            }
+            throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+        }));
+    }
+
+    public static List<String> exerciseNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("Exercise " + i);
+        }
+        return names;
+    }
+
+    // workouts spread over every category and level, each with the given number of exercises
+    public static List<Workout> workouts(int count, int exercisesPerWorkout) {
+        WorkoutType[] types = WorkoutType.values();
+        WorkoutLevel[] levels = WorkoutLevel.values();
+        List<Workout> workouts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Workout workout = new Workout();
+            workout.setWorkoutId((long) i + 1);
+            workout.setName("Workout " + i);
+            workout.setDescription("A " + types[i % types.length].getValue() + " session for benchmarking");
+            workout.setCategory(types[i % types.length]);
+            workout.setLevel(levels[i % levels.length]);
+            workout.setCalories(100 + i % 400);
+            workout.setDurationInMinutes(10 + i % 50);
+            for (int j = 0; j < exercisesPerWorkout; j++) {
+                Exercise exercise = new Exercise();
+                exercise.setName("Exercise " + j);
+                WorkoutExercise workoutExercise = new WorkoutExercise();
+                workoutExercise.setId((long) i * exercisesPerWorkout + j);
+                workoutExercise.setWorkout(workout);
+                workoutExercise.setExercise(exercise);
+                workoutExercise.setDuration(30);
+                workoutExercise.setRest(15);
+                workout.getWorkoutExercises().add(workoutExercise);
+            }
+            workouts.add(workout);
+        }
+        return workouts;
+    }
+
+    public static UserDetailsDTO profile(int variant) {
+        UserDetailsDTO dto = new UserDetailsDTO();
+        dto.setUserId((long) variant);
+        dto.setDob(LocalDate.of(1980 + variant % 30, 1 + variant % 12, 1));
+        dto.setHeight(150.0 + variant % 50);
+        dto.setWeight(50.0 + variant % 60);
+        dto.setFitnessLevel(FitnessLevel.values()[variant % FitnessLevel.values().length]);
+        dto.setWorkoutGoal("weight loss");
+        dto.setWorkoutType("HIIT");
+        return dto;
+    }
+}
@@ -0,0 +1,81 @@
+package com.fastnfit.benchmarks;
+
+import com.fastnfit.app.config.JwtConfig;
+import com.fastnfit.app.service.JwtService;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * cost of authenticating one request in JwtAuthFilter
+ * - perRequestParser: the old path, key and parser rebuilt for every request
+ * - prebuiltParser: JwtService.extractAllClaims, signature checked every time
+ * - verifiedTokenCache: JwtService.verifyUserId, a session's token after its first request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    static final String SECRET = "benchmark_jwt_secret_key_at_least_64_characters_long_for_hs256_signing";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(config());
+        token = jwtService.generateToken(42L);
+        jwtService.verifyUserId(token);
+    }
+
+    @Benchmark
+    public Long perRequestParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .get("userId", Long.class);
+    }
+
+    @Benchmark
+    public Long prebuiltParser() {
+        return jwtService.extractAllClaims(token).get("userId", Long.class);
+    }
+
+    @Benchmark
+    public Long verifiedTokenCache() {
+        return jwtService.verifyUserId(token);
+    }
+
+    static JwtConfig config() {
+        return new JwtConfig() {
+            @Override
+            public String getSecret() {
+                return SECRET;
+            }
+
+            @Override
+            public long getExpiration() {
+                return 86400000L;
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.fastnfit.benchmarks;
+
+import com.fastnfit.app.dto.OpenAiCompletionDTO;
+import com.fastnfit.app.service.OpenAiPayloads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * one chatbot round trip's json work: the request body for a ~4kb system prompt and 20 history messages,
+ * and reading the completion back
+ * - generator / typedReader: OpenAiPayloads, JsonGenerator into a reused buffer and an ObjectReader
+ * - orgJson*: the JSONObject tree per message and JSONObject parse that ChatbotService used before
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenAiPayloadsBenchmark {
+
+    private static final String RESPONSE = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"model\":\"gpt-4o-mini\","
+            + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"" + "Keep going! ".repeat(80)
+            + "\"},\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":1400,\"completion_tokens\":240}}";
+
+    private OpenAiPayloads payloads;
+    private List<OpenAiCompletionDTO.Message> messages;
+
+    @Setup
+    public void setup() {
+        payloads = new OpenAiPayloads(new ObjectMapper());
+        messages = new ArrayList<>();
+        messages.add(new OpenAiCompletionDTO.Message("system", "You are a fitness coach. \"Rules\"\n".repeat(120)));
+        for (int i = 0; i < 20; i++) {
+            messages.add(new OpenAiCompletionDTO.Message(i % 2 == 0 ? "user" : "assistant",
+                    "Message " + i + ": can I swap burpees for squat jumps?\n"));
+        }
+    }
+
+    @Benchmark
+    public String generator() {
+        return payloads.chatRequest("gpt-4o-mini", 0.3, messages, false);
+    }
+
+    @Benchmark
+    public String orgJson() {
+        JSONArray array = new JSONArray();
+        for (OpenAiCompletionDTO.Message message : messages) {
+            array.put(new JSONObject().put("role", message.getRole()).put("content", message.getContent()));
+        }
+        return new JSONObject()
+                .put("model", "gpt-4o-mini")
+                .put("messages", array)
+                .put("temperature", 0.3)
+                .toString();
+    }
+
+    @Benchmark
+    public String typedReader() {
+        OpenAiCompletionDTO completion = payloads.readCompletion(RESPONSE);
+        return OpenAiPayloads.messageContent(completion);
+    }
+
+    @Benchmark
+    public String orgJsonReader() {
+        return new JSONObject(RESPONSE)
+                .getJSONArray("choices")
+                .getJSONObject(0)
+                .getJSONObject("message")
+                .getString("content");
+    }
+}
@@ -0,0 +1,63 @@
+package com.fastnfit.benchmarks;
+
+import com.fastnfit.app.dto.UserDetailsDTO;
+import com.fastnfit.app.repository.ExerciseRepository;
+import com.fastnfit.app.service.ExerciseCatalog;
+import com.fastnfit.app.service.SystemPromptTemplate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * building the chatbot system prompt (SystemPromptTemplate.render, what used to be buildSystemPrompt)
+ * - sameProfile: a returning user, the profile block comes from the cache
+ * - manyProfiles: more distinct profiles than the cache holds, every render formats the block again
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemPromptBenchmark {
+
+    private static final int PROFILES = 1024;
+    private static final String SUMMARY = "Recent workouts: HIIT Blast (2 days ago), Morning Yoga (4 days ago)";
+
+    private SystemPromptTemplate template;
+    private UserDetailsDTO[] profiles;
+    private int next;
+
+    @Setup
+    public void setup() {
+        ExerciseCatalog exerciseCatalog = new ExerciseCatalog(Fixtures.repository(ExerciseRepository.class,
+                Map.of("findAllExerciseNames", Fixtures.exerciseNames(150))));
+        template = new SystemPromptTemplate(exerciseCatalog);
+        profiles = new UserDetailsDTO[PROFILES];
+        for (int i = 0; i < PROFILES; i++) {
+            profiles[i] = Fixtures.profile(i);
+        }
+    }
+
+    @Benchmark
+    public String sameProfile() {
+        return template.render(profiles[0], SUMMARY);
+    }
+
+    @Benchmark
+    public String manyProfiles() {
+        next = (next + 1) % PROFILES;
+        return template.render(profiles[next], SUMMARY);
+    }
+}
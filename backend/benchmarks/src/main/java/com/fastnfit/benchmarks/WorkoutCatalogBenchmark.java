@@ -0,0 +1,73 @@
+package com.fastnfit.benchmarks;
+
+import com.fastnfit.app.dto.WorkoutDTO;
+import com.fastnfit.app.model.Workout;
+import com.fastnfit.app.repository.WorkoutRepository;
+import com.fastnfit.app.service.WorkoutService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * workout catalog over growing catalog sizes
+ * - convertToDTO: entity to DTO for every workout, what a catalog load pays per workout
+ * - reloadCatalog: invalidate and rebuild, conversion plus the category, level and home page grouping
+ * - cachedHomeGroups: what HomeController pays per request once the catalog is loaded
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkoutCatalogBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    private int workouts;
+
+    @Param({ "10" })
+    private int exercisesPerWorkout;
+
+    private List<Workout> entities;
+    private WorkoutService workoutService;
+
+    @Setup
+    public void setup() {
+        entities = Fixtures.workouts(workouts, exercisesPerWorkout);
+        workoutService = new WorkoutService(Fixtures.repository(WorkoutRepository.class,
+                Map.of("findAllWithExercises", entities)));
+        workoutService.getAllWorkouts();
+    }
+
+    @Benchmark
+    public void convertToDTO(Blackhole blackhole) {
+        for (Workout workout : entities) {
+            blackhole.consume(workoutService.convertToDTO(workout));
+        }
+    }
+
+    @Benchmark
+    public Map<String, List<WorkoutDTO>> reloadCatalog() {
+        workoutService.invalidateCatalog();
+        return workoutService.getWorkoutsGroupedForHome();
+    }
+
+    @Benchmark
+    public Map<String, List<WorkoutDTO>> cachedHomeGroups() {
+        return workoutService.getWorkoutsGroupedForHome();
+    }
+}
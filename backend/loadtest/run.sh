@@ -0,0 +1,69 @@
+#!/usr/bin/env bash
+# full load test: postgres, openai stub, backend, seed data, restart the backend, run the journeys
+# options for each step go through STUB_OPTS, SEED_OPTS and RUN_OPTS, e.g.
+#   SEED_OPTS="--users=5000 --years=5" RUN_OPTS="--vus=200 --duration-s=300" ./run.sh
+set -euo pipefail
+cd "$(dirname "$0")"
+
+MVN=${MVN:-mvn}
+DB_URL=${DB_URL:-jdbc:postgresql://localhost:5433/fastnfit_load}
+STUB_PORT=${STUB_PORT:-8089}
+BACKEND_JAR=../target/fastnfit-app-0.0.1-SNAPSHOT.jar
+
+export DB_URL DB_USER=${DB_USER:-fastnfit} DB_PASS=${DB_PASS:-fastnfit}
+export JWT_SECRET=${JWT_SECRET:-loadtest_jwt_secret_key_at_least_64_characters_long_for_hs256_signing}
+export OPEN_API_KEY=loadtest
+
+STUB_PID=""
+BACKEND_PID=""
+cleanup() {
+    [ -n "$BACKEND_PID" ] && kill "$BACKEND_PID" 2>/dev/null || true
+    [ -n "$STUB_PID" ] && kill "$STUB_PID" 2>/dev/null || true
+}
+trap cleanup EXIT
+
+start_backend() {
+    java -jar "$BACKEND_JAR" \
+        --openai.api.url="http://localhost:$STUB_PORT/v1/chat/completions" \
+        --spring.jpa.show-sql=false \
+        --logging.level.org.hibernate.SQL=WARN \
+        --logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN \
+        >> target/backend.log 2>&1 &
+    BACKEND_PID=$!
+    # any http answer means it is up (the login endpoint rejects the empty body)
+    for _ in $(seq 1 120); do
+        code=$(curl -s -o /dev/null -w "%{http_code}" -X POST -H "Content-Type: application/json" -d '{}' \
+            http://localhost:8080/api/auth/login || true)
+        [ "$code" != "000" ] && return 0
+        sleep 1
+    done
+    echo "Backend did not start, see target/backend.log" >&2
+    exit 1
+}
+
+echo "== building"
+(cd .. && $MVN -B -q package -DskipTests)
+$MVN -B -q package
+: > target/backend.log
+
+echo "== starting postgres"
+docker compose up -d postgres
+until docker compose exec -T postgres pg_isready -U "$DB_USER" -d fastnfit_load >/dev/null 2>&1; do sleep 1; done
+
+echo "== starting openai stub"
+java -jar target/loadtest.jar stub --port="$STUB_PORT" ${STUB_OPTS:-} > target/stub.log 2>&1 &
+STUB_PID=$!
+
+echo "== starting backend to create the schema"
+start_backend
+
+echo "== seeding"
+java -jar target/loadtest.jar seed --jdbc-url="$DB_URL?reWriteBatchedInserts=true" \
+    --db-user="$DB_USER" --db-password="$DB_PASS" ${SEED_OPTS:-}
+
+echo "== restarting backend"
+kill "$BACKEND_PID"; wait "$BACKEND_PID" 2>/dev/null || true
+start_backend
+
+echo "== running"
+java -jar target/loadtest.jar run --out=target/loadtest-results.json ${RUN_OPTS:-}
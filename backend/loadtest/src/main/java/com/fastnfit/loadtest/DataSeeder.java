@@ -0,0 +1,285 @@
+package com.fastnfit.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * fills the backend's database with synthetic data over plain jdbc
+ * - the schema comes from the backend itself (ddl-auto=update), start it once against the empty database first
+ * - exercises and workouts if there are none, then --users users with --years of history at about
+ *   --workouts-per-week, and --chat-messages chat history rows each
+ * - every user is loadtest<n>@example.com with FitnessData.PASSWORD, hashed once with the backend's bcrypt
+ * - user_totals is emptied at the end so the backend rebuilds it from history on its next start,
+ *   the same way last_workout_date is filled in, restart the backend after seeding
+ * - a fixed --seed makes the data the same on every run
+ */
+public class DataSeeder {
+
+    private final String jdbcUrl;
+    private final String user;
+    private final String password;
+    private final int users;
+    private final int years;
+    private final double workoutsPerWeek;
+    private final int chatMessages;
+    private final int batchSize;
+    private final int bcryptStrength;
+    private final Random random;
+
+    public DataSeeder(String jdbcUrl, String user, String password, int users, int years, double workoutsPerWeek,
+            int chatMessages, int batchSize, int bcryptStrength, long seed) {
+        this.jdbcUrl = jdbcUrl;
+        this.user = user;
+        this.password = password;
+        this.users = users;
+        this.years = years;
+        this.workoutsPerWeek = workoutsPerWeek;
+        this.chatMessages = chatMessages;
+        this.batchSize = batchSize;
+        this.bcryptStrength = bcryptStrength;
+        this.random = new Random(seed);
+    }
+
+    public static DataSeeder fromOptions(Options options) {
+        return new DataSeeder(
+                options.get("jdbc-url", "jdbc:postgresql://localhost:5433/fastnfit_load?reWriteBatchedInserts=true"),
+                options.get("db-user", "fastnfit"),
+                options.get("db-password", "fastnfit"),
+                options.getInt("users", 2000),
+                options.getInt("years", 3),
+                options.getDouble("workouts-per-week", 3),
+                options.getInt("chat-messages", 200),
+                options.getInt("batch-size", 1000),
+                options.getInt("bcrypt-strength", 10),
+                options.getInt("seed", 42));
+    }
+
+    public void seed() throws SQLException {
+        long started = System.currentTimeMillis();
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, user, password)) {
+            connection.setAutoCommit(false);
+            requireSchema(connection);
+
+            if (count(connection, "SELECT COUNT(*) FROM users WHERE email LIKE 'loadtest%@example.com'") > 0) {
+                System.out.println("Load test users already exist, nothing to do (drop the database to seed again)");
+                return;
+            }
+
+            seedExercises(connection);
+            List<int[]> workouts = seedWorkouts(connection);
+            List<Long> userIds = seedUsers(connection);
+            long historyRows = seedHistory(connection, userIds, workouts);
+            long chatRows = seedChatHistory(connection, userIds);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM user_totals");
+            }
+            connection.commit();
+
+            System.out.printf("Seeded %d users, %d history rows and %d chat messages in %d s, restart the backend now%n",
+                    userIds.size(), historyRows, chatRows, (System.currentTimeMillis() - started) / 1000);
+        }
+    }
+
+    private void requireSchema(Connection connection) throws SQLException {
+        for (String table : List.of("users", "user_details", "workouts", "exercises", "workout_exercise",
+                "history", "chat_history", "user_totals")) {
+            try (ResultSet tables = connection.getMetaData().getTables(null, null, table, null)) {
+                if (!tables.next()) {
+                    throw new IllegalStateException("Table " + table + " is missing, start the backend once "
+                            + "against this database so it creates the schema");
+                }
+            }
+        }
+    }
+
+    private void seedExercises(Connection connection) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO exercises (name) VALUES (?) ON CONFLICT DO NOTHING")) {
+            for (String name : FitnessData.EXERCISES) {
+                insert.setString(1, name);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    // {workoutId, calories, durationInMinutes} for every workout, creating a catalog first if there is none
+    private List<int[]> seedWorkouts(Connection connection) throws SQLException {
+        if (count(connection, "SELECT COUNT(*) FROM workouts") == 0) {
+            try (PreparedStatement workout = connection.prepareStatement(
+                    "INSERT INTO workouts (category, name, description, level, calories, duration_in_minutes, image) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, '/images/default.jpg')", Statement.RETURN_GENERATED_KEYS);
+                    PreparedStatement exercise = connection.prepareStatement(
+                            "INSERT INTO workout_exercise (workout_id, exercise_id, duration, rest) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < 60; i++) {
+                    String category = FitnessData.CATEGORIES.get(i % FitnessData.CATEGORIES.size());
+                    workout.setString(1, category);
+                    workout.setString(2, category + " Workout " + (i + 1));
+                    workout.setString(3, "Synthetic " + category.toLowerCase() + " workout for load testing");
+                    workout.setString(4, FitnessData.LEVELS.get(i % FitnessData.LEVELS.size()));
+                    workout.setInt(5, 100 + random.nextInt(300));
+                    workout.setInt(6, 10 + random.nextInt(40));
+                    workout.executeUpdate();
+                    long workoutId;
+                    try (ResultSet keys = workout.getGeneratedKeys()) {
+                        keys.next();
+                        workoutId = keys.getLong(1);
+                    }
+                    for (int j = 0; j < 8; j++) {
+                        exercise.setLong(1, workoutId);
+                        exercise.setString(2, FitnessData.EXERCISES.get((i + j * 3) % FitnessData.EXERCISES.size()));
+                        exercise.setInt(3, 30 + 10 * random.nextInt(4));
+                        exercise.setInt(4, 15);
+                        exercise.addBatch();
+                    }
+                }
+                exercise.executeBatch();
+            }
+        }
+
+        List<int[]> workouts = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery(
+                        "SELECT workout_id, COALESCE(calories, 0), COALESCE(duration_in_minutes, 0) FROM workouts")) {
+            while (rows.next()) {
+                workouts.add(new int[] { rows.getInt(1), rows.getInt(2), rows.getInt(3) });
+            }
+        }
+        return workouts;
+    }
+
+    private List<Long> seedUsers(Connection connection) throws SQLException {
+        // one hash for everyone, bcrypt per user would take minutes
+        String hash = new BCryptPasswordEncoder(bcryptStrength).encode(FitnessData.PASSWORD);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO users (email, password) VALUES (?, ?)")) {
+            for (int i = 1; i <= users; i++) {
+                insert.setString(1, FitnessData.email(i));
+                insert.setString(2, hash);
+                addToBatch(insert, i);
+            }
+            insert.executeBatch();
+        }
+
+        List<Long> userIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery(
+                        "SELECT user_id FROM users WHERE email LIKE 'loadtest%@example.com' ORDER BY user_id")) {
+            while (rows.next()) {
+                userIds.add(rows.getLong(1));
+            }
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO user_details (user_id, username, dob, height, weight, pregnancy_status, workout_goal, "
+                        + "workout_days, fitness_level, menstrual_cramps, cycle_based_recommendations, workout_type, "
+                        + "avatar, current_streak, longest_streak) "
+                        + "VALUES (?, ?, ?, ?, ?, 'NO', ?, ?, ?, false, false, ?, '/avatars/avatar.png', 0, 0)")) {
+            int n = 0;
+            for (Long userId : userIds) {
+                insert.setLong(1, userId);
+                insert.setString(2, "loadtest" + userId);
+                insert.setDate(3, Date.valueOf(LocalDate.of(1970 + random.nextInt(35), 1 + random.nextInt(12), 1)));
+                insert.setDouble(4, 150 + random.nextInt(45));
+                insert.setDouble(5, 45 + random.nextInt(60));
+                insert.setString(6, pick(FitnessData.GOALS));
+                insert.setInt(7, 2 + random.nextInt(5));
+                insert.setString(8, pick(FitnessData.FITNESS_LEVELS));
+                insert.setString(9, pick(FitnessData.CATEGORIES));
+                addToBatch(insert, ++n);
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        return userIds;
+    }
+
+    private long seedHistory(Connection connection, List<Long> userIds, List<int[]> workouts) throws SQLException {
+        LocalDate today = LocalDate.now();
+        LocalDate first = today.minusYears(years);
+        double perDay = workoutsPerWeek / 7;
+        long rows = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO history (user_id, workout_id, workout_date_time, calories_burned, duration_in_minutes) "
+                        + "VALUES (?, ?, ?, ?, ?)")) {
+            for (Long userId : userIds) {
+                // some users are much more active than others
+                double activity = perDay * (0.25 + random.nextDouble() * 1.5);
+                for (LocalDate day = first; !day.isAfter(today); day = day.plusDays(1)) {
+                    if (random.nextDouble() >= activity) continue;
+                    int[] workout = workouts.get(random.nextInt(workouts.size()));
+                    LocalDateTime time = day.atTime(6 + random.nextInt(16), random.nextInt(60));
+                    insert.setLong(1, userId);
+                    insert.setLong(2, workout[0]);
+                    insert.setTimestamp(3, Timestamp.valueOf(time));
+                    insert.setInt(4, workout[1]);
+                    insert.setInt(5, workout[2]);
+                    addToBatch(insert, ++rows);
+                }
+                connection.commit();
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        return rows;
+    }
+
+    private long seedChatHistory(Connection connection, List<Long> userIds) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        long rows = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO chat_history (user_id, role, content, timestamp) VALUES (?, ?, ?, ?)")) {
+            for (Long userId : userIds) {
+                LocalDateTime time = now.minusDays(years * 365L);
+                for (int i = 0; i < chatMessages; i++) {
+                    boolean fromUser = i % 2 == 0;
+                    time = time.plusMinutes(1 + random.nextInt(60 * 24 * 3));
+                    if (time.isAfter(now)) time = now;
+                    insert.setLong(1, userId);
+                    insert.setString(2, fromUser ? "user" : "assistant");
+                    insert.setString(3, fromUser
+                            ? pick(FitnessData.CHAT_MESSAGES)
+                            : "Sure! Here is something that fits your goals. Keep it steady, rest when you need to "
+                                    + "and stay hydrated. Tell me how it went next time so I can adjust the plan.");
+                    insert.setTimestamp(4, Timestamp.valueOf(time));
+                    addToBatch(insert, ++rows);
+                }
+                connection.commit();
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        return rows;
+    }
+
+    private void addToBatch(PreparedStatement statement, long n) throws SQLException {
+        statement.addBatch();
+        if (n % batchSize == 0) {
+            statement.executeBatch();
+        }
+    }
+
+    private String pick(List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.fastnfit.loadtest;
+
+import java.util.List;
+
+// names shared by the seeder and the openai stub, the stub's workouts only use exercises the seeder created
+public final class FitnessData {
+
+    private FitnessData() {
+    }
+
+    public static final List<String> EXERCISES = List.of(
+            "Jumping Jacks", "Burpees", "Mountain Climbers", "High Knees", "Squat Jumps",
+            "Push Ups", "Plank", "Side Plank", "Lunges", "Glute Bridge",
+            "Bicycle Crunches", "Russian Twists", "Wall Sit", "Tricep Dips", "Superman",
+            "Child's Pose", "Cat Cow", "Downward Dog", "Cobra Stretch", "Butterfly Stretch",
+            "Skaters", "Butt Kicks", "Inchworms", "Bear Crawl", "Donkey Kicks",
+            "Fire Hydrants", "Leg Raises", "Flutter Kicks", "Calf Raises", "Arm Circles");
+
+    // enum names as the backend stores them (@Enumerated(EnumType.STRING))
+    public static final List<String> CATEGORIES = List.of(
+            "LOW_IMPACT", "OTHERS", "PRENATAL", "POSTNATAL", "Yoga", "HIIT", "STRENGTH", "BODY_WEIGHT");
+
+    public static final List<String> LEVELS = List.of("Beginner", "Intermediate", "Advanced", "All_Levels");
+
+    public static final List<String> FITNESS_LEVELS = List.of("Beginner", "Intermediate", "Advanced");
+
+    public static final List<String> GOALS = List.of(
+            "GENERAL", "WEIGHT_LOSS", "STRENGTH_BUILDING", "FLEXIBILITY", "STRESS_RELIEF");
+
+    public static final List<String> CHAT_MESSAGES = List.of(
+            "Can you give me a quick workout for today?",
+            "I only have 15 minutes, what should I do?",
+            "Suggest a low impact workout for my knees",
+            "How many times a week should I train?",
+            "What should I eat after a workout?",
+            "Give me a HIIT workout to burn calories",
+            "I feel sore today, is it ok to exercise?",
+            "Make me a short stretching routine",
+            "How do I stay motivated to work out?",
+            "Can you plan a strength workout without equipment?");
+
+    public static final String PASSWORD = "loadtest-password";
+
+    public static String email(int userNumber) {
+        return "loadtest" + userNumber + "@example.com";
+    }
+}
@@ -0,0 +1,43 @@
+package com.fastnfit.loadtest;
+
+import java.util.Arrays;
+
+// latencies of one endpoint, appended from many threads and sorted once for the report
+public class LatencyStats {
+
+    private final String name;
+    private long[] micros = new long[1024];
+    private int count;
+    private int errors;
+
+    public LatencyStats(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long latencyMicros, boolean ok) {
+        if (count == micros.length) {
+            micros = Arrays.copyOf(micros, count * 2);
+        }
+        micros[count++] = latencyMicros;
+        if (!ok) errors++;
+    }
+
+    public synchronized Summary summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(micros, count);
+        Arrays.sort(sorted);
+        return new Summary(name, count, errors, count / seconds,
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                count == 0 ? 0 : sorted[count - 1] / 1000.0);
+    }
+
+    // nearest rank, in milliseconds
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1000.0;
+    }
+
+    public record Summary(String endpoint, int requests, int errors, double throughput,
+            double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+    }
+}
@@ -0,0 +1,257 @@
+package com.fastnfit.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * drives the backend with --vus virtual users for --duration-s seconds, each one repeating a user journey:
+ *   login -> home workouts -> activity overview -> (complete a workout) -> (chat)
+ * - users are picked from the seeded loadtest<n>@example.com accounts
+ * - the home catalog is requested like a browser would, with gzip and the last ETag
+ * - --complete-ratio and --chat-ratio are the share of journeys that complete a workout and send a chat message
+ * - prints p50/p95/p99, max and throughput per endpoint and writes the same numbers as json to --out
+ */
+public class LoadRunner {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final String baseUrl;
+    private final int vus;
+    private final int durationSeconds;
+    private final int rampUpSeconds;
+    private final int seededUsers;
+    private final int thinkMs;
+    private final double completeRatio;
+    private final double chatRatio;
+    private final String out;
+    private final Duration timeout;
+
+    private final HttpClient httpClient;
+    private final Map<String, LatencyStats> stats = new LinkedHashMap<>();
+    private List<Long> workoutIds = List.of();
+
+    public LoadRunner(String baseUrl, int vus, int durationSeconds, int rampUpSeconds, int seededUsers, int thinkMs,
+            double completeRatio, double chatRatio, String out, int timeoutSeconds) {
+        this.baseUrl = baseUrl;
+        this.vus = vus;
+        this.durationSeconds = durationSeconds;
+        this.rampUpSeconds = rampUpSeconds;
+        this.seededUsers = seededUsers;
+        this.thinkMs = thinkMs;
+        this.completeRatio = completeRatio;
+        this.chatRatio = chatRatio;
+        this.out = out;
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (String endpoint : List.of("login", "home", "overview", "complete", "chat")) {
+            stats.put(endpoint, new LatencyStats(endpoint));
+        }
+    }
+
+    public static LoadRunner fromOptions(Options options) {
+        return new LoadRunner(
+                options.get("base-url", "http://localhost:8080"),
+                options.getInt("vus", 50),
+                options.getInt("duration-s", 120),
+                options.getInt("ramp-up-s", 10),
+                options.getInt("seeded-users", 2000),
+                options.getInt("think-ms", 300),
+                options.getDouble("complete-ratio", 0.5),
+                options.getDouble("chat-ratio", 0.2),
+                options.get("out", "loadtest-results.json"),
+                options.getInt("timeout-s", 60));
+    }
+
+    public void run() throws Exception {
+        workoutIds = loadWorkoutIds();
+        System.out.printf("Running %d virtual users for %d s against %s (%d workouts)%n",
+                vus, durationSeconds, baseUrl, workoutIds.size());
+
+        long start = System.nanoTime();
+        long end = start + Duration.ofSeconds(rampUpSeconds + durationSeconds).toNanos();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < vus; i++) {
+            long startAt = start + Duration.ofSeconds(rampUpSeconds).toNanos() * i / Math.max(1, vus);
+            Thread thread = new Thread(() -> virtualUser(startAt, end), "vu-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report(seconds);
+    }
+
+    private void virtualUser(long startAt, long end) {
+        sleep((startAt - System.nanoTime()) / 1_000_000);
+        String etag = null;
+        while (System.nanoTime() < end) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int userNumber = 1 + random.nextInt(seededUsers);
+
+            JsonNode auth = call("login", post("/api/auth/login", null,
+                    Map.of("email", FitnessData.email(userNumber), "password", FitnessData.PASSWORD)));
+            if (auth == null) {
+                think();
+                continue;
+            }
+            String token = auth.path("token").asText();
+            long userId = auth.path("userId").asLong();
+            think();
+
+            HttpRequest.Builder home = get("/api/home/workouts", token).header("Accept-Encoding", "gzip");
+            if (etag != null) {
+                home.header("If-None-Match", etag);
+            }
+            etag = callForEtag("home", home.build(), etag);
+            think();
+
+            call("overview", get("/api/history/activity/overview", token).build());
+            think();
+
+            if (!workoutIds.isEmpty() && random.nextDouble() < completeRatio) {
+                long workoutId = workoutIds.get(random.nextInt(workoutIds.size()));
+                call("complete", post("/api/workout-progress/complete", token, Map.of("workoutId", workoutId)));
+                think();
+            }
+
+            if (random.nextDouble() < chatRatio) {
+                String message = FitnessData.CHAT_MESSAGES.get(random.nextInt(FitnessData.CHAT_MESSAGES.size()));
+                call("chat", post("/api/chatbot/" + userId, token, Map.of("message", message, "exercises", List.of())));
+                think();
+            }
+        }
+    }
+
+    // the workout ids to complete, read once before the run
+    private List<Long> loadWorkoutIds() throws IOException, InterruptedException {
+        HttpResponse<String> login = httpClient.send(post("/api/auth/login", null,
+                Map.of("email", FitnessData.email(1), "password", FitnessData.PASSWORD)), HttpResponse.BodyHandlers.ofString());
+        if (login.statusCode() != 200) {
+            throw new IllegalStateException("Login as " + FitnessData.email(1) + " failed with " + login.statusCode()
+                    + ", has the database been seeded?");
+        }
+        String token = MAPPER.readTree(login.body()).path("token").asText();
+        HttpResponse<String> workouts = httpClient.send(get("/api/workouts", token).build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode workout : MAPPER.readTree(workouts.body())) {
+            ids.add(workout.path("workoutId").asLong());
+        }
+        return ids;
+    }
+
+    private JsonNode call(String endpoint, HttpRequest request) {
+        long started = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            boolean ok = response.statusCode() / 100 == 2;
+            stats.get(endpoint).record((System.nanoTime() - started) / 1000, ok);
+            return ok && !response.body().isEmpty() ? MAPPER.readTree(response.body()) : null;
+        } catch (IOException e) {
+            stats.get(endpoint).record((System.nanoTime() - started) / 1000, false);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // a 304 counts as success, returns the etag to send next time
+    private String callForEtag(String endpoint, HttpRequest request, String etag) {
+        long started = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            int status = response.statusCode();
+            stats.get(endpoint).record((System.nanoTime() - started) / 1000, status / 100 == 2 || status == 304);
+            return response.headers().firstValue("ETag").orElse(etag);
+        } catch (IOException e) {
+            stats.get(endpoint).record((System.nanoTime() - started) / 1000, false);
+            return etag;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return etag;
+        }
+    }
+
+    private HttpRequest.Builder get(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpRequest post(String path, String token, Object body) {
+        String json;
+        try {
+            json = MAPPER.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private void report(double seconds) throws IOException {
+        List<LatencyStats.Summary> summaries = new ArrayList<>();
+        System.out.printf("%n%-10s %9s %7s %9s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (LatencyStats endpoint : stats.values()) {
+            LatencyStats.Summary summary = endpoint.summarize(seconds);
+            summaries.add(summary);
+            System.out.printf("%-10s %9d %7d %9.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    summary.endpoint(), summary.requests(), summary.errors(), summary.throughput(),
+                    summary.p50Ms(), summary.p95Ms(), summary.p99Ms(), summary.maxMs());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("baseUrl", baseUrl);
+        result.put("vus", vus);
+        result.put("durationSeconds", seconds);
+        result.put("completeRatio", completeRatio);
+        result.put("chatRatio", chatRatio);
+        result.put("endpoints", summaries);
+        MAPPER.writeValue(new File(out), result);
+        System.out.println("\nResults written to " + out);
+    }
+
+    private void think() {
+        if (thinkMs > 0) {
+            sleep(ThreadLocalRandom.current().nextLong(thinkMs * 2L + 1));
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
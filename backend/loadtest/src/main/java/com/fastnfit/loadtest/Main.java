@@ -0,0 +1,30 @@
+package com.fastnfit.loadtest;
+
+import java.util.Arrays;
+
+/*
+ * entry point of the load test jar
+ *   java -jar loadtest.jar stub [--port=8089 --latency-ms=800 ...]   local openai stand-in
+ *   java -jar loadtest.jar seed [--jdbc-url=... --users=2000 ...]    synthetic users, history and chat history
+ *   java -jar loadtest.jar run  [--base-url=... --vus=50 ...]        scripted user journeys, prints percentiles
+ * every option is listed in README.md
+ */
+public class Main {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage: java -jar loadtest.jar <stub|seed|run> [--option=value ...]");
+            System.exit(1);
+        }
+        Options options = Options.parse(Arrays.copyOfRange(args, 1, args.length));
+        switch (args[0]) {
+            case "stub" -> OpenAiStub.fromOptions(options).start();
+            case "seed" -> DataSeeder.fromOptions(options).seed();
+            case "run" -> LoadRunner.fromOptions(options).run();
+            default -> {
+                System.out.println("Unknown command: " + args[0]);
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.fastnfit.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * stand-in for POST /v1/chat/completions, point the backend at it with
+ *   openai.api.url=http://localhost:8089/v1/chat/completions
+ * - latency is log-normal around --latency-ms (median) with --latency-sigma, like a real model the tail is long
+ * - --error-rate of the calls fail with a 500 or a 429
+ * - --malformed-rate of the workout replies have a broken json block, so the backend's repair and retry paths run
+ * - stream=true requests are answered as server sent events, the latency is spread over the chunks
+ * - workout replies only use exercises from FitnessData, the same ones the seeder puts in the database
+ */
+public class OpenAiStub {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int port;
+    private final double latencyMs;
+    private final double latencySigma;
+    private final double errorRate;
+    private final double malformedRate;
+    private final int threads;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+
+    public OpenAiStub(int port, double latencyMs, double latencySigma, double errorRate, double malformedRate, int threads) {
+        this.port = port;
+        this.latencyMs = latencyMs;
+        this.latencySigma = latencySigma;
+        this.errorRate = errorRate;
+        this.malformedRate = malformedRate;
+        this.threads = threads;
+    }
+
+    public static OpenAiStub fromOptions(Options options) {
+        return new OpenAiStub(
+                options.getInt("port", 8089),
+                options.getDouble("latency-ms", 800),
+                options.getDouble("latency-sigma", 0.5),
+                options.getDouble("error-rate", 0.02),
+                options.getDouble("malformed-rate", 0.05),
+                options.getInt("threads", 256));
+    }
+
+    public void start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 512);
+        // every call mostly sleeps, so plenty of threads
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+        System.out.printf("OpenAI stub listening on http://localhost:%d/v1/chat/completions "
+                + "(latency %.0f ms, sigma %.2f, error rate %.2f, malformed rate %.2f)%n",
+                port, latencyMs, latencySigma, errorRate, malformedRate);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                System.out.printf("OpenAI stub: %d calls, %d errors, %d malformed%n",
+                        calls.get(), errors.get(), malformed.get())));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            calls.incrementAndGet();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long latency = sampleLatency(random);
+
+            if (random.nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                sleep(latency / 4);
+                int status = random.nextBoolean() ? 500 : 429;
+                send(exchange, status, "application/json",
+                        "{\"error\":{\"message\":\"stub error\",\"type\":\"server_error\"}}");
+                return;
+            }
+
+            String content = reply(request, random);
+            // rough token counts (4 characters a token) so the app's openai.tokens counters move
+            int promptTokens = request.path("messages").toString().length() / 4;
+            if (request.path("stream").asBoolean(false)) {
+                boolean includeUsage = request.path("stream_options").path("include_usage").asBoolean(false);
+                stream(exchange, content, latency, includeUsage ? promptTokens : -1);
+            } else {
+                sleep(latency);
+                send(exchange, 200, "application/json", completion(content, promptTokens));
+            }
+        } catch (RuntimeException e) {
+            System.out.println("OpenAI stub failed: " + e.getMessage());
+        }
+    }
+
+    private String reply(JsonNode request, ThreadLocalRandom random) {
+        JsonNode messages = request.path("messages");
+        String system = messages.path(0).path("content").asText("");
+        String lastUser = "";
+        for (JsonNode message : messages) {
+            if ("user".equals(message.path("role").asText())) {
+                lastUser = message.path("content").asText("");
+            }
+        }
+
+        if (system.contains("running summary")) {
+            return "The user wants short workouts at home, prefers low impact moves and trains about three times a week.";
+        }
+        String lower = lastUser.toLowerCase();
+        if (lower.contains("workout") || lower.contains("routine") || lower.contains("plan")) {
+            boolean broken = random.nextDouble() < malformedRate;
+            if (broken) {
+                malformed.incrementAndGet();
+            }
+            return workoutReply(random, broken);
+        }
+        return "Good question! Consistency matters more than intensity. Aim for three to four sessions a week, "
+                + "drink water regularly and give sore muscles a rest day. Let me know if you want a workout for today.";
+    }
+
+    private String workoutReply(ThreadLocalRandom random, boolean broken) {
+        List<String> exercises = new ArrayList<>(FitnessData.EXERCISES);
+        Collections.shuffle(exercises, random);
+        exercises = exercises.subList(0, 5);
+
+        ObjectNode workout = MAPPER.createObjectNode()
+                .put("name", "Quick Home Session")
+                .put("description", "A short full body workout")
+                .put("category", "HIIT")
+                .put("level", "Intermediate")
+                .put("calories", 150 + random.nextInt(150))
+                .put("durationInMinutes", 15);
+        ArrayNode list = workout.putArray("workoutExercise");
+        StringBuilder bullets = new StringBuilder();
+        for (String exercise : exercises) {
+            list.addObject().put("name", exercise).put("duration", 40).put("rest", 20);
+            bullets.append("• ").append(exercise).append(" - 40 seconds work, 20 seconds rest\n");
+        }
+
+        String json = workout.toString();
+        if (broken) {
+            // cut off the end of the object, like a model that stopped early
+            json = json.substring(0, json.length() - 3);
+        }
+        return "<BEGIN_JSON>\n" + json + "\n<END_JSON>\n"
+                + "Here's a quick workout for you!\n\n**Main Workout**\n" + bullets
+                + "\n**Cool Down**\nStretch for a few minutes.\n\nWould you like to try this workout?";
+    }
+
+    // promptTokens < 0 means the client did not ask for a usage chunk
+    private void stream(HttpExchange exchange, String content, long latency, int promptTokens) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < content.length(); i += 16) {
+            chunks.add(content.substring(i, Math.min(content.length(), i + 16)));
+        }
+        // about a third of the time goes to the first token, the rest is spread over the chunks
+        long firstToken = latency / 3;
+        long perChunk = chunks.isEmpty() ? 0 : (latency - firstToken) / chunks.size();
+
+        OutputStream out = exchange.getResponseBody();
+        sleep(firstToken);
+        for (String chunk : chunks) {
+            ObjectNode event = MAPPER.createObjectNode();
+            event.putArray("choices").addObject().putObject("delta").put("content", chunk);
+            out.write(("data: " + event + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            sleep(perChunk);
+        }
+        if (promptTokens >= 0) {
+            ObjectNode event = MAPPER.createObjectNode();
+            event.putArray("choices");
+            usage(event, promptTokens, content);
+            out.write(("data: " + event + "\n\n").getBytes(StandardCharsets.UTF_8));
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static String completion(String content, int promptTokens) {
+        ObjectNode response = MAPPER.createObjectNode()
+                .put("id", "chatcmpl-stub")
+                .put("object", "chat.completion")
+                .put("model", "gpt-4o-mini");
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        usage(response, promptTokens, content);
+        return response.toString();
+    }
+
+    private static void usage(ObjectNode parent, int promptTokens, String content) {
+        int completionTokens = content.length() / 4;
+        parent.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private long sampleLatency(ThreadLocalRandom random) {
+        return Math.round(latencyMs * Math.exp(latencySigma * random.nextGaussian()));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -8,7 +8,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Bean;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -18,6 +19,8 @@ import com.fastnfit.app.config.JwtConfig;
 
 @SpringBootApplication
 @EnableConfigurationProperties({JwtConfig.class})
+@EnableScheduling
+@EnableAsync
 public class WorkoutApplication{
 
     public static void main(String[] args) {
@@ -37,9 +40,4 @@ public class WorkoutApplication{
             }
         };
     }
-
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
 }
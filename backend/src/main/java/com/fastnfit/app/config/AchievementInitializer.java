@@ -4,6 +4,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.fastnfit.app.enums.AchievementMetric;
 import com.fastnfit.app.model.Achievement;
 import com.fastnfit.app.repository.AchievementRepository;
 
@@ -16,22 +17,32 @@ public class AchievementInitializer {
     @Bean
     CommandLineRunner initAchievements(AchievementRepository repository) {
         return args -> {
-            // Check if achievements are already initialized
-            if (repository.count() == 0) {
-                List<Achievement> defaultAchievements = Arrays.asList(
-                    createAchievement("5 Day Streak", "Complete workouts for 5 consecutive days"),
-                    createAchievement("10 Workouts", "Complete 10 workouts"),
-                    createAchievement("30 Day Streak", "Complete workouts for 30 consecutive days")
-                );
-                repository.saveAll(defaultAchievements);
+            List<Achievement> defaultAchievements = Arrays.asList(
+                createAchievement("5 Day Streak", "Complete workouts for 5 consecutive days", AchievementMetric.STREAK, 5),
+                createAchievement("10 Workouts", "Complete 10 workouts", AchievementMetric.WORKOUT_COUNT, 10),
+                createAchievement("30 Day Streak", "Complete workouts for 30 consecutive days", AchievementMetric.STREAK, 30)
+            );
+
+            for (Achievement defaultAchievement : defaultAchievements) {
+                Achievement existing = repository.findByTitle(defaultAchievement.getTitle()).orElse(null);
+                if (existing == null) {
+                    repository.save(defaultAchievement);
+                } else if (existing.getMetric() == null) {
+                    // achievements created before rules existed only had a title
+                    existing.setMetric(defaultAchievement.getMetric());
+                    existing.setThreshold(defaultAchievement.getThreshold());
+                    repository.save(existing);
+                }
             }
         };
     }
     
-    private Achievement createAchievement(String title, String description) {
+    private Achievement createAchievement(String title, String description, AchievementMetric metric, int threshold) {
         Achievement achievement = new Achievement();
         achievement.setTitle(title);
         achievement.setDescription(description);
+        achievement.setMetric(metric);
+        achievement.setThreshold(threshold);
         return achievement;
     }
 }
@@ -1,7 +1,6 @@
 package com.fastnfit.app.config;
 
 import com.fastnfit.app.service.JwtService;
-import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -40,10 +39,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         
         try {
             String jwt = authHeader.substring(7);
-            Claims claims = jwtService.extractAllClaims(jwt);
             
-            if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                Long userId = claims.get("userId", Long.class);
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // cached after the first request with this token, see JwtService
+                Long userId = jwtService.verifyUserId(jwt);
                 
                 if (userId != null) {
                     // Create a User object with the userId as the username
@@ -0,0 +1,64 @@
+package com.fastnfit.app.config;
+
+import com.fastnfit.app.service.ChatResponseCache;
+import com.fastnfit.app.service.OpenAiClient;
+import com.fastnfit.app.service.PasswordHashingService;
+import com.fastnfit.app.service.UserTaskExecutor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * meters on top of what actuator already records
+ * (http.server.requests, hikaricp.*, jvm.*, executor.*, spring.data.repository.invocations)
+ * - password hashing pool and openai client saturation, chat response cache hit rate, dropped user tasks
+ * - per request sql statement counts are in StatementMetricsConfig, chatbot stages in ChatMetrics
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder passwordHashingMetrics(PasswordHashingService passwordHashingService) {
+        return meters -> {
+            Gauge.builder("auth.hashing.queue.depth", passwordHashingService, PasswordHashingService::getQueueDepth)
+                    .register(meters);
+            Gauge.builder("auth.hashing.active", passwordHashingService, PasswordHashingService::getActiveCount)
+                    .register(meters);
+            FunctionCounter.builder("auth.hashing.rejected", passwordHashingService,
+                    PasswordHashingService::getRejectedCount).register(meters);
+        };
+    }
+
+    @Bean
+    public MeterBinder openAiClientMetrics(OpenAiClient openAiClient) {
+        return meters -> Gauge.builder("openai.client.available.slots", openAiClient, OpenAiClient::getAvailableSlots)
+                .register(meters);
+    }
+
+    @Bean
+    public MeterBinder userTaskMetrics(UserTaskExecutor userTaskExecutor) {
+        return meters -> {
+            FunctionCounter.builder("user.tasks.waited", userTaskExecutor, UserTaskExecutor::getWaitedCount)
+                    .register(meters);
+            FunctionCounter.builder("user.tasks.failed", userTaskExecutor, UserTaskExecutor::getFailedCount)
+                    .register(meters);
+        };
+    }
+
+    @Bean
+    public MeterBinder chatResponseCacheMetrics(ChatResponseCache chatResponseCache) {
+        return meters -> {
+            FunctionCounter.builder("chatbot.cache.requests", chatResponseCache, ChatResponseCache::getHits)
+                    .tag("result", "hit").register(meters);
+            FunctionCounter.builder("chatbot.cache.requests", chatResponseCache, ChatResponseCache::getMisses)
+                    .tag("result", "miss").register(meters);
+            FunctionCounter.builder("chatbot.cache.evictions", chatResponseCache, ChatResponseCache::getEvictions)
+                    .register(meters);
+            Gauge.builder("chatbot.cache.size", chatResponseCache, ChatResponseCache::size).register(meters);
+        };
+    }
+}
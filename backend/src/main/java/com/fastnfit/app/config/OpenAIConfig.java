@@ -9,7 +9,65 @@ public class OpenAIConfig {
     @Value("${openai.api.key}")
     private String openaiApiKey;
 
+    @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}")
+    private String apiUrl;
+
+    // http client limits, see OpenAiClient
+    @Value("${openai.client.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${openai.client.request-timeout-ms:60000}")
+    private long requestTimeoutMs;
+
+    // a streamed reply must be done within stream-timeout-ms and never go quiet for longer than stream-idle-timeout-ms
+    @Value("${openai.client.stream-timeout-ms:120000}")
+    private long streamTimeoutMs;
+
+    @Value("${openai.client.stream-idle-timeout-ms:30000}")
+    private long streamIdleTimeoutMs;
+
+    @Value("${openai.client.max-in-flight:16}")
+    private int maxInFlight;
+
+    @Value("${openai.client.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+
+    @Value("${openai.client.threads:4}")
+    private int threads;
+
     public String getOpenaiApiKey() {
         return openaiApiKey;
     }
-}
\ No newline at end of file
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public long getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    public long getStreamTimeoutMs() {
+        return streamTimeoutMs;
+    }
+
+    public long getStreamIdleTimeoutMs() {
+        return streamIdleTimeoutMs;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getAcquireTimeoutMs() {
+        return acquireTimeoutMs;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
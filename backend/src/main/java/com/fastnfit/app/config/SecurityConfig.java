@@ -1,8 +1,13 @@
 package com.fastnfit.app.config;
 
 import com.fastnfit.app.config.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -23,6 +28,9 @@ public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
 
+    // port the actuator endpoints are served on (management.server.port), known once that server started
+    private volatile int managementPort = -1;
+
     public SecurityConfig(JwtAuthFilter jwtAuthFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
     }
@@ -34,6 +42,12 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // async dispatch of a streamed response (history export, chat stream),
+                        // the request itself was already authorized and the jwt filter does not run again
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // metrics and health for the scraper, only reachable on the management port
+                        // (this chain also runs there), the public port does not serve the actuator
+                        .requestMatchers(request -> request.getLocalPort() == managementPort).permitAll()
                         // Public endpoints
                         .requestMatchers(
                             "/swagger-ui/**", 
@@ -65,9 +79,17 @@ public class SecurityConfig {
         return http.build();
     }
 
+    @EventListener
+    public void onWebServerStarted(WebServerInitializedEvent event) {
+        if ("management".equals(event.getApplicationContext().getServerNamespace())) {
+            managementPort = event.getWebServer().getPort();
+        }
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength) {
+        // hashes with a lower strength are upgraded on the next successful login
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -3,8 +3,10 @@ package com.fastnfit.app.controller;
 import com.fastnfit.app.dto.AuthResponseDTO;
 import com.fastnfit.app.dto.LoginRequestDTO;
 import com.fastnfit.app.dto.UserRegistrationDTO;
+import com.fastnfit.app.exception.OverloadedException;
 import com.fastnfit.app.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,6 +29,8 @@ public class AuthController {
             // Get user and generate token
             AuthResponseDTO authResponse = userService.login(loginRequest);
             return ResponseEntity.ok(authResponse);
+        } catch (OverloadedException e) {
+            return overloaded();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -37,8 +41,17 @@ public class AuthController {
         try {
             AuthResponseDTO authResponse = userService.registerUser(registrationDTO);
             return ResponseEntity.status(HttpStatus.CREATED).body(authResponse);
+        } catch (OverloadedException e) {
+            return overloaded();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
+
+    // hashing pool is full, tell the client to back off instead of failing the credentials
+    private ResponseEntity<AuthResponseDTO> overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.fastnfit.app.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * serialized bodies for the public catalog endpoints
+ * - each body is serialized and gzipped once per catalog snapshot, requests only copy the bytes out
+ * - the etag is a hash of the json, so it stays the same across restarts, instances and catalog reloads
+ *   that did not change anything, and clients get a 304 without a body
+ * - the source list is compared by identity, the workout catalog hands out the same list until it reloads
+ */
+@Component
+public class CatalogResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Body> bodies = new ConcurrentHashMap<>();
+
+    public CatalogResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // null means a 304 was already written to the response
+    public ResponseEntity<byte[]> respond(String key, Object source, WebRequest request) {
+        Body body = getBody(key, source);
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = gzip ? body.gzipEtag : body.etag;
+        if (request.checkNotModified(etag, body.lastModified)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .lastModified(body.lastModified)
+                // clients keep their copy but always ask again, unchanged catalogs cost a 304
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip);
+        }
+        return response.body(body.json);
+    }
+
+    private Body getBody(String key, Object source) {
+        Body current = bodies.get(key);
+        if (current != null && current.source == source) {
+            return current;
+        }
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(source);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize " + key, e);
+        }
+        String hash = hash(json);
+        // content did not change, keep the old last modified so If-Modified-Since still matches
+        long lastModified = current != null && Arrays.equals(current.json, json)
+                ? current.lastModified
+                : System.currentTimeMillis();
+
+        Body body = new Body(source, "\"" + hash + "\"", "\"" + hash + "-gzip\"", json, gzip(json), lastModified);
+        bodies.put(key, body);
+        return body;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            // gzip;q=0 means the client refuses it
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.matches("q=0(\\.0*)?")) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String hash(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compress catalog", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static class Body {
+        private final Object source;
+        private final String etag;
+        private final String gzipEtag;
+        private final byte[] json;
+        private final byte[] gzip;
+        private final long lastModified;
+
+        private Body(Object source, String etag, String gzipEtag, byte[] json, byte[] gzip, long lastModified) {
+            this.source = source;
+            this.etag = etag;
+            this.gzipEtag = gzipEtag;
+            this.json = json;
+            this.gzip = gzip;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -1,18 +1,28 @@
 package com.fastnfit.app.controller;
 
+import com.fastnfit.app.dto.ChatRequestDTO;
 import com.fastnfit.app.dto.ChatbotResponseDTO;
 import com.fastnfit.app.dto.UserDetailsDTO;
 import com.fastnfit.app.dto.WorkoutDTO;
+import com.fastnfit.app.exception.UpstreamUnavailableException;
 import com.fastnfit.app.service.UserService;
 import com.fastnfit.app.service.ChatbotService;
 import com.fastnfit.app.service.WorkoutService;
 
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/chatbot")
@@ -28,6 +38,13 @@ public class ChatbotController {
     @Autowired
     private WorkoutService workoutService;
 
+    @Autowired
+    @Qualifier("chatStreamExecutor")
+    private TaskExecutor chatStreamExecutor;
+
+    @Value("${chatbot.stream.timeout-ms:120000}")
+    private long streamTimeoutMs;
+
     // @PostMapping("/{userId}")
     // public ResponseEntity<String> chat(
     //         @PathVariable Long userId,
@@ -46,13 +63,15 @@ public class ChatbotController {
     @PostMapping("/{userId}")
     public ResponseEntity<ChatbotResponseDTO> chat(
             @PathVariable Long userId,
-            @RequestBody Map<String, Object> payload
+            @RequestBody ChatRequestDTO request
     ) {
         try {
             UserDetailsDTO userDetails = userService.getUserDetails(userId);
-            JSONObject request = new JSONObject(payload);
             ChatbotResponseDTO response = chatbotService.getResponse(request, userDetails);
             return ResponseEntity.ok(response);
+        } catch (UpstreamUnavailableException e) {
+            System.out.println("Chatbot unavailable: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             System.out.println("Error in ChatbotController: " + e.getMessage());
             System.out.println(e.getMessage());
@@ -60,6 +79,110 @@ public class ChatbotController {
         }
     }
 
+    /*
+     * streamed version of chat, responds with server sent events:
+     * - "token": { "text": ... } natural language text as it is generated
+     * - "workout": the workout json, sent once it is complete and valid
+     * - "result": the final ChatbotResponseDTO, same as what the non streamed endpoint returns
+     * - "error": sent instead of result if something went wrong
+     */
+    @PostMapping(value = "/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> chatStream(
+            @PathVariable Long userId,
+            @RequestBody ChatRequestDTO request
+    ) {
+        UserDetailsDTO userDetails = userService.getUserDetails(userId);
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        SseChatStreamListener listener = new SseChatStreamListener(emitter);
+        // the emitter timing out or being closed does not stop the worker by itself, the upstream call is cancelled
+        emitter.onTimeout(listener::close);
+        emitter.onError(error -> listener.close());
+        emitter.onCompletion(listener::close);
+
+        try {
+            chatStreamExecutor.execute(() -> {
+                try {
+                    chatbotService.streamResponse(request, userDetails, listener);
+                    emitter.complete();
+                } catch (Exception e) {
+                    System.out.println("Error in ChatbotController stream: " + e.getMessage());
+                    sendQuietly(emitter, SseEmitter.event().name("error")
+                            .data(Map.of("error", "Failed to process chatbot message.")));
+                    emitter.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.out.println("Chatbot stream rejected, too many open streams");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    private void sendQuietly(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // client already gone
+        }
+    }
+
+    // forwards streamed chatbot output to the client, stops the upstream call if the client disconnects
+    // or the emitter is done (timed out, failed or completed)
+    private static class SseChatStreamListener implements ChatbotService.ChatStreamListener {
+        private final SseEmitter emitter;
+        private Runnable cancelUpstream;
+        private boolean closed = false;
+
+        SseChatStreamListener(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onUpstreamStarted(Runnable cancel) {
+            synchronized (this) {
+                if (!closed) {
+                    cancelUpstream = cancel;
+                    return;
+                }
+            }
+            cancel.run();
+        }
+
+        void close() {
+            Runnable cancel;
+            synchronized (this) {
+                closed = true;
+                cancel = cancelUpstream;
+                cancelUpstream = null;
+            }
+            if (cancel != null) {
+                cancel.run();
+            }
+        }
+
+        @Override
+        public void onToken(String text) {
+            send(SseEmitter.event().name("token").data(Map.of("text", text)));
+        }
+
+        @Override
+        public void onWorkout(WorkoutDTO workout) {
+            send(SseEmitter.event().name("workout").data(workout));
+        }
+
+        @Override
+        public void onResult(ChatbotResponseDTO result) {
+            send(SseEmitter.event().name("result").data(result));
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 
     // Accept AI-generated workout endpoint
     @PostMapping("/{userId}/accept")
@@ -3,12 +3,18 @@ package com.fastnfit.app.controller;
 
 import com.fastnfit.app.dto.ActivityOverviewDTO;
 import com.fastnfit.app.dto.HistoryDTO;
+import com.fastnfit.app.dto.HistoryPageDTO;
+import com.fastnfit.app.enums.ExportFormat;
+import com.fastnfit.app.service.HistoryExportService;
 import com.fastnfit.app.service.HistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
@@ -22,20 +28,28 @@ import java.util.List;
 public class HistoryController {
 
     private final HistoryService historyService;
+    private final HistoryExportService historyExportService;
     private final AuthUtils authUtils;
 
     @Autowired
-    public HistoryController(HistoryService historyService,AuthUtils authUtils) {
+    public HistoryController(HistoryService historyService, HistoryExportService historyExportService,
+            AuthUtils authUtils) {
         this.historyService = historyService;
+        this.historyExportService = historyExportService;
         this.authUtils=authUtils;
     }
 
-    //not useful, iw to remove cos realistically we are not going to load the entire history
+    //one page of history, newest first, pass nextCursor back as cursor for the next page
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<HistoryDTO>> getUserHistory() {
+    public ResponseEntity<HistoryPageDTO> getUserHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
         Long userId = authUtils.getCurrentUserId();
-        List<HistoryDTO> history = historyService.getUserHistory(userId);
-        return ResponseEntity.ok(history);
+        try {
+            return ResponseEntity.ok(historyService.getHistoryPage(userId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     @GetMapping("/user/{userId}/date-range")
@@ -64,13 +78,43 @@ public class HistoryController {
     
 
     //for incrementally loading history as user scrolls
+    //cursor comes from the previous page (or recentWorkoutsCursor of the overview), after is the older time based way
     @GetMapping("/load-more")
-    public ResponseEntity<List<HistoryDTO>> loadMoreHistory(
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+    public ResponseEntity<HistoryPageDTO> loadMoreHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
             @RequestParam(defaultValue = "5") int limit
     ) {
         Long userId = authUtils.getCurrentUserId();
-        List<HistoryDTO> moreHistory = historyService.loadMoreHistory(userId, after, limit);
-        return ResponseEntity.ok(moreHistory);
+        try {
+            HistoryPageDTO moreHistory = cursor == null && after != null
+                    ? historyService.loadMoreHistory(userId, after, limit)
+                    : historyService.getHistoryPage(userId, cursor, limit);
+            return ResponseEntity.ok(moreHistory);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    //whole history as a download, format is ndjson or csv
+    //rows are streamed as they are read, see HistoryExportService
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromString(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        //resolved here, the body is written on another thread without the security context
+        Long userId = authUtils.getCurrentUserId();
+
+        StreamingResponseBody body = out -> historyExportService.export(userId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"history." + exportFormat.getValue() + "\"")
+                .body(body);
     }
-}
\ No newline at end of file
+}
@@ -12,11 +12,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/home")
@@ -27,15 +27,18 @@ public class HomeController {
     private final UserStreakService userStreakService;
     private final WorkoutService workoutService;
     private final AuthUtils authUtils;
+    private final CatalogResponseCache catalogResponseCache;
 
     @Autowired
     public HomeController(RecommendationService recommendationService, UserStreakService userStreakService,
             WorkoutService workoutService,
-            AuthUtils authUtils) {
+            AuthUtils authUtils,
+            CatalogResponseCache catalogResponseCache) {
         this.recommendationService = recommendationService;
         this.userStreakService = userStreakService;
         this.workoutService = workoutService;
         this.authUtils = authUtils;
+        this.catalogResponseCache = catalogResponseCache;
     }
 
     /**
@@ -60,34 +63,13 @@ public class HomeController {
 
     /**
      * Get all workouts categorized for the home page
+     * Served pre-serialized with an ETag, unchanged catalogs get a 304
      */
     @GetMapping("/workouts")
-    public ResponseEntity<Map<String, List<WorkoutDTO>>> getCategorizedWorkouts() {
-        List<WorkoutDTO> allWorkouts = workoutService.getAllWorkouts();
-
-        // Group workouts by category
-        Map<String, List<WorkoutDTO>> workoutsByCategory = allWorkouts.stream()
-                .collect(Collectors.groupingBy(workout -> {
-                    String category = workout.getCategory();
-                    if (category.equalsIgnoreCase("yoga"))
-                        return "yoga";
-                    if (category.equalsIgnoreCase("hiit"))
-                        return "hiit";
-                    if (category.equalsIgnoreCase("strength"))
-                        return "strength";
-                    if (category.equalsIgnoreCase("prenatal"))
-                        return "prenatal";
-                    if (category.equalsIgnoreCase("postnatal"))
-                        return "postnatal";
-                    if (category.equalsIgnoreCase("low-impact"))
-                        return "low-impact";
-                    if (category.equalsIgnoreCase("high-energy"))
-                        return "high-energy";
-                    if (category.equalsIgnoreCase("body-weight"))
-                        return "body-weight";
-                    return "others";
-                }));
-        return ResponseEntity.ok(workoutsByCategory);
+    public ResponseEntity<byte[]> getCategorizedWorkouts(WebRequest request) {
+        // grouped once per catalog version in WorkoutService
+        Map<String, List<WorkoutDTO>> workoutsByCategory = workoutService.getWorkoutsGroupedForHome();
+        return catalogResponseCache.respond("home-workouts", workoutsByCategory, request);
     }
 
     /**
@@ -4,6 +4,7 @@ package com.fastnfit.app.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.fastnfit.app.dto.WorkoutDTO;
 import com.fastnfit.app.dto.WorkoutExerciseDTO;
@@ -22,16 +23,18 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class WorkoutController {
 
     private final WorkoutService workoutService;
+    private final CatalogResponseCache catalogResponseCache;
 
     @Autowired
-    public WorkoutController(WorkoutService workoutService) {
+    public WorkoutController(WorkoutService workoutService, CatalogResponseCache catalogResponseCache) {
         this.workoutService = workoutService;
+        this.catalogResponseCache = catalogResponseCache;
     }
 
+    // pre-serialized json (gzipped when accepted) with an etag, unchanged catalogs get a 304
     @GetMapping
-    public ResponseEntity<List<WorkoutDTO>> getAllWorkouts() {
-        List<WorkoutDTO> workouts = workoutService.getAllWorkouts();
-        return ResponseEntity.ok(workouts);
+    public ResponseEntity<byte[]> getAllWorkouts(WebRequest request) {
+        return catalogResponseCache.respond("workouts", workoutService.getAllWorkouts(), request);
     }
 
     @GetMapping("/{id}")
@@ -9,12 +9,12 @@ import com.fastnfit.app.dto.HistoryDTO;
 import com.fastnfit.app.dto.WorkoutDTO;
 import com.fastnfit.app.dto.WorkoutCompletionRequest;
 import com.fastnfit.app.dto.WorkoutCompletionResponse;
+import com.fastnfit.app.model.UserTotals;
 import com.fastnfit.app.service.HistoryService;
+import com.fastnfit.app.service.UserTotalsService;
 import com.fastnfit.app.service.WorkoutService;
 
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/workout-progress")
@@ -23,16 +23,19 @@ public class WorkoutProgressController {
 
     private final WorkoutService workoutService;
     private final HistoryService historyService;
+    private final UserTotalsService userTotalsService;
     private final AuthUtils authUtils;
 
     @Autowired
     public WorkoutProgressController(
             WorkoutService workoutService,
             HistoryService historyService,
+            UserTotalsService userTotalsService,
             AuthUtils authUtils
             ) {
         this.workoutService = workoutService;
         this.historyService = historyService;
+        this.userTotalsService = userTotalsService;
         this.authUtils=authUtils;
     }
 
@@ -43,9 +46,8 @@ public class WorkoutProgressController {
      */
     @GetMapping("/workouts/ordered")
     public ResponseEntity<List<WorkoutDTO>> getWorkoutsInOrder() {
-        List<WorkoutDTO> workouts = workoutService.getAllWorkouts().stream()
-                .sorted(Comparator.comparing(WorkoutDTO::getWorkoutId))
-                .collect(Collectors.toList());
+        // the catalog is already sorted by workout id
+        List<WorkoutDTO> workouts = workoutService.getAllWorkouts();
         return ResponseEntity.ok(workouts);
     }
 
@@ -68,10 +70,8 @@ public class WorkoutProgressController {
         // Record the workout completion in history
         HistoryDTO historyDTO = historyService.recordWorkoutCompletion(userId, workout);
         
-        // Get updated stats for the response
-        int totalWorkouts = historyService.getTotalHistoryCountByUser(userId);
-        int totalCaloriesBurned = historyService.getTotalCaloriesBurnedByUser(userId);
-        int totalDurationInMinutes=historyService.getTotalDurationByUser(userId);
+        // Get updated stats for the response (already include this workout)
+        UserTotals totals = userTotalsService.getTotals(userId);
         
         // Create response with updated user stats
         WorkoutCompletionResponse response = new WorkoutCompletionResponse();
@@ -80,9 +80,9 @@ public class WorkoutProgressController {
         response.setWorkoutId(workout.getWorkoutId());
         response.setWorkoutName(workout.getName());
         response.setCaloriesBurned(workout.getCalories());
-        response.setTotalWorkouts(totalWorkouts);
-        response.setTotalCaloriesBurned(totalCaloriesBurned);
-        response.setTotalDurationInMinutes(totalDurationInMinutes);
+        response.setTotalWorkouts(totals.getWorkoutCount());
+        response.setTotalCaloriesBurned(totals.getCaloriesBurned());
+        response.setTotalDurationInMinutes(totals.getDurationInMinutes());
         
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
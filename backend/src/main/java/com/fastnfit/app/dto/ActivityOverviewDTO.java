@@ -14,4 +14,5 @@ public class ActivityOverviewDTO {
     private DailySummaryDTO today;
     private List<DailySummaryDTO> weekly;
     private List<HistoryDTO> recentWorkouts; //only loads the last 5 workouts, load incrementally as user scrolls
+    private String recentWorkoutsCursor; //cursor for /api/history/load-more, null if there are no older workouts
 }
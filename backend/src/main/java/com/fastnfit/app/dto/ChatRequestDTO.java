@@ -0,0 +1,31 @@
+package com.fastnfit.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//body of POST /api/chatbot/{userId} and /stream
+//unknown fields are ignored, the app sends whatever its stored workout exercises contain
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ChatRequestDTO {
+    private String message;
+    private List<Exercise> exercises = new ArrayList<>(); //the workout the user currently has open, empty if none
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Exercise {
+        private String name;
+        private int duration; // in seconds
+        private int rest;     // in seconds
+    }
+}
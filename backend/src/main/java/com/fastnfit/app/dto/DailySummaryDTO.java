@@ -1,18 +1,16 @@
 package com.fastnfit.app.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
 /**
- * DTO to represent calories and duration for a specific day.
+ * DTO to represent calories, duration and number of workouts for a specific day.
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class DailySummaryDTO {
 
     @JsonFormat(pattern = "yyyy-MM-dd") // ensures JSON output is string format
@@ -20,4 +18,17 @@ public class DailySummaryDTO {
 
     private int caloriesBurned;
     private int durationInMinutes;
+    private int workoutCount;
+
+    public DailySummaryDTO(LocalDate date, int caloriesBurned, int durationInMinutes) {
+        this(date, caloriesBurned, durationInMinutes, 0);
+    }
+
+    // also used by the grouped queries in HistoryRepository, where SUM and COUNT come back as Long
+    public DailySummaryDTO(LocalDate date, Number caloriesBurned, Number durationInMinutes, Number workoutCount) {
+        this.date = date;
+        this.caloriesBurned = caloriesBurned == null ? 0 : caloriesBurned.intValue();
+        this.durationInMinutes = durationInMinutes == null ? 0 : durationInMinutes.intValue();
+        this.workoutCount = workoutCount == null ? 0 : workoutCount.intValue();
+    }
 }
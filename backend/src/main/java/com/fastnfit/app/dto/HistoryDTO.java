@@ -2,10 +2,12 @@
 package com.fastnfit.app.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.sql.Timestamp;
 
 @Data
+@NoArgsConstructor
 public class HistoryDTO {
     private Long historyId;
     private Timestamp workoutDateTime;
@@ -13,4 +15,18 @@ public class HistoryDTO {
     private WorkoutDTO workout;
     private Integer caloriesBurned;
     private Integer durationInMinutes;
+
+    //projection for the paged history query, only the workout id is read
+    //the workout itself is filled in from the workout catalog
+    public HistoryDTO(Long historyId, Timestamp workoutDateTime, Integer caloriesBurned,
+            Integer durationInMinutes, Long workoutId) {
+        this.historyId = historyId;
+        this.workoutDateTime = workoutDateTime;
+        this.caloriesBurned = caloriesBurned;
+        this.durationInMinutes = durationInMinutes;
+        if (workoutId != null) {
+            this.workout = new WorkoutDTO();
+            this.workout.setWorkoutId(workoutId);
+        }
+    }
 }
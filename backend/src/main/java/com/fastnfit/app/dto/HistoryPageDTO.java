@@ -0,0 +1,16 @@
+package com.fastnfit.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//one page of a user's history, newest first
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPageDTO {
+    private List<HistoryDTO> items;
+    private String nextCursor; //pass back as cursor to get the next page, null on the last page
+}
@@ -0,0 +1,47 @@
+package com.fastnfit.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//the parts of an openai chat completion (or one streamed chunk of it) the app reads
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OpenAiCompletionDTO {
+    private List<Choice> choices;
+    private Usage usage; //only on complete responses and the last chunk of a stream with include_usage
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Choice {
+        private Message message; //complete responses
+        private Message delta;   //streamed chunks
+    }
+
+    //also what the request bodies are built from
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Message {
+        private String role;
+        private String content;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Usage {
+        @JsonProperty("prompt_tokens")
+        private long promptTokens;
+        @JsonProperty("completion_tokens")
+        private long completionTokens;
+    }
+}
@@ -0,0 +1,9 @@
+package com.fastnfit.app.enums;
+
+// counter an achievement rule is checked against
+public enum AchievementMetric {
+    STREAK,          // current streak in days
+    WORKOUT_COUNT,   // total completed workouts
+    CALORIES,        // total calories burned
+    MINUTES;         // total minutes exercised
+}
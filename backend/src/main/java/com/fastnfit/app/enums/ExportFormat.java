@@ -0,0 +1,31 @@
+package com.fastnfit.app.enums;
+
+public enum ExportFormat {
+    NDJSON("ndjson", "application/x-ndjson"),
+    CSV("csv", "text/csv");
+
+    private final String value;
+    private final String contentType;
+
+    ExportFormat(String value, String contentType) {
+        this.value = value;
+        this.contentType = contentType;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static ExportFormat fromString(String value){
+        for (ExportFormat format:ExportFormat.values()){
+            if (format.getValue().equalsIgnoreCase(value)){
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unexpected value:"+value);
+    }
+}
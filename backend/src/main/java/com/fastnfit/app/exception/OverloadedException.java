@@ -0,0 +1,12 @@
+package com.fastnfit.app.exception;
+
+// thrown when a bounded local pool (e.g. password hashing) is full, the request is rejected instead of queued
+public class OverloadedException extends RuntimeException {
+    public OverloadedException(String message) {
+        super(message);
+    }
+
+    public OverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.fastnfit.app.exception;
+
+// thrown when an external service (e.g. openai) is overloaded, timing out or failing
+public class UpstreamUnavailableException extends RuntimeException {
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
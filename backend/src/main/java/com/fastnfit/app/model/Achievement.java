@@ -1,5 +1,7 @@
 package com.fastnfit.app.model;
 
+import com.fastnfit.app.enums.AchievementMetric;
+
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -19,6 +21,12 @@ public class Achievement {
     private String title;
     
     private String description;
+
+    // rule: completed once the metric reaches the threshold, achievements without a metric are never auto completed
+    @Enumerated(EnumType.STRING)
+    private AchievementMetric metric;
+
+    private Integer threshold;
     
     @OneToMany(mappedBy = "achievement", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<UserAchievement> userAchievements = new ArrayList<>();
@@ -0,0 +1,30 @@
+package com.fastnfit.app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// rolling summary of a user's older chat messages, one row per user
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "chat_summaries")
+public class ChatSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "summary", columnDefinition = "TEXT")
+    private String summary;
+
+    // id of the newest ChatHistory row folded into the summary, only rows after it are sent as-is
+    private Long lastMessageId;
+
+    private Integer tokenCount;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,32 @@
+// DailyActivity.java
+package com.fastnfit.app.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// per user per day totals of the history table, kept up to date when a workout is recorded
+@Data
+@Entity
+@Table(name = "daily_activity",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_activity_user_date", columnNames = {"user_id", "activity_date"}),
+        indexes = @Index(name = "idx_daily_activity_user_date", columnList = "user_id, activity_date"))
+public class DailyActivity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    private int caloriesBurned;
+
+    private int durationInMinutes;
+
+    private int workoutCount;
+}
@@ -7,7 +7,8 @@ import java.sql.Timestamp;
 
 @Data
 @Entity
-@Table(name = "history")
+@Table(name = "history",
+        indexes = @Index(name = "idx_history_user_time_id", columnList = "user_id, workout_date_time DESC, history_id DESC"))
 public class History {
 
     @Id
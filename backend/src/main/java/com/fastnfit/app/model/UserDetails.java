@@ -43,6 +43,10 @@ public class UserDetails {
     // Added field for tracking longest streak
     private Integer longestStreak;
 
+    // day of the most recent workout counted in the streak, lets the streak be updated without reading history
+    @Column(name = "last_workout_date")
+    private LocalDate lastWorkoutDate;
+
     //added fields for menstrual cycle information
     // 🩸 Menstrual Cycle Tracking Fields
     @Column(name = "cycle_length")
@@ -65,7 +69,7 @@ public class UserDetails {
     }
 
     public int getCurrentStreak() {
-        return currentStreak;
+        return currentStreak == null ? 0 : currentStreak;
     }
 
     public void setCurrentStreak(int streak) {
@@ -73,13 +77,21 @@ public class UserDetails {
     }
 
     public int getLongestStreak() {
-        return longestStreak;
+        return longestStreak == null ? 0 : longestStreak;
     }
 
     public void setLongestStreak(int longestStreak) {
         this.longestStreak = longestStreak;
     }
 
+    public LocalDate getLastWorkoutDate() {
+        return lastWorkoutDate;
+    }
+
+    public void setLastWorkoutDate(LocalDate lastWorkoutDate) {
+        this.lastWorkoutDate = lastWorkoutDate;
+    }
+
     public User getUser() {
         return user;
     }
@@ -0,0 +1,22 @@
+// UserTotals.java
+package com.fastnfit.app.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// lifetime totals of the history table per user, kept up to date when a workout is recorded
+@Data
+@Entity
+@Table(name = "user_totals")
+public class UserTotals {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private int workoutCount;
+
+    private int caloriesBurned;
+
+    private int durationInMinutes;
+}
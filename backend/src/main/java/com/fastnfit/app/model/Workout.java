@@ -3,7 +3,9 @@ package com.fastnfit.app.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import com.fastnfit.app.enums.WorkoutLevel;
@@ -35,6 +37,9 @@ public class Workout {
     private Integer calories;
     private Integer durationInMinutes;
     private String image = "/images/default.jpg";
+
+    // set whenever the workout or its exercises are saved, lets other instances notice the catalog changed
+    private LocalDateTime updatedAt;
     
     // @OneToMany(mappedBy = "workout",fetch=FetchType.LAZY)
     // private List<History> historyWorkoutList;
@@ -47,6 +52,8 @@ public class Workout {
     // )
     // private List<Exercise> exercises;
 
+    // loaded for up to 50 workouts at once when a list of workouts is converted to dtos
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "workout", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<WorkoutExercise> workoutExercises=new ArrayList<>();
 
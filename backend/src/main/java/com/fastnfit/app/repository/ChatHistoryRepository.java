@@ -14,5 +14,8 @@ public interface ChatHistoryRepository extends JpaRepository<ChatHistory, Long>
     List<ChatHistory> findByUserOrderByTimestampAsc(User user);
     ChatHistory findTopByUserAndRoleOrderByTimestampDesc(User user, String role);
     List<ChatHistory> findByUserOrderByTimestampDesc(User user, Pageable pageable);
+    List<ChatHistory> findByUserAndIdGreaterThanOrderByTimestampDesc(User user, Long id, Pageable pageable);
+    List<ChatHistory> findByUserAndIdGreaterThanOrderByIdAsc(User user, Long id, Pageable pageable);
+    List<ChatHistory> findByUserAndIdGreaterThanOrderByIdDesc(User user, Long id, Pageable pageable);
     void deleteAllByUser(User user);
 }
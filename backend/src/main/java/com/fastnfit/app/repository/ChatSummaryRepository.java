@@ -0,0 +1,7 @@
+package com.fastnfit.app.repository;
+
+import com.fastnfit.app.model.ChatSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ChatSummaryRepository extends JpaRepository<ChatSummary, Long> {
+}
@@ -0,0 +1,40 @@
+// DailyActivityRepository.java
+package com.fastnfit.app.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fastnfit.app.model.DailyActivity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyActivityRepository extends JpaRepository<DailyActivity, Long> {
+
+    // days with activity in [start, end], ascending, missing days are simply not returned
+    List<DailyActivity> findByUserIdAndActivityDateBetweenOrderByActivityDateAsc(Long userId, LocalDate start, LocalDate end);
+
+    // adds one workout to an existing day, returns 0 if the day has no row yet
+    @Modifying
+    @Query("UPDATE DailyActivity d SET d.caloriesBurned = d.caloriesBurned + :calories, " +
+            "d.durationInMinutes = d.durationInMinutes + :minutes, d.workoutCount = d.workoutCount + 1 " +
+            "WHERE d.userId = :userId AND d.activityDate = :date")
+    int addWorkout(@Param("userId") Long userId, @Param("date") LocalDate date,
+            @Param("calories") int calories, @Param("minutes") int minutes);
+
+    //adds the days of the history table that have no rollup row yet in one statement, days that have one are left alone
+    //so running it again inserts nothing
+    @Modifying
+    @Query(value = "INSERT INTO daily_activity (user_id, activity_date, calories_burned, duration_in_minutes, workout_count) " +
+            "SELECT h.user_id, CAST(h.workout_date_time AS DATE), COALESCE(SUM(h.calories_burned), 0), " +
+            "COALESCE(SUM(h.duration_in_minutes), 0), COUNT(*) FROM history h " +
+            "WHERE h.user_id IS NOT NULL AND h.workout_date_time IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM daily_activity d " +
+            "WHERE d.user_id = h.user_id AND d.activity_date = CAST(h.workout_date_time AS DATE)) " +
+            "GROUP BY h.user_id, CAST(h.workout_date_time AS DATE)", nativeQuery = true)
+    int backfillFromHistory();
+}
@@ -9,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.fastnfit.app.dto.DailySummaryDTO;
+import com.fastnfit.app.dto.HistoryDTO;
 import com.fastnfit.app.model.History;
 import com.fastnfit.app.model.User;
 
@@ -18,8 +20,6 @@ import java.util.List;
 @Repository
 public interface HistoryRepository extends JpaRepository<History, Long> {
 
-    List<History> findByUser(User user);
-
     List<History> findByUserAndWorkoutDateTimeBetween(User user, Timestamp startDate, Timestamp endDate);
 
     Integer countByUserAndWorkoutDateTimeBetween(User user, Timestamp startDate, Timestamp endDate);
@@ -31,6 +31,8 @@ public interface HistoryRepository extends JpaRepository<History, Long> {
     // Count all workouts for a user
     int countByUser(User user);
 
+    int countByUserUserId(Long userId);
+
     // Find recent workouts for a user
     @Query("SELECT h FROM History h WHERE h.user.userId = :userId ORDER BY h.workoutDateTime DESC LIMIT :limit")
     List<History> findByUserIdOrderByWorkoutDateTimeDesc(@Param("userId") Long userId,
@@ -52,9 +54,24 @@ public interface HistoryRepository extends JpaRepository<History, Long> {
     @Query("SELECT COALESCE(SUM(h.durationInMinutes), 0) FROM History h WHERE h.user.userId = :userId AND h.workoutDateTime BETWEEN :start AND :end")
     int sumTimeExercisedByUserBetween(@Param("userId") Long userId, @Param("start") Timestamp start, @Param("end") Timestamp end);
 
-    //load more history (some number of entries after this datetime(the datetime of last entry retrieved))
-    //pageable means to load chunks of data at once
-    @Query("SELECT h FROM History h WHERE h.user.userId = :userId AND h.workoutDateTime < :after ORDER BY h.workoutDateTime DESC")
-    List<History> findMoreHistory(@Param("userId") Long userId, @Param("after") Timestamp after, Pageable pageable);
+    //calories, minutes and number of workouts per day in [start, end), one row per day that has workouts
+    //days without workouts are not returned, callers fill them in if they need every day
+    @Query("SELECT new com.fastnfit.app.dto.DailySummaryDTO(CAST(h.workoutDateTime AS LocalDate), "
+            + "SUM(h.caloriesBurned), SUM(h.durationInMinutes), COUNT(h)) "
+            + "FROM History h WHERE h.user.userId = :userId AND h.workoutDateTime >= :start AND h.workoutDateTime < :end "
+            + "GROUP BY CAST(h.workoutDateTime AS LocalDate) ORDER BY CAST(h.workoutDateTime AS LocalDate)")
+    List<DailySummaryDTO> findDailySummaries(@Param("userId") Long userId, @Param("start") Timestamp start,
+            @Param("end") Timestamp end);
+
+    //one page of history, newest first, strictly after the (workoutDateTime, historyId) of the previous page's last row
+    //the history id breaks ties so rows with the same time are never skipped or repeated (index idx_history_user_time_id)
+    //only columns and the workout id are read, no workout entities are loaded
+    @Query("SELECT new com.fastnfit.app.dto.HistoryDTO(h.historyId, h.workoutDateTime, h.caloriesBurned, "
+            + "h.durationInMinutes, h.workout.workoutId) "
+            + "FROM History h WHERE h.user.userId = :userId AND (h.workoutDateTime < :beforeTime "
+            + "OR (h.workoutDateTime = :beforeTime AND h.historyId < :beforeId)) "
+            + "ORDER BY h.workoutDateTime DESC, h.historyId DESC")
+    List<HistoryDTO> findHistoryPage(@Param("userId") Long userId, @Param("beforeTime") Timestamp beforeTime,
+            @Param("beforeId") Long beforeId, Pageable pageable);
 
 }
\ No newline at end of file
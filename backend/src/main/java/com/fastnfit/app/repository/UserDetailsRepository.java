@@ -2,6 +2,8 @@
 package com.fastnfit.app.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.fastnfit.app.model.UserDetails;
@@ -14,4 +16,11 @@ public interface UserDetailsRepository extends JpaRepository<UserDetails, Long>
     Optional<UserDetails> findByUser(User user);
     Optional<UserDetails> findByUserUserId(Long userId);
     Optional<UserDetails> findByUsername(String username);
+
+    //streaks stored before last_workout_date existed: take the date of the latest workout from history
+    @Modifying
+    @Query(value = "UPDATE user_details SET last_workout_date = (SELECT MAX(CAST(h.workout_date_time AS DATE)) " +
+            "FROM history h WHERE h.user_id = user_details.user_id) " +
+            "WHERE last_workout_date IS NULL AND current_streak > 0", nativeQuery = true)
+    int backfillLastWorkoutDates();
 }
@@ -2,14 +2,29 @@
 package com.fastnfit.app.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.fastnfit.app.model.User;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // only the email column, used to build the signup email filter
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
+
+    // rehash on login runs outside any request transaction
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.userId = :userId")
+    int updatePassword(@Param("userId") Long userId, @Param("password") String password);
 }
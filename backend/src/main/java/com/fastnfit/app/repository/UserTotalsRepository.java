@@ -0,0 +1,59 @@
+// UserTotalsRepository.java
+package com.fastnfit.app.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fastnfit.app.model.UserTotals;
+
+import java.util.List;
+
+@Repository
+public interface UserTotalsRepository extends JpaRepository<UserTotals, Long> {
+
+    // adds one workout to the user's totals, returns 0 if the user has no row yet (rows are created at signup)
+    @Modifying
+    @Query("UPDATE UserTotals t SET t.workoutCount = t.workoutCount + 1, " +
+            "t.caloriesBurned = t.caloriesBurned + :calories, t.durationInMinutes = t.durationInMinutes + :minutes " +
+            "WHERE t.userId = :userId")
+    int addWorkout(@Param("userId") Long userId, @Param("calories") int calories, @Param("minutes") int minutes);
+
+    //builds the totals from the history table in one statement, only used to fill an empty table
+    @Modifying
+    @Query(value = "INSERT INTO user_totals (user_id, workout_count, calories_burned, duration_in_minutes) " +
+            "SELECT user_id, COUNT(*), COALESCE(SUM(calories_burned), 0), COALESCE(SUM(duration_in_minutes), 0) " +
+            "FROM history WHERE user_id IS NOT NULL GROUP BY user_id", nativeQuery = true)
+    int backfillFromHistory();
+
+    //a zero row for every user that has none yet, i.e. users from before the table existed
+    @Modifying
+    @Query(value = "INSERT INTO user_totals (user_id, workout_count, calories_burned, duration_in_minutes) " +
+            "SELECT u.user_id, 0, 0, 0 FROM users u " +
+            "WHERE NOT EXISTS (SELECT 1 FROM user_totals t WHERE t.user_id = u.user_id)", nativeQuery = true)
+    int insertMissingUsers();
+
+    //recomputes the totals of these users from the history table, read and write are one statement
+    @Modifying
+    @Query(value = "UPDATE user_totals SET " +
+            "workout_count = (SELECT COUNT(*) FROM history h WHERE h.user_id = user_totals.user_id), " +
+            "calories_burned = (SELECT COALESCE(SUM(h.calories_burned), 0) FROM history h " +
+            "WHERE h.user_id = user_totals.user_id), " +
+            "duration_in_minutes = (SELECT COALESCE(SUM(h.duration_in_minutes), 0) FROM history h " +
+            "WHERE h.user_id = user_totals.user_id) " +
+            "WHERE user_id IN (:userIds)", nativeQuery = true)
+    int recomputeFromHistory(@Param("userIds") List<Long> userIds);
+
+    //users whose totals do not match their history rows (missing, different, or left over after history was removed)
+    @Query(value = "SELECT h.user_id FROM (SELECT user_id, COUNT(*) AS workouts, " +
+            "COALESCE(SUM(calories_burned), 0) AS calories, COALESCE(SUM(duration_in_minutes), 0) AS minutes " +
+            "FROM history WHERE user_id IS NOT NULL GROUP BY user_id) h " +
+            "LEFT JOIN user_totals t ON t.user_id = h.user_id " +
+            "WHERE t.user_id IS NULL OR t.workout_count <> h.workouts " +
+            "OR t.calories_burned <> h.calories OR t.duration_in_minutes <> h.minutes " +
+            "UNION SELECT t.user_id FROM user_totals t WHERE t.workout_count <> 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM history h WHERE h.user_id = t.user_id)", nativeQuery = true)
+    List<Long> findUsersOutOfSync();
+}
@@ -2,12 +2,14 @@
 package com.fastnfit.app.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.fastnfit.app.enums.WorkoutLevel;
 import com.fastnfit.app.enums.WorkoutType;
 import com.fastnfit.app.model.Workout;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -15,4 +17,19 @@ public interface WorkoutRepository extends JpaRepository<Workout, Long> {
     List<Workout> findByCategory(WorkoutType category);
     List<Workout> findByLevel(WorkoutLevel level);
     List<Workout> findByCategoryAndLevel(WorkoutType category, WorkoutLevel level);
+
+    // whole catalog in one query, exercises included, for the in memory workout catalog
+    @Query("SELECT DISTINCT w FROM Workout w LEFT JOIN FETCH w.workoutExercises we LEFT JOIN FETCH we.exercise " +
+           "ORDER BY w.workoutId, we.id")
+    List<Workout> findAllWithExercises();
+
+    // cheap summary of the catalog, differs once a workout was added, removed or saved (by any instance)
+    @Query("SELECT COUNT(w) AS workouts, MAX(w.workoutId) AS maxId, MAX(w.updatedAt) AS lastUpdated FROM Workout w")
+    CatalogState findCatalogState();
+
+    interface CatalogState {
+        long getWorkouts();
+        Long getMaxId();
+        LocalDateTime getLastUpdated();
+    }
 }
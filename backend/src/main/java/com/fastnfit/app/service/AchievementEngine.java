@@ -0,0 +1,132 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.enums.AchievementMetric;
+import com.fastnfit.app.model.Achievement;
+import com.fastnfit.app.model.UserAchievement;
+import com.fastnfit.app.repository.AchievementRepository;
+import com.fastnfit.app.repository.UserAchievementRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/*
+ * completes achievements from threshold rules (metric + threshold columns of the achievements table)
+ * - rules are cached in memory per metric, sorted by threshold, and reloaded when achievements change
+ * - completed achievements of recently active users are kept as a bitset (bit = achievement id),
+ *   so rules that are already done cost nothing and the counter is only computed if some rule is still open
+ * new achievements only need a row with a metric and threshold, no code
+ */
+@Component
+public class AchievementEngine {
+
+    private final AchievementRepository achievementRepository;
+    private final UserAchievementRepository userAchievementRepository;
+    private final UserAchievementService userAchievementService;
+    private final Map<Long, BitSet> completedByUser;
+
+    private volatile Map<AchievementMetric, List<Rule>> rules;
+
+    public AchievementEngine(AchievementRepository achievementRepository,
+            UserAchievementRepository userAchievementRepository,
+            UserAchievementService userAchievementService,
+            @Value("${achievements.completed-cache.max-users:10000}") int maxUsers) {
+        this.achievementRepository = achievementRepository;
+        this.userAchievementRepository = userAchievementRepository;
+        this.userAchievementService = userAchievementService;
+        this.completedByUser = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BitSet> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    // value is only asked for when the user still has an open rule for this metric
+    public void evaluate(Long userId, AchievementMetric metric, IntSupplier value) {
+        List<Rule> metricRules = getRules().getOrDefault(metric, List.of());
+        if (metricRules.isEmpty()) return;
+
+        BitSet completed = getCompleted(userId);
+        List<Rule> open = new ArrayList<>();
+        synchronized (completed) {
+            for (Rule rule : metricRules) {
+                if (!completed.get(rule.bit)) open.add(rule);
+            }
+        }
+        if (open.isEmpty()) return;
+
+        int current = value.getAsInt();
+        for (Rule rule : open) {
+            // sorted by threshold, nothing after this one can be reached either
+            if (current < rule.threshold) break;
+
+            // only cached once the row is really completed, otherwise the next evaluation tries again
+            if (userAchievementService.completeAchievement(userId, rule.achievementId)) {
+                synchronized (completed) {
+                    completed.set(rule.bit);
+                }
+            }
+        }
+    }
+
+    // reloads the rules, call after achievements are added, changed or removed
+    @Scheduled(fixedDelayString = "${achievements.refresh-ms:300000}",
+            initialDelayString = "${achievements.refresh-ms:300000}")
+    public synchronized void refresh() {
+        Map<AchievementMetric, List<Rule>> loaded = new EnumMap<>(AchievementMetric.class);
+        for (Achievement achievement : achievementRepository.findAll()) {
+            if (achievement.getMetric() == null || achievement.getThreshold() == null) continue;
+            loaded.computeIfAbsent(achievement.getMetric(), metric -> new ArrayList<>())
+                    .add(new Rule(achievement.getAchievementId(), achievement.getThreshold()));
+        }
+        loaded.values().forEach(list -> list.sort(Comparator.comparingInt(rule -> rule.threshold)));
+        rules = loaded;
+    }
+
+    private Map<AchievementMetric, List<Rule>> getRules() {
+        Map<AchievementMetric, List<Rule>> current = rules;
+        if (current == null) {
+            refresh();
+            current = rules;
+        }
+        return current;
+    }
+
+    private BitSet getCompleted(Long userId) {
+        synchronized (completedByUser) {
+            BitSet completed = completedByUser.get(userId);
+            if (completed != null) return completed;
+        }
+
+        // first evaluation for this user, load outside the lock so other users are not held up
+        BitSet loaded = new BitSet();
+        for (UserAchievement userAchievement : userAchievementRepository.findByUserUserIdAndCompletedTrue(userId)) {
+            loaded.set(userAchievement.getAchievement().getAchievementId().intValue());
+        }
+        synchronized (completedByUser) {
+            return completedByUser.computeIfAbsent(userId, id -> loaded);
+        }
+    }
+
+    private static class Rule {
+        private final Long achievementId;
+        private final int bit;
+        private final int threshold;
+
+        private Rule(Long achievementId, int threshold) {
+            this.achievementId = achievementId;
+            this.bit = achievementId.intValue();
+            this.threshold = threshold;
+        }
+    }
+}
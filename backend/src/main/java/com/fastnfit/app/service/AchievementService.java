@@ -12,10 +12,12 @@ import java.util.Optional;
 public class AchievementService {
     
     private final AchievementRepository achievementRepository;
+    private final AchievementEngine achievementEngine;
     
     @Autowired
-    public AchievementService(AchievementRepository achievementRepository) {
+    public AchievementService(AchievementRepository achievementRepository, AchievementEngine achievementEngine) {
         this.achievementRepository = achievementRepository;
+        this.achievementEngine = achievementEngine;
     }
     
     // /
@@ -43,14 +45,18 @@ public class AchievementService {
     //  * Create a new achievement
     //  */
     public Achievement createAchievement(Achievement achievement) {
-        return achievementRepository.save(achievement);
+        Achievement saved = achievementRepository.save(achievement);
+        achievementEngine.refresh();
+        return saved;
     }
     
 
     //  * Update an existing achievement
     //  */
     public Achievement updateAchievement(Achievement achievement) {
-        return achievementRepository.save(achievement);
+        Achievement saved = achievementRepository.save(achievement);
+        achievementEngine.refresh();
+        return saved;
     }
     
     // /
@@ -58,5 +64,6 @@ public class AchievementService {
     //  */
     public void deleteAchievement(Long id) {
         achievementRepository.deleteById(id);
+        achievementEngine.refresh();
     }
 }
\ No newline at end of file
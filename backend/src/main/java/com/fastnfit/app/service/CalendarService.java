@@ -2,6 +2,7 @@ package com.fastnfit.app.service;
 
 import com.fastnfit.app.dto.CycleInfoDTO;
 import com.fastnfit.app.dto.CycleUpdateDTO;
+import com.fastnfit.app.dto.DailySummaryDTO;
 import com.fastnfit.app.model.User;
 import com.fastnfit.app.model.UserDetails;
 import com.fastnfit.app.repository.HistoryRepository;
@@ -40,10 +41,10 @@ public class CalendarService {
         Timestamp startTimestamp = Timestamp.valueOf(start.atStartOfDay());
         Timestamp endTimestamp = Timestamp.valueOf(end.atStartOfDay());
 
-        return historyRepository.findByUserAndWorkoutDateTimeBetween(user, startTimestamp, endTimestamp)
+        // grouped by day in the database, one row per workout day instead of every history entity
+        return historyRepository.findDailySummaries(userId, startTimestamp, endTimestamp)
                 .stream()
-                .map(h -> h.getWorkoutDateTime().toLocalDateTime().toLocalDate())
-                .distinct()
+                .map(DailySummaryDTO::getDate)
                 .collect(Collectors.toList());
     }
 
@@ -0,0 +1,219 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.dto.OpenAiCompletionDTO;
+import com.fastnfit.app.model.ChatHistory;
+import com.fastnfit.app.model.ChatSummary;
+import com.fastnfit.app.model.User;
+import com.fastnfit.app.repository.ChatHistoryRepository;
+import com.fastnfit.app.repository.ChatSummaryRepository;
+import com.fastnfit.app.repository.UserRepository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/*
+ * keeps the chat history sent to openai within a token budget
+ * - loadWindow: summary of older messages + the newest messages that fit in the budget (request path, db only)
+ * - compactAsync: once the unsummarized messages outgrow the budget, the older ones are folded into the
+ *   per user rolling summary with one extra openai call (runs after the reply is saved, off the request path)
+ *   each pass folds a bounded number of messages/tokens, a long history from before the summary existed
+ *   is drained over several passes instead of being sent in one call
+ */
+@Service
+public class ChatHistoryCompactor {
+
+    // role, separators etc. that openai counts for every message on top of its content
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+    private static final Pattern JSON_BLOCK = Pattern.compile(
+            Pattern.quote(ChatStreamParser.BEGIN_TAG) + ".*?" + Pattern.quote(ChatStreamParser.END_TAG), Pattern.DOTALL);
+
+    private final ChatHistoryRepository chatHistoryRepository;
+    private final ChatSummaryRepository chatSummaryRepository;
+    private final UserRepository userRepository;
+    private final OpenAiClient openAiClient;
+    private final ChatHistoryWriter chatHistoryWriter;
+    private final ChatMetrics chatMetrics;
+    private final OpenAiPayloads openAiPayloads;
+    private final Set<Long> compactingUsers = ConcurrentHashMap.newKeySet();
+
+    @Value("${chatbot.history.token-budget:2000}")
+    private int tokenBudget;
+
+    @Value("${chatbot.history.max-messages:20}")
+    private int maxMessages;
+
+    @Value("${chatbot.history.summary-max-words:150}")
+    private int summaryMaxWords;
+
+    @Value("${chatbot.history.fold-max-messages:50}")
+    private int foldMaxMessages;
+
+    @Value("${chatbot.history.fold-max-tokens:4000}")
+    private int foldMaxTokens;
+
+    public ChatHistoryCompactor(ChatHistoryRepository chatHistoryRepository, ChatSummaryRepository chatSummaryRepository,
+            UserRepository userRepository, OpenAiClient openAiClient, ChatHistoryWriter chatHistoryWriter,
+            ChatMetrics chatMetrics, OpenAiPayloads openAiPayloads) {
+        this.chatHistoryRepository = chatHistoryRepository;
+        this.chatSummaryRepository = chatSummaryRepository;
+        this.userRepository = userRepository;
+        this.openAiClient = openAiClient;
+        this.chatHistoryWriter = chatHistoryWriter;
+        this.chatMetrics = chatMetrics;
+        this.openAiPayloads = openAiPayloads;
+    }
+
+    // summary (may be null) and the most recent messages in chronological order, together within the token budget
+    public HistoryWindow loadWindow(User user) {
+        ChatSummary summary = chatSummaryRepository.findById(user.getUserId()).orElse(null);
+        PageRequest page = PageRequest.of(0, maxMessages, Sort.by(Sort.Direction.DESC, "timestamp"));
+        List<ChatHistory> newestFirst = summary == null
+                ? chatHistoryRepository.findByUserOrderByTimestampDesc(user, page)
+                : chatHistoryRepository.findByUserAndIdGreaterThanOrderByTimestampDesc(user, summary.getLastMessageId(), page);
+
+        int budget = tokenBudget - (summary == null ? 0 : estimateTokens(summary.getSummary()));
+        List<ChatHistory> kept = new ArrayList<>();
+        int used = 0;
+        for (ChatHistory message : newestFirst) {
+            int cost = estimateTokens(message);
+            // always keep the latest message, even if it alone is over budget
+            if (!kept.isEmpty() && used + cost > budget) break;
+            kept.add(message);
+            used += cost;
+        }
+        Collections.reverse(kept);
+
+        return new HistoryWindow(summary == null ? null : summary.getSummary(), kept, used);
+    }
+
+    @Async("chatCompactionExecutor")
+    public void compactAsync(Long userId) {
+        // one compaction per user at a time, the next message will pick up anything missed
+        if (!compactingUsers.add(userId)) return;
+        try {
+            compact(userId);
+        } catch (Exception e) {
+            System.err.println("Chat history compaction failed for user " + userId + ": " + e.getMessage());
+        } finally {
+            compactingUsers.remove(userId);
+        }
+    }
+
+    public void compact(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) return;
+
+        // the reply that triggered this may still be in the write-behind queue
+        chatHistoryWriter.awaitFlushed(userId);
+
+        ChatSummary summary = chatSummaryRepository.findById(userId).orElse(null);
+        Long lastMessageId = summary == null ? 0L : summary.getLastMessageId();
+
+        // only the newest page is needed to decide, one message more than the window holds means too many
+        List<ChatHistory> newestFirst = chatHistoryRepository.findByUserAndIdGreaterThanOrderByIdDesc(
+                user, lastMessageId, PageRequest.of(0, maxMessages + 1));
+        int total = 0;
+        for (ChatHistory message : newestFirst) {
+            total += estimateTokens(message);
+        }
+        if (total <= tokenBudget && newestFirst.size() <= maxMessages) return;
+
+        // keep the newest messages that fit in half the budget
+        int keepBudget = tokenBudget / 2;
+        int keepCount = 0;
+        int kept = 0;
+        for (ChatHistory message : newestFirst) {
+            if (keepCount >= maxMessages / 2) break;
+            int cost = estimateTokens(message);
+            if (kept + cost > keepBudget) break;
+            kept += cost;
+            keepCount++;
+        }
+        long keepFromId = keepCount == 0 ? Long.MAX_VALUE : newestFirst.get(keepCount - 1).getId();
+
+        // fold the oldest ones, at most a page of them and the fold token limit per pass
+        List<ChatHistory> oldestFirst = chatHistoryRepository.findByUserAndIdGreaterThanOrderByIdAsc(
+                user, lastMessageId, PageRequest.of(0, foldMaxMessages));
+        List<ChatHistory> toFold = new ArrayList<>();
+        int foldTokens = 0;
+        for (ChatHistory message : oldestFirst) {
+            if (message.getId() >= keepFromId) break;
+            int cost = estimateTokens(message);
+            if (!toFold.isEmpty() && foldTokens + cost > foldMaxTokens) break;
+            toFold.add(message);
+            foldTokens += cost;
+        }
+        if (toFold.isEmpty()) return;
+
+        String newSummary = summarize(summary == null ? null : summary.getSummary(), toFold);
+        chatSummaryRepository.save(ChatSummary.builder()
+                .userId(userId)
+                .summary(newSummary)
+                .lastMessageId(toFold.get(toFold.size() - 1).getId())
+                .tokenCount(estimateTokens(newSummary))
+                .updatedAt(LocalDateTime.now())
+                .build());
+        System.out.println("Compacted " + toFold.size() + " chat messages for user " + userId);
+    }
+
+    public static int estimateTokens(ChatHistory message) {
+        return estimateTokens(message.getContent()) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    private static int estimateTokens(String text) {
+        return SystemPromptTemplate.estimateTokens(text);
+    }
+
+    private String summarize(String previousSummary, List<ChatHistory> messages) {
+        StringBuilder transcript = new StringBuilder();
+        transcript.append("Existing summary:\n")
+                .append(previousSummary == null ? "(none)" : previousSummary)
+                .append("\n\nNew messages:\n");
+        for (ChatHistory message : messages) {
+            // workout json is already saved elsewhere and is mostly noise for a summary
+            String content = JSON_BLOCK.matcher(message.getContent() == null ? "" : message.getContent())
+                    .replaceAll("[workout plan]");
+            // a single huge message is folded alone, cut it so the call stays within the fold limit
+            if (content.length() > foldMaxTokens * 4) {
+                content = content.substring(0, foldMaxTokens * 4);
+            }
+            transcript.append(message.getRole()).append(": ").append(content.trim()).append("\n");
+        }
+
+        List<OpenAiCompletionDTO.Message> promptMessages = List.of(
+                new OpenAiCompletionDTO.Message("system", """
+                                You maintain a short running summary of a conversation between a user and their AI fitness coach.
+                                Merge the existing summary with the new messages into one updated summary.
+                                Keep only what helps with future workout suggestions: goals, injuries or pain, preferences,
+                                feedback on previous workouts, schedule and constraints.
+                                Do not include workout JSON or greetings. Reply with the summary only, at most %d words.
+                                """.formatted(summaryMaxWords)),
+                new OpenAiCompletionDTO.Message("user", transcript.toString()));
+
+        String requestBody = openAiPayloads.chatRequest(ChatbotService.OPENAI_MODEL, 0.2, promptMessages, false);
+        OpenAiCompletionDTO completion = openAiPayloads.readCompletion(openAiClient.complete(requestBody));
+        chatMetrics.usage("summary", completion.getUsage());
+        return OpenAiPayloads.messageContent(completion).trim();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class HistoryWindow {
+        private final String summary;
+        private final List<ChatHistory> messages;
+        private final int messageTokens;
+    }
+}
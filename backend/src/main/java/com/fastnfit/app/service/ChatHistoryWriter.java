@@ -0,0 +1,195 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.model.ChatHistory;
+import com.fastnfit.app.repository.ChatHistoryRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * write-behind queue for chat messages
+ * - callers enqueue and return straight away, one background thread inserts the queued rows in jdbc batches
+ * - a single writer keeps the insert order, so messages of a user are stored (and get ids) in the order they were sent
+ * - anything that reads a user's history calls awaitFlushed first, so it always sees that user's earlier messages
+ * - the buffer is bounded, if it stays full the message is written synchronously instead of being dropped
+ * - pending rows are flushed on shutdown
+ */
+@Component
+public class ChatHistoryWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_history (user_id, role, content, timestamp) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatHistoryRepository chatHistoryRepository;
+    private final BlockingQueue<ChatHistory> queue;
+    private final int batchSize;
+    private final long offerTimeoutMs;
+    private final long flushTimeoutMs;
+
+    // number of queued or in-flight rows per user, guarded by itself
+    private final Map<Long, Integer> pendingByUser = new HashMap<>();
+    private volatile boolean running = true;
+    private Thread writerThread;
+
+    public ChatHistoryWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ChatHistoryRepository chatHistoryRepository,
+            @Value("${chatbot.history.write-buffer:1000}") int bufferSize,
+            @Value("${chatbot.history.write-batch-size:100}") int batchSize,
+            @Value("${chatbot.history.write-offer-timeout-ms:500}") long offerTimeoutMs,
+            @Value("${chatbot.history.flush-timeout-ms:5000}") long flushTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chatHistoryRepository = chatHistoryRepository;
+        this.queue = new LinkedBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.flushTimeoutMs = flushTimeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        writerThread = new Thread(this::writeLoop, "chat-history-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public void enqueue(ChatHistory message) {
+        Long userId = message.getUser().getUserId();
+        if (!running) {
+            saveNow(message);
+            return;
+        }
+
+        markPending(userId);
+        boolean queued;
+        try {
+            queued = queue.offer(message, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            // buffer full, write it ourselves but only after this user's earlier rows so the order stays the same
+            markDone(List.of(message));
+            saveNow(message);
+        }
+    }
+
+    // blocks until every message queued so far for this user is in the database (or the flush timeout passes)
+    public void awaitFlushed(Long userId) {
+        long deadline = System.currentTimeMillis() + flushTimeoutMs;
+        synchronized (pendingByUser) {
+            while (pendingByUser.containsKey(userId)) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    System.err.println("Timed out waiting for chat history of user " + userId + " to be written");
+                    return;
+                }
+                try {
+                    pendingByUser.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(flushTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // writer did not finish in time, write whatever is left on this thread
+        List<ChatHistory> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            ChatHistory first;
+            try {
+                first = queue.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // keep going until shutdown has drained the queue
+                continue;
+            }
+            if (first == null) continue;
+
+            List<ChatHistory> batch = new ArrayList<>(batchSize);
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<ChatHistory> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(),
+                    (ps, message) -> {
+                        ps.setLong(1, message.getUser().getUserId());
+                        ps.setString(2, message.getRole());
+                        ps.setString(3, message.getContent());
+                        ps.setTimestamp(4, Timestamp.valueOf(message.getTimestamp()));
+                    }));
+        } catch (Exception e) {
+            System.err.println("Chat history batch insert failed, retrying one by one: " + e.getMessage());
+            for (ChatHistory message : batch) {
+                try {
+                    chatHistoryRepository.save(message);
+                } catch (Exception rowError) {
+                    System.err.println("Dropping chat message for user " + message.getUser().getUserId()
+                            + ": " + rowError.getMessage());
+                }
+            }
+        } finally {
+            markDone(batch);
+        }
+    }
+
+    private void saveNow(ChatHistory message) {
+        awaitFlushed(message.getUser().getUserId());
+        chatHistoryRepository.save(message);
+    }
+
+    private void markPending(Long userId) {
+        synchronized (pendingByUser) {
+            pendingByUser.merge(userId, 1, Integer::sum);
+        }
+    }
+
+    private void markDone(List<ChatHistory> messages) {
+        synchronized (pendingByUser) {
+            for (ChatHistory message : messages) {
+                pendingByUser.computeIfPresent(message.getUser().getUserId(), (id, count) -> count > 1 ? count - 1 : null);
+            }
+            pendingByUser.notifyAll();
+        }
+    }
+}
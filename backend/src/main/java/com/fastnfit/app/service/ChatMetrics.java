@@ -0,0 +1,75 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.dto.OpenAiCompletionDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * micrometer meters for the chatbot pipeline
+ * - chatbot.stage{stage}: prompt, history, upstream, parse, validate, persist
+ * - chatbot.retries{reason}: openai retries by what was wrong with the reply
+ * - chatbot.replies{outcome}: ok, retried, repaired (fixed locally), cached or failed
+ * - openai.tokens{caller,type}: prompt and completion tokens from the response's usage field
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String PROMPT = "prompt";
+    public static final String HISTORY = "history";
+    public static final String UPSTREAM = "upstream";
+    public static final String PARSE = "parse";
+    public static final String VALIDATE = "validate";
+    public static final String PERSIST = "persist";
+
+    private final MeterRegistry registry;
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // times a stage that may throw a checked exception (e.g. json parsing)
+    public <T, E extends Exception> T time(String stage, Stage<T, E> work) throws E {
+        long start = System.nanoTime();
+        try {
+            return work.run();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void record(String stage, long nanos) {
+        Timer.builder("chatbot.stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void retry(String reason) {
+        Counter.builder("chatbot.retries").tag("reason", reason).register(registry).increment();
+    }
+
+    public void reply(String outcome) {
+        Counter.builder("chatbot.replies").tag("outcome", outcome).register(registry).increment();
+    }
+
+    // usage is null when openai left it out (e.g. a stream without include_usage)
+    public void usage(String caller, OpenAiCompletionDTO.Usage usage) {
+        if (usage == null) return;
+        Counter.builder("openai.tokens").tag("caller", caller).tag("type", "prompt")
+                .register(registry).increment(usage.getPromptTokens());
+        Counter.builder("openai.tokens").tag("caller", caller).tag("type", "completion")
+                .register(registry).increment(usage.getCompletionTokens());
+    }
+
+    @FunctionalInterface
+    public interface Stage<T, E extends Exception> {
+        T run() throws E;
+    }
+}
@@ -0,0 +1,231 @@
+package com.fastnfit.app.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/*
+ * one pass over a chatbot reply that finds everything finishResponse needs to know about it
+ * - where the first <BEGIN_JSON> ... <END_JSON> block starts and ends (or that it was never closed)
+ * - how many "• Name - 40 seconds work, 20 seconds rest" bullet lines it has
+ * - which workout section keywords it mentions, matched case-insensitively and ignoring markdown * and _
+ *   with an aho-corasick automaton, so every character is looked at once whatever the number of keywords
+ * works on a whole reply (classify) or on streamed chunks (feed ... finish), the result is the same.
+ * Not thread safe, one classifier per reply.
+ */
+public class ChatReplyClassifier {
+
+    // two of these (or three bullet lines) and a reply without json is treated as a workout that lost its json
+    static final String[] KEYWORDS = {
+            "main workout",
+            "warm-up",
+            "cool down",
+            "would you like to try this workout?",
+            "here's a quick workout",
+            "cool-down"
+    };
+    static final int KEYWORD_THRESHOLD = 2;
+    static final int BULLET_THRESHOLD = 3;
+
+    private static final char BULLET = '•';
+    private static final int ALPHABET = 128; // keywords are ascii, anything else sends the automaton back to the root
+    private static final int[][] TRANSITIONS;
+    private static final int[] OUTPUTS; // bit i set = KEYWORDS[i] ends in this state
+
+    static {
+        // trie of the keywords
+        int maxStates = 1;
+        for (String keyword : KEYWORDS) maxStates += keyword.length();
+        int[][] next = new int[maxStates][ALPHABET];
+        int[] outputs = new int[maxStates];
+        int states = 1;
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            int state = 0;
+            for (char c : KEYWORDS[k].toCharArray()) {
+                if (next[state][c] == 0) next[state][c] = states++;
+                state = next[state][c];
+            }
+            outputs[state] |= 1 << k;
+        }
+
+        // breadth first over the trie: fill the missing edges from the failure state so matching never backtracks
+        int[] fail = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            if (next[0][c] != 0) queue.add(next[0][c]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] |= outputs[fail[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = next[state][c];
+                if (child != 0) {
+                    fail[child] = next[fail[state]][c];
+                    queue.add(child);
+                } else {
+                    next[state][c] = next[fail[state]][c];
+                }
+            }
+        }
+
+        TRANSITIONS = new int[states][];
+        System.arraycopy(next, 0, TRANSITIONS, 0, states);
+        OUTPUTS = new int[states];
+        System.arraycopy(outputs, 0, OUTPUTS, 0, states);
+    }
+
+    private int position = 0;
+    private int state = 0;
+    private int keywordMask = 0;
+
+    // tag matching, neither tag repeats its first character so a mismatch only has to look at that one
+    private int tagMatched = 0;
+    private int jsonStart = -1;
+    private int jsonEnd = -1;
+    private int blockEnd = -1;
+
+    // bullet lines: only lines that contain a bullet are buffered, from the bullet on
+    private final StringBuilder bulletLine = new StringBuilder();
+    private boolean inBulletLine = false;
+    private int bulletLines = 0;
+
+    public static Classification classify(CharSequence reply) {
+        ChatReplyClassifier classifier = new ChatReplyClassifier();
+        classifier.feed(reply);
+        return classifier.finish();
+    }
+
+    public void feed(CharSequence chunk) {
+        if (chunk == null) return;
+        for (int i = 0, n = chunk.length(); i < n; i++) {
+            accept(chunk.charAt(i));
+        }
+    }
+
+    // the reply is complete, counts a bullet line that was not ended by a newline
+    public Classification finish() {
+        endLine();
+        return new Classification(jsonStart, jsonEnd, blockEnd, Integer.bitCount(keywordMask), bulletLines);
+    }
+
+    private void accept(char c) {
+        matchTag(c);
+
+        if (c < ALPHABET) {
+            if (c != '*' && c != '_') {
+                state = TRANSITIONS[state][c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c];
+                keywordMask |= OUTPUTS[state];
+            }
+        } else {
+            state = 0;
+        }
+
+        if (c == '\n') {
+            endLine();
+        } else if (inBulletLine) {
+            bulletLine.append(c);
+        } else if (c == BULLET) {
+            inBulletLine = true;
+            bulletLine.append(c);
+        }
+        position++;
+    }
+
+    private void matchTag(char c) {
+        if (blockEnd >= 0) return; // only the first block counts
+        String tag = jsonStart < 0 ? ChatStreamParser.BEGIN_TAG : ChatStreamParser.END_TAG;
+        if (c == tag.charAt(tagMatched)) {
+            tagMatched++;
+        } else {
+            tagMatched = c == tag.charAt(0) ? 1 : 0;
+        }
+        if (tagMatched < tag.length()) return;
+
+        tagMatched = 0;
+        if (jsonStart < 0) {
+            jsonStart = position + 1;
+        } else {
+            jsonEnd = position + 1 - tag.length();
+            blockEnd = position + 1;
+        }
+    }
+
+    private void endLine() {
+        if (inBulletLine && isWorkoutBullet(bulletLine)) {
+            bulletLines++;
+        }
+        inBulletLine = false;
+        bulletLine.setLength(0);
+    }
+
+    // "•<space>Name<space>-<space>40<space>seconds work,<space>20<space>seconds rest", line starts at the bullet
+    static boolean isWorkoutBullet(CharSequence line) {
+        if (line.length() < 2 || !Character.isWhitespace(line.charAt(1))) return false;
+        // at least one whitespace and one name character after the bullet
+        for (int i = 3; i < line.length(); i++) {
+            if (Character.isWhitespace(line.charAt(i)) && matchesTiming(line, i)) return true;
+        }
+        return false;
+    }
+
+    private static boolean matchesTiming(CharSequence line, int i) {
+        i = expect(line, i + 1, "-");
+        i = whitespace(line, i);
+        i = digits(line, i);
+        i = whitespace(line, i);
+        i = expect(line, i, "seconds work,");
+        i = whitespace(line, i);
+        i = digits(line, i);
+        i = whitespace(line, i);
+        return expect(line, i, "seconds rest") >= 0;
+    }
+
+    // each step returns the index after what it matched, or -1 which the next steps pass along
+    private static int expect(CharSequence line, int i, String text) {
+        if (i < 0 || i + text.length() > line.length()) return -1;
+        for (int j = 0; j < text.length(); j++) {
+            if (Character.toLowerCase(line.charAt(i + j)) != text.charAt(j)) return -1;
+        }
+        return i + text.length();
+    }
+
+    private static int whitespace(CharSequence line, int i) {
+        return i >= 0 && i < line.length() && Character.isWhitespace(line.charAt(i)) ? i + 1 : -1;
+    }
+
+    private static int digits(CharSequence line, int i) {
+        if (i < 0) return -1;
+        int start = i;
+        while (i < line.length() && Character.isDigit(line.charAt(i))) i++;
+        return i > start ? i : -1;
+    }
+
+    /*
+     * indexes are into the classified text
+     * jsonStart is right after <BEGIN_JSON>, jsonEnd is where <END_JSON> starts, blockEnd right after it
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Classification {
+        private final int jsonStart;
+        private final int jsonEnd;
+        private final int blockEnd;
+        private final int keywordMatches;
+        private final int workoutBullets;
+
+        public boolean hasJsonBlock() {
+            return blockEnd >= 0;
+        }
+
+        // <BEGIN_JSON> without <END_JSON>
+        public boolean isJsonUnclosed() {
+            return jsonStart >= 0 && blockEnd < 0;
+        }
+
+        public boolean looksLikeWorkout() {
+            return workoutBullets >= BULLET_THRESHOLD || keywordMatches >= KEYWORD_THRESHOLD;
+        }
+    }
+}
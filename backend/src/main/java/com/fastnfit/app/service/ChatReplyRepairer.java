@@ -0,0 +1,182 @@
+package com.fastnfit.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fastnfit.app.dto.WorkoutDTO;
+import com.fastnfit.app.dto.WorkoutExerciseDTO;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * fixes common mistakes in a chatbot workout reply locally, so we only go back to openai when this fails
+ * - tag variants (<BEGIN JSON>, </END_JSON>) and a missing <END_JSON>
+ * - code fences, smart quotes, trailing commas, single quotes, unknown fields
+ * - exercise names that are close to a catalog entry (case/spacing, then edit distance)
+ * - durationInMinutes recomputed from the exercise durations and rests
+ * returns the repaired reply in the normal <BEGIN_JSON>...<END_JSON> + text format, or null if it cannot be repaired
+ */
+@Component
+public class ChatReplyRepairer {
+
+    private static final Pattern BEGIN_TAG = Pattern.compile("<\\s*BEGIN[_ ]JSON\\s*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern END_TAG = Pattern.compile("<\\s*/?\\s*END[_ ]JSON\\s*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CODE_FENCE = Pattern.compile("```(?:json)?", Pattern.CASE_INSENSITIVE);
+
+    private final ObjectMapper lenientMapper = JsonMapper.builder()
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+            .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public String repair(String reply, Set<String> exerciseNames) {
+        if (reply == null) return null;
+
+        Matcher begin = BEGIN_TAG.matcher(reply);
+        if (!begin.find()) return null;
+
+        // json runs to the end tag, or to the matching closing brace if the end tag is missing
+        int jsonStart = reply.indexOf('{', begin.end());
+        if (jsonStart < 0) return null;
+        Matcher end = END_TAG.matcher(reply);
+        int jsonEnd;
+        int textStart;
+        if (end.find(jsonStart)) {
+            jsonEnd = reply.lastIndexOf('}', end.start()) + 1;
+            textStart = end.end();
+        } else {
+            jsonEnd = findClosingBrace(reply, jsonStart) + 1;
+            textStart = jsonEnd;
+        }
+        if (jsonEnd <= jsonStart) return null;
+
+        String text = (reply.substring(0, begin.start()) + " " + reply.substring(textStart)).trim();
+        String json = cleanJson(reply.substring(jsonStart, jsonEnd));
+
+        WorkoutDTO workout;
+        try {
+            workout = lenientMapper.readValue(json, WorkoutDTO.class);
+        } catch (JsonProcessingException e) {
+            System.out.println("Local repair could not parse workout JSON: " + e.getOriginalMessage());
+            return null;
+        }
+        if (workout.getWorkoutExercise() == null || workout.getWorkoutExercise().isEmpty()) return null;
+
+        Map<String, String> renamed = new LinkedHashMap<>();
+        int totalSeconds = 0;
+        for (WorkoutExerciseDTO exercise : workout.getWorkoutExercise()) {
+            if (exercise.getDuration() == null || exercise.getDuration() <= 0) return null;
+
+            if (!exerciseNames.contains(exercise.getName())) {
+                String match = closestName(exercise.getName(), exerciseNames);
+                if (match == null) {
+                    System.out.println("Local repair found no catalog match for: " + exercise.getName());
+                    return null;
+                }
+                renamed.put(exercise.getName(), match);
+                exercise.setName(match);
+            }
+            totalSeconds += exercise.getDuration() + (exercise.getRest() == null ? 0 : exercise.getRest());
+        }
+        workout.setDurationInMinutes(Math.max(1, Math.round(totalSeconds / 60f)));
+
+        for (Map.Entry<String, String> rename : renamed.entrySet()) {
+            text = text.replace(rename.getKey(), rename.getValue());
+        }
+
+        try {
+            return ChatStreamParser.BEGIN_TAG + "\n" + mapper.writeValueAsString(workout) + "\n"
+                    + ChatStreamParser.END_TAG + "\n" + text;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    // closest catalog name, or null if nothing is close enough (or two names are equally close)
+    public static String closestName(String name, Set<String> exerciseNames) {
+        if (name == null) return null;
+        String wanted = simplify(name);
+
+        String best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        boolean tie = false;
+        for (String candidate : exerciseNames) {
+            String simplified = simplify(candidate);
+            if (simplified.equals(wanted)) return candidate;
+
+            int distance = levenshtein(wanted, simplified);
+            if (distance < bestDistance) {
+                best = candidate;
+                bestDistance = distance;
+                tie = false;
+            } else if (distance == bestDistance) {
+                tie = true;
+            }
+        }
+
+        // allow roughly one typo per four characters, at least one
+        int allowed = Math.max(1, wanted.length() / 4);
+        return best != null && !tie && bestDistance <= allowed ? best : null;
+    }
+
+    private String cleanJson(String json) {
+        return CODE_FENCE.matcher(json).replaceAll("")
+                .replace('“', '"').replace('”', '"').replace('„', '"')
+                .replace('‘', '\'').replace('’', '\'')
+                .trim();
+    }
+
+    private int findClosingBrace(String text, int openIndex) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = openIndex; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '\\') i++;
+                else if (c == '"') inString = false;
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // lower case, letters and digits only, so "Push Ups", "push-ups" and "Pushups" compare equal
+    private static String simplify(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,137 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.dto.UserDetailsDTO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/*
+ * cache of validated chatbot workout replies for near identical requests
+ * key = normalized message + profile bucket (level, pregnancy, workout type, cramps) + prompt/catalog version
+ * - only replies that contained a workout which passed exercise validation are stored
+ * - requests that carry a current workout are never cached, the reply depends on that workout
+ * - LRU with a max size, entries also expire after a ttl
+ * the raw reply text is stored, callers parse it again so every hit gets its own dto objects
+ */
+@Component
+public class ChatResponseCache {
+
+    // words that do not change what is being asked for
+    private static final Set<String> FILLER_WORDS = Set.of(
+            "a", "an", "the", "me", "my", "i", "id", "im", "please", "pls", "can", "could", "would",
+            "you", "give", "get", "suggest", "recommend", "want", "like", "some", "something", "for", "to",
+            "do", "need", "just", "today", "now", "hi", "hey", "hello", "thanks", "thank");
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ChatResponseCache(@Value("${chatbot.cache.max-entries:500}") int maxEntries,
+            @Value("${chatbot.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean evict = size() > ChatResponseCache.this.maxEntries;
+                if (evict) evictions.incrementAndGet();
+                return evict;
+            }
+        };
+    }
+
+    // null when the request should not go through the cache
+    public String buildKey(String message, UserDetailsDTO profile, String promptVersion, boolean hasCurrentWorkout) {
+        if (maxEntries <= 0 || hasCurrentWorkout || message == null) return null;
+        String normalized = normalize(message);
+        if (normalized.isEmpty()) return null;
+
+        return promptVersion + "|" + profile.getFitnessLevel() + "|" + profile.getPregnancyStatus() + "|"
+                + profile.getWorkoutType() + "|" + profile.getMenstrualCramps() + "|" + normalized;
+    }
+
+    public String get(String key) {
+        if (key == null) return null;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.reply;
+        }
+    }
+
+    // only call with replies whose workout already passed checkExercisesValid
+    public void put(String key, String reply) {
+        if (key == null || reply == null) return;
+        synchronized (entries) {
+            entries.put(key, new Entry(reply, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // lower case, punctuation and filler words removed, the remaining words keep their order and repeats
+    // ("10 minute workout not 7" and "7 minute workout not 10" ask for different things)
+    public static String normalize(String message) {
+        String cleaned = message.toLowerCase(Locale.ROOT).replace("'", "").replaceAll("[^a-z0-9]", " ");
+        List<String> words = Arrays.stream(cleaned.split("\\s+"))
+                .filter(word -> !word.isEmpty() && !FILLER_WORDS.contains(word))
+                .map(word -> word.equals("minutes") || word.equals("mins") || word.equals("min") ? "minute" : word)
+                .collect(Collectors.toList());
+        return String.join(" ", words);
+    }
+
+    private static class Entry {
+        private final String reply;
+        private final long expiresAt;
+
+        private Entry(String reply, long expiresAt) {
+            this.reply = reply;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
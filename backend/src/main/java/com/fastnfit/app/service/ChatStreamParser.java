@@ -0,0 +1,108 @@
+package com.fastnfit.app.service;
+
+import java.util.function.Consumer;
+
+/*
+ * Incremental parser for a streamed chatbot reply.
+ * Text outside the <BEGIN_JSON> ... <END_JSON> block is forwarded as soon as it is safe to do so,
+ * the JSON block itself is buffered and handed over in one piece once the closing tag arrives.
+ * Not thread safe, one parser per streamed reply.
+ */
+public class ChatStreamParser {
+
+    public static final String BEGIN_TAG = "<BEGIN_JSON>";
+    public static final String END_TAG = "<END_JSON>";
+
+    private final Consumer<String> onText;
+    private final Consumer<String> onJson;
+
+    private final StringBuilder fullReply = new StringBuilder();
+    private final StringBuilder pending = new StringBuilder(); // text we cannot classify yet
+    private final StringBuilder jsonBuffer = new StringBuilder();
+    private boolean insideJson = false;
+    private boolean jsonCompleted = false;
+
+    public ChatStreamParser(Consumer<String> onText, Consumer<String> onJson) {
+        this.onText = onText;
+        this.onJson = onJson;
+    }
+
+    public void feed(String chunk) {
+        if (chunk == null || chunk.isEmpty()) return;
+        fullReply.append(chunk);
+        pending.append(chunk);
+        drain();
+    }
+
+    // call once the upstream stream is finished, flushes whatever is still held back
+    public void finish() {
+        if (insideJson) {
+            // missing <END_JSON>, keep it as plain json text so the full reply can still be validated
+            jsonBuffer.append(pending);
+        } else if (pending.length() > 0) {
+            onText.accept(pending.toString());
+        }
+        pending.setLength(0);
+    }
+
+    public String getFullReply() {
+        return fullReply.toString();
+    }
+
+    public boolean isJsonCompleted() {
+        return jsonCompleted;
+    }
+
+    private void drain() {
+        while (pending.length() > 0) {
+            String tag = insideJson ? END_TAG : BEGIN_TAG;
+            int tagIndex = pending.indexOf(tag);
+
+            if (tagIndex >= 0) {
+                String before = pending.substring(0, tagIndex);
+                pending.delete(0, tagIndex + tag.length());
+                if (insideJson) {
+                    jsonBuffer.append(before);
+                    insideJson = false;
+                    jsonCompleted = true;
+                    onJson.accept(jsonBuffer.toString().trim());
+                    jsonBuffer.setLength(0);
+                } else {
+                    if (!before.isEmpty()) onText.accept(before);
+                    insideJson = true;
+                }
+                continue;
+            }
+
+            // hold back a possible partial tag at the end of the buffer
+            int safeLength = pending.length() - partialTagLength(tag);
+            if (safeLength > 0) {
+                String safe = pending.substring(0, safeLength);
+                pending.delete(0, safeLength);
+                if (insideJson) {
+                    jsonBuffer.append(safe);
+                } else {
+                    onText.accept(safe);
+                }
+            }
+            return;
+        }
+    }
+
+    // length of the longest suffix of pending that is a prefix of tag
+    private int partialTagLength(String tag) {
+        int max = Math.min(tag.length() - 1, pending.length());
+        for (int len = max; len > 0; len--) {
+            boolean matches = true;
+            int offset = pending.length() - len;
+            for (int i = 0; i < len; i++) {
+                if (pending.charAt(offset + i) != tag.charAt(i)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) return len;
+        }
+        return 0;
+    }
+}
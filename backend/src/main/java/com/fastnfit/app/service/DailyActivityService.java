@@ -0,0 +1,108 @@
+package com.fastnfit.app.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fastnfit.app.dto.DailySummaryDTO;
+import com.fastnfit.app.model.DailyActivity;
+import com.fastnfit.app.repository.DailyActivityRepository;
+import com.fastnfit.app.repository.HistoryRepository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// maintains and reads the daily_activity rollup (calories, minutes and workouts per user per day)
+@Service
+public class DailyActivityService {
+
+    private static final String INSERT_DAY_SQL = "INSERT INTO daily_activity "
+            + "(user_id, activity_date, calories_burned, duration_in_minutes, workout_count) VALUES (?, ?, ?, ?, 1)";
+
+    private final DailyActivityRepository dailyActivityRepository;
+    private final HistoryRepository historyRepository;
+    private final SavepointInsert savepointInsert;
+    private final TransactionTemplate transactionTemplate;
+
+    public DailyActivityService(DailyActivityRepository dailyActivityRepository, HistoryRepository historyRepository,
+            SavepointInsert savepointInsert, PlatformTransactionManager transactionManager) {
+        this.dailyActivityRepository = dailyActivityRepository;
+        this.historyRepository = historyRepository;
+        this.savepointInsert = savepointInsert;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // runs in the same transaction that saves the history row, so the rollup never drifts from it
+    @EventListener
+    public void onWorkoutCompleted(WorkoutCompletedEvent event) {
+        recordWorkout(event.getUserId(), event.getWorkoutDate(), event.getCaloriesBurned(), event.getDurationInMinutes());
+    }
+
+    @Transactional
+    public void recordWorkout(Long userId, LocalDate date, Integer calories, Integer minutes) {
+        int caloriesBurned = calories == null ? 0 : calories;
+        int durationInMinutes = minutes == null ? 0 : minutes;
+
+        // update first, only the first workout of the day needs an insert (in a savepoint, see SavepointInsert)
+        // two first workouts of the same day (a double tap) can both find no row, the one that loses the insert
+        // adds itself to the row the other one created (or inserts again if that one was rolled back)
+        for (int attempt = 0; attempt < 3; attempt++) {
+            if (dailyActivityRepository.addWorkout(userId, date, caloriesBurned, durationInMinutes) > 0
+                    || savepointInsert.insertIfAbsent(INSERT_DAY_SQL, userId, Date.valueOf(date), caloriesBurned,
+                            durationInMinutes)) {
+                return;
+            }
+        }
+        throw new RuntimeException("Could not record daily activity of user " + userId + " for " + date);
+    }
+
+    // one entry per day from start to end (inclusive, ascending), days without workouts are zero
+    public List<DailySummaryDTO> getDailySummaries(Long userId, LocalDate start, LocalDate end) {
+        List<DailyActivity> days = dailyActivityRepository
+                .findByUserIdAndActivityDateBetweenOrderByActivityDateAsc(userId, start, end);
+
+        List<DailySummaryDTO> result = new ArrayList<>();
+        int index = 0;
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (index < days.size() && days.get(index).getActivityDate().equals(date)) {
+                DailyActivity day = days.get(index++);
+                result.add(new DailySummaryDTO(date, day.getCaloriesBurned(), day.getDurationInMinutes(),
+                        day.getWorkoutCount()));
+            } else {
+                result.add(new DailySummaryDTO(date, 0, 0));
+            }
+        }
+        return result;
+    }
+
+    /*
+     * every start: adds a rollup row for each day in history that has none, i.e. workouts from before the rollup existed
+     * per row instead of only into an empty table, a workout completed before this runs (requests are already served)
+     * does not make it skip the rest. Another instance starting at the same time may insert some of the same days,
+     * the insert is then retried in a new transaction that sees those rows and skips them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingDays() {
+        if (historyRepository.count() == 0) {
+            return;
+        }
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try {
+                Integer rows = transactionTemplate.execute(status -> dailyActivityRepository.backfillFromHistory());
+                if (rows != null && rows > 0) {
+                    System.out.println("Backfilled daily_activity with " + rows + " rows from history");
+                }
+                return;
+            } catch (DataIntegrityViolationException e) {
+                System.out.println("daily_activity backfill raced another insert, trying again");
+            }
+        }
+        System.err.println("Could not backfill daily_activity, it is tried again on the next start");
+    }
+}
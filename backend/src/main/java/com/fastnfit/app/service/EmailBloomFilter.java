@@ -0,0 +1,135 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.repository.UserRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/*
+ * in-memory bloom filter over all registered emails, lets signup skip the existsByEmail query
+ * - "no" is definite for every email that was in the table at the last rebuild or registered here since,
+ *   "maybe" falls back to the query
+ * - an email missed by the filter (registered on another instance, or during a rebuild) is still
+ *   caught by the unique constraint on users.email, so a wrong "no" only costs a failed insert
+ * - deleted users can't be removed from a bloom filter, the periodic rebuild clears them out
+ */
+@Component
+public class EmailBloomFilter {
+
+    private final UserRepository userRepository;
+    private final int minExpectedEmails;
+    private final double falsePositiveRate;
+
+    // null until the first rebuild, everything is "maybe" before that
+    private volatile Bits bits;
+
+    @Autowired
+    public EmailBloomFilter(UserRepository userRepository,
+            @Value("${auth.email-filter.expected-emails:100000}") int minExpectedEmails,
+            @Value("${auth.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.minExpectedEmails = minExpectedEmails;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public boolean mightContain(String email) {
+        Bits current = bits;
+        return current == null || email == null || current.mightContain(email);
+    }
+
+    public void add(String email) {
+        Bits current = bits;
+        if (current != null && email != null) {
+            current.add(email);
+        }
+    }
+
+    public boolean isReady() {
+        return bits != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${auth.email-filter.rebuild-cron:0 0 4 * * *}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long count = userRepository.count();
+        // room to grow until the next rebuild without the false positive rate going up much
+        Bits rebuilt = new Bits(Math.max(minExpectedEmails, count * 2), falsePositiveRate);
+        try (Stream<String> emails = userRepository.streamAllEmails()) {
+            emails.forEach(rebuilt::add);
+        }
+        bits = rebuilt;
+        System.out.println("Rebuilt email filter with " + count + " emails");
+    }
+
+    private static class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+
+        private Bits(long expected, double falsePositiveRate) {
+            long bitCount = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bitCount + 63) / 64));
+            this.words = new AtomicLongArray(words);
+            this.size = (long) words * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) size / expected * Math.log(2)));
+        }
+
+        private void add(String email) {
+            long hash = hash(email);
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value;
+                do {
+                    value = words.get(word);
+                    if ((value & mask) != 0) break;
+                } while (!words.compareAndSet(word, value, value | mask));
+            }
+        }
+
+        private boolean mightContain(String email) {
+            long hash = hash(email);
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64 bit fnv-1a over the utf-8 bytes, finished with the murmur3 mixer
+        private static long hash(String email) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : email.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.repository.ExerciseRepository;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * in memory copy of the exercises table
+ * the table is small and almost never changes, so the chatbot and workout saving read from here instead of the db
+ * the whole snapshot is swapped at once, readers never see a half loaded catalog
+ */
+@Component
+public class ExerciseCatalog {
+
+    private final ExerciseRepository exerciseRepository;
+    private volatile Snapshot snapshot;
+
+    public ExerciseCatalog(ExerciseRepository exerciseRepository) {
+        this.exerciseRepository = exerciseRepository;
+    }
+
+    public boolean contains(String name) {
+        return name != null && getSnapshot().names.contains(name);
+    }
+
+    // unmodifiable, safe to share
+    public Set<String> getNames() {
+        return getSnapshot().names;
+    }
+
+    // "- name" per line, ready to drop into the system prompt
+    public String getPromptFragment() {
+        return getSnapshot().promptFragment;
+    }
+
+    // changes whenever the set of exercises changes, use it as part of any cache key built from the catalog
+    public long getVersion() {
+        return getSnapshot().version;
+    }
+
+    // reloads the exercises table, only swaps the snapshot if something actually changed
+    @Scheduled(fixedDelayString = "${exercise.catalog.refresh-ms:300000}",
+            initialDelayString = "${exercise.catalog.refresh-ms:300000}")
+    public synchronized void refresh() {
+        List<String> names = exerciseRepository.findAllExerciseNames();
+        Set<String> nameSet = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+
+        Snapshot current = snapshot;
+        if (current != null && current.names.equals(nameSet)) {
+            return;
+        }
+
+        long version = current == null ? 1 : current.version + 1;
+        String promptFragment = nameSet.stream().map(name -> "- " + name).collect(Collectors.joining("\n"));
+        snapshot = new Snapshot(nameSet, promptFragment, version);
+        System.out.println("Exercise catalog loaded: " + nameSet.size() + " exercises (version " + version + ")");
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static class Snapshot {
+        private final Set<String> names;
+        private final String promptFragment;
+        private final long version;
+
+        private Snapshot(Set<String> names, String promptFragment, long version) {
+            this.names = names;
+            this.promptFragment = promptFragment;
+            this.version = version;
+        }
+    }
+}
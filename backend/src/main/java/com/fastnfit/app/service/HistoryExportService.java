@@ -0,0 +1,149 @@
+package com.fastnfit.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fastnfit.app.dto.HistoryDTO;
+import com.fastnfit.app.dto.WorkoutDTO;
+import com.fastnfit.app.enums.ExportFormat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * full history export, newest first, written row by row as NDJSON or CSV
+ * - rows are read in keyset chunks (same order as the history pages), one short query per chunk
+ * - chunks are read with plain jdbc outside any transaction, not through JPA: with open-in-view the request's
+ *   entity manager is also bound to the thread writing the body and would hold its connection until the download
+ *   ends. This way the connection goes back to the pool before the chunk is written, so a slow client never holds one
+ * - workout names are joined in the chunk query, nothing else touches the database while writing
+ * - only one chunk is in memory at a time, whatever the size of the history
+ * - an export that takes longer than history.export.timeout-ms (slow client or huge history) is cut off
+ */
+@Service
+public class HistoryExportService {
+
+    private static final String CSV_HEADER =
+            "historyId,workoutDateTime,workoutId,workoutName,caloriesBurned,durationInMinutes";
+
+    static final String CHUNK_SQL = "SELECT h.history_id, h.workout_date_time, h.calories_burned, "
+            + "h.duration_in_minutes, h.workout_id, w.name "
+            + "FROM history h LEFT JOIN workouts w ON w.workout_id = h.workout_id "
+            + "WHERE h.user_id = ? AND (h.workout_date_time < ? "
+            + "OR (h.workout_date_time = ? AND h.history_id < ?)) "
+            + "ORDER BY h.workout_date_time DESC, h.history_id DESC LIMIT ?";
+    private static final int[] CHUNK_TYPES =
+            {Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT, Types.INTEGER};
+
+    private static final RowMapper<HistoryDTO> ROW_MAPPER = (rs, rowNum) -> {
+        HistoryDTO row = new HistoryDTO(rs.getLong("history_id"), rs.getTimestamp("workout_date_time"),
+                rs.getObject("calories_burned", Integer.class), rs.getObject("duration_in_minutes", Integer.class),
+                rs.getObject("workout_id", Long.class));
+        if (row.getWorkout() != null) {
+            row.getWorkout().setName(rs.getString("name"));
+        }
+        return row;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final long timeoutMs;
+
+    public HistoryExportService(JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${history.export.chunk-size:500}") int chunkSize,
+            @Value("${history.export.timeout-ms:300000}") long timeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public void export(Long userId, ExportFormat format, OutputStream out) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        Timestamp beforeTime = HistoryService.FIRST_PAGE;
+        long beforeId = Long.MAX_VALUE;
+        while (true) {
+            if (System.currentTimeMillis() > deadline) {
+                // the response is already committed, failing here aborts the download instead of ending it cleanly
+                throw new IOException("History export of user " + userId + " took longer than " + timeoutMs + " ms");
+            }
+            List<HistoryDTO> chunk = jdbcTemplate.query(CHUNK_SQL,
+                    new Object[] {userId, beforeTime, beforeTime, beforeId, chunkSize}, CHUNK_TYPES, ROW_MAPPER);
+            for (HistoryDTO row : chunk) {
+                if (format == ExportFormat.CSV) {
+                    writeCsv(row, writer);
+                } else {
+                    writeNdjson(row, writer);
+                }
+            }
+            // the client gets every chunk as soon as it is written
+            writer.flush();
+
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            HistoryDTO last = chunk.get(chunk.size() - 1);
+            beforeTime = last.getWorkoutDateTime();
+            beforeId = last.getHistoryId();
+        }
+    }
+
+    private void writeNdjson(HistoryDTO row, Writer writer) throws IOException {
+        WorkoutDTO workout = row.getWorkout();
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("historyId", row.getHistoryId());
+        line.put("workoutDateTime", row.getWorkoutDateTime().toLocalDateTime().toString());
+        line.put("workoutId", workout != null ? workout.getWorkoutId() : null);
+        line.put("workoutName", workout != null ? workout.getName() : null);
+        line.put("caloriesBurned", row.getCaloriesBurned());
+        line.put("durationInMinutes", row.getDurationInMinutes());
+        writer.write(objectMapper.writeValueAsString(line));
+        writer.write('\n');
+    }
+
+    private void writeCsv(HistoryDTO row, Writer writer) throws IOException {
+        WorkoutDTO workout = row.getWorkout();
+        writer.write(String.valueOf(row.getHistoryId()));
+        writer.write(',');
+        writer.write(row.getWorkoutDateTime().toLocalDateTime().toString());
+        writer.write(',');
+        writer.write(workout != null ? String.valueOf(workout.getWorkoutId()) : "");
+        writer.write(',');
+        writer.write(workout != null ? csvField(workout.getName()) : "");
+        writer.write(',');
+        writer.write(row.getCaloriesBurned() != null ? String.valueOf(row.getCaloriesBurned()) : "");
+        writer.write(',');
+        writer.write(row.getDurationInMinutes() != null ? String.valueOf(row.getDurationInMinutes()) : "");
+        writer.write('\n');
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
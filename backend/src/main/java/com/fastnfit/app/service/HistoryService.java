@@ -2,17 +2,17 @@
 package com.fastnfit.app.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 
 import com.fastnfit.app.dto.ActivityOverviewDTO;
 import com.fastnfit.app.dto.DailySummaryDTO;
 import com.fastnfit.app.dto.HistoryDTO;
+import com.fastnfit.app.dto.HistoryPageDTO;
 import com.fastnfit.app.dto.WorkoutDTO;
-import com.fastnfit.app.model.Achievement;
 import com.fastnfit.app.model.History;
 import com.fastnfit.app.model.User;
 import com.fastnfit.app.model.Workout;
@@ -20,10 +20,13 @@ import com.fastnfit.app.repository.HistoryRepository;
 import com.fastnfit.app.repository.UserRepository;
 import com.fastnfit.app.repository.WorkoutRepository;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -33,38 +36,31 @@ import java.util.stream.Collectors;
 @Service
 public class HistoryService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // starting position of the first page, later than any real workout (also used by the export)
+    static final Timestamp FIRST_PAGE = Timestamp.valueOf("9999-12-31 23:59:59");
+
     private final HistoryRepository historyRepository;
     private final UserRepository userRepository;
     private final WorkoutRepository workoutRepository;
     private final WorkoutService workoutService;
-    private final UserStreakService userStreakService;
-    private final AchievementService achievementService;
-    private final UserAchievementService userAchievementService;
+    private final DailyActivityService dailyActivityService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public HistoryService(HistoryRepository historyRepository,
             UserRepository userRepository,
             WorkoutRepository workoutRepository,
             WorkoutService workoutService,
-            UserStreakService userStreakService,
-            AchievementService achievementService,
-            UserAchievementService userAchievementService) {
+            DailyActivityService dailyActivityService,
+            ApplicationEventPublisher eventPublisher) {
         this.historyRepository = historyRepository;
         this.userRepository = userRepository;
         this.workoutRepository = workoutRepository;
         this.workoutService = workoutService;
-        this.userStreakService = userStreakService;
-        this.achievementService = achievementService;
-        this.userAchievementService = userAchievementService;
-    }
-
-    public List<HistoryDTO> getUserHistory(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        return historyRepository.findByUser(user).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        this.dailyActivityService = dailyActivityService;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<HistoryDTO> getUserHistoryBetweenDates(Long userId, Date startDate, Date endDate) {
@@ -101,9 +97,17 @@ public class HistoryService {
         history.setDurationInMinutes(historyDTO.getDurationInMinutes());
 
         History savedHistory = historyRepository.save(history);
+
+        // rollup runs in this transaction, streak and achievements after it commits (see WorkoutCompletedEvent)
+        if (savedHistory.getWorkoutDateTime() != null) {
+            eventPublisher.publishEvent(new WorkoutCompletedEvent(userId, savedHistory.getHistoryId(),
+                    savedHistory.getWorkoutDateTime().toLocalDateTime().toLocalDate(),
+                    savedHistory.getCaloriesBurned(), savedHistory.getDurationInMinutes()));
+        }
         return convertToDTO(savedHistory);
     }
 
+    @Transactional
     public HistoryDTO recordWorkoutCompletion(Long userId, WorkoutDTO workout) {
         Calendar currentUtilCalendar = Calendar.getInstance();
         HistoryDTO dto = new HistoryDTO();
@@ -112,61 +116,93 @@ public class HistoryService {
         dto.setWorkoutDateTime(new Timestamp(currentUtilCalendar.getTimeInMillis()));
         dto.setDurationInMinutes(workout.getDurationInMinutes());
 
-        HistoryDTO result = createHistory(userId, dto);
-        userStreakService.updateStreak(userId);
-        checkWorkoutCountAchievementsForUser(userId);
-        return result;
+        return createHistory(userId, dto);
     }
 
     // ACTIVITY METHODS
     public DailySummaryDTO getTodaySummary(Long userId) {
         LocalDate today = LocalDate.now();
-        Timestamp start = Timestamp.valueOf(today.atStartOfDay());
-        Timestamp end = Timestamp.valueOf(today.plusDays(1).atStartOfDay());
-
-        int calories = historyRepository.sumCaloriesBurnedByUserBetween(userId, start, end);
-        int minutes = historyRepository.sumTimeExercisedByUserBetween(userId, start, end);
-
-        return new DailySummaryDTO(today, calories, minutes);
+        return dailyActivityService.getDailySummaries(userId, today, today).get(0);
     }
 
     // returns a list of daily summaries in ascending date order
     public List<DailySummaryDTO> getWeeklySummary(Long userId) {
-        List<DailySummaryDTO> result = new ArrayList<>();
         LocalDate today = LocalDate.now();
+        return dailyActivityService.getDailySummaries(userId, today.minusDays(6), today);
+    }
 
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = today.minusDays(i);
-            Timestamp start = Timestamp.valueOf(date.atStartOfDay());
-            Timestamp end = Timestamp.valueOf(date.plusDays(1).atStartOfDay());
+    // method to 1 shot load all the things needed for activity, instead of multiple
+    // http requests
+    public ActivityOverviewDTO getActivityOverview(Long userId) {
+        // one range read on the rollup, today is the last day of the week
+        List<DailySummaryDTO> weekly = getWeeklySummary(userId);
+        DailySummaryDTO today = weekly.get(weekly.size() - 1);
+        HistoryPageDTO recent = getHistoryPage(userId, null, 5); // You can adjust 5 to whatever feels best
 
-            int calories = historyRepository.sumCaloriesBurnedByUserBetween(userId, start, end);
-            int minutes = historyRepository.sumTimeExercisedByUserBetween(userId, start, end);
+        return new ActivityOverviewDTO(today, weekly, recent.getItems(), recent.getNextCursor());
+    }
 
-            result.add(new DailySummaryDTO(date, calories, minutes));
+    // HISTORY PAGES
+    /*
+     * keyset pagination, newest first
+     * - the cursor is the (workoutDateTime, historyId) of the last row of the previous page, base64 encoded
+     * - every page is one index range scan from that position, so deep pages cost the same as the first
+     */
+    public HistoryPageDTO getHistoryPage(Long userId, String cursor, int limit) {
+        if (cursor == null || cursor.isEmpty()) {
+            return loadPage(userId, FIRST_PAGE, Long.MAX_VALUE, limit);
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int separator = decoded.lastIndexOf('|');
+        Timestamp beforeTime;
+        long beforeId;
+        try {
+            beforeTime = Timestamp.from(Instant.parse(decoded.substring(0, separator)));
+            beforeId = Long.parseLong(decoded.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
         }
+        return loadPage(userId, beforeTime, beforeId, limit);
+    }
 
-        return result;
+    // everything strictly older than the given time, for clients that page by time instead of cursor
+    public HistoryPageDTO loadMoreHistory(Long userId, LocalDateTime after, int limit) {
+        return loadPage(userId, Timestamp.valueOf(after), Long.MIN_VALUE, limit);
     }
 
-    // method to 1 shot load all the things needed for activity, instead of multiple
-    // http requests
-    public ActivityOverviewDTO getActivityOverview(Long userId) {
-        DailySummaryDTO today = getTodaySummary(userId);
-        List<DailySummaryDTO> weekly = getWeeklySummary(userId);
-        List<HistoryDTO> recent = loadMoreHistory(userId, LocalDateTime.now(), 5); // You can adjust 5 to whatever feels
-                                                                                   // best
+    private HistoryPageDTO loadPage(Long userId, Timestamp beforeTime, long beforeId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // one extra row tells whether there is a next page
+        List<HistoryDTO> rows = historyRepository.findHistoryPage(userId, beforeTime, beforeId,
+                PageRequest.of(0, size + 1));
 
-        return new ActivityOverviewDTO(today, weekly, recent);
+        boolean hasMore = rows.size() > size;
+        List<HistoryDTO> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        for (HistoryDTO item : items) {
+            attachWorkout(item);
+        }
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1)) : null;
+        return new HistoryPageDTO(items, nextCursor);
     }
 
-    public List<HistoryDTO> loadMoreHistory(Long userId, LocalDateTime after, int limit) {
-        Timestamp afterTimestamp = Timestamp.valueOf(after);
-        Pageable pageable = PageRequest.of(0, limit);
+    // the projection only carries the workout id, the workout comes from the in memory catalog
+    private void attachWorkout(HistoryDTO dto) {
+        if (dto.getWorkout() == null) {
+            return;
+        }
+        WorkoutDTO workout = workoutService.getWorkoutById(dto.getWorkout().getWorkoutId());
+        dto.setWorkout(workout);
+        dto.setName(workout.getName());
+    }
 
-        return historyRepository.findMoreHistory(userId, afterTimestamp, pageable).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    private static String encodeCursor(HistoryDTO last) {
+        String position = last.getWorkoutDateTime().toInstant() + "|" + last.getHistoryId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
 
     // /
@@ -180,21 +216,6 @@ public class HistoryService {
         return -1;
     }
 
-    // /
-    // * Check and update workout count-based achievements
-    // */
-    private void checkWorkoutCountAchievementsForUser(Long userId) {
-        int workoutCount = getTotalHistoryCountByUser(userId);
-
-        // Check for 10 workouts achievement
-        if (workoutCount >= 10) {
-            Optional<Achievement> achievement = achievementService.getAchievementByTitle("10 Workouts");
-            if (achievement.isPresent()) {
-                userAchievementService.completeAchievement(userId, achievement.get().getAchievementId());
-            }
-        }
-    }
-
     /**
      * Get total calories burned by a user
      */
@@ -2,28 +2,66 @@ package com.fastnfit.app.service;
 
 import com.fastnfit.app.config.JwtConfig;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
+/*
+ * jwt signing and verification
+ * - the hmac key and the parser are built once, both are thread safe
+ * - tokens that passed verification are remembered (keyed by the sha-256 of the token) until they expire,
+ *   so a session's later requests cost a hash and a map lookup instead of a signature check
+ * - the cache is a ConcurrentHashMap, lookups take no lock. Its size is bounded approximately:
+ *   once it grows past the limit one thread drops the expired entries, then arbitrary ones down to 90%
+ *   (an evicted token is simply verified again)
+ */
 @Service
 public class JwtService {
 
     private final JwtConfig jwtConfig;
-    
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final int maxCachedTokens;
+    private final ConcurrentHashMap<ByteBuffer, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    // MessageDigest is not thread safe and getInstance looks up the provider every time
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
     public JwtService(JwtConfig jwtConfig) {
-        this.jwtConfig = jwtConfig;
+        this(jwtConfig, 10000);
     }
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes());
+    @Autowired
+    public JwtService(JwtConfig jwtConfig,
+            @Value("${jwt.verified-cache.max-entries:10000}") int maxCachedTokens) {
+        this.jwtConfig = jwtConfig;
+        this.signingKey = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.maxCachedTokens = maxCachedTokens;
     }
 
     public String generateToken(Long userId) {
@@ -34,16 +72,63 @@ public class JwtService {
                 .setClaims(claims)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtConfig.getExpiration()))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    // user id of a valid token, throws JwtException like extractAllClaims when it is not
+    // only the first request with a token checks the signature, later ones hit the cache until the token expires
+    public Long verifyUserId(String token) {
+        ByteBuffer key = maxCachedTokens > 0 ? hash(token) : null;
+        if (key != null) {
+            VerifiedToken cached = verifiedTokens.get(key);
+            if (cached != null) {
+                if (cached.expiresAt > System.currentTimeMillis()) {
+                    return cached.userId;
+                }
+                // expired, the full parse below rejects it
+                verifiedTokens.remove(key, cached);
+            }
+        }
+
+        Claims claims = extractAllClaims(token);
+        Long userId = claims.get("userId", Long.class);
+        // tokens without an expiry are not cached, there is nothing to bound the entry by
+        if (key != null && userId != null && claims.getExpiration() != null) {
+            verifiedTokens.put(key, new VerifiedToken(userId, claims.getExpiration().getTime()));
+            if (verifiedTokens.size() > maxCachedTokens) {
+                evict();
+            }
+        }
+        return userId;
+    }
+
+    public int getCachedTokenCount() {
+        return verifiedTokens.size();
+    }
+
+    // only one thread evicts at a time, the others keep going (the map may briefly be a little over the limit)
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            verifiedTokens.values().removeIf(token -> token.expiresAt <= now);
+            // still full of live tokens, make some room so the next insert does not evict again
+            int target = maxCachedTokens - maxCachedTokens / 10;
+            Iterator<ByteBuffer> keys = verifiedTokens.keySet().iterator();
+            while (verifiedTokens.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -70,4 +155,19 @@ public class JwtService {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    private static ByteBuffer hash(String token) {
+        // digest() resets the instance for the next call on this thread
+        return ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class VerifiedToken {
+        private final Long userId;
+        private final long expiresAt;
+
+        private VerifiedToken(Long userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
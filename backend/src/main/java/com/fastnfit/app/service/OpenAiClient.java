@@ -0,0 +1,287 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.config.OpenAIConfig;
+import com.fastnfit.app.exception.UpstreamUnavailableException;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/*
+ * http client for the openai chat completions api
+ * - one shared HttpClient (keeps its own pool of keep-alive connections) running on its own small thread pool
+ * - connect timeout and a per call deadline, streams also have a total and an idle deadline
+ *   after which the body is closed (the request timeout only covers the wait for the response headers)
+ * - a global in-flight limit, callers that cannot get a slot in time fail fast with UpstreamUnavailableException
+ *   so a slow openai can only ever tie up a bounded number of request threads (the rest of the api keeps working)
+ * - identical request bodies that are already in flight share one upstream call
+ */
+@Component
+public class OpenAiClient {
+
+    private final OpenAIConfig config;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor watchdog;
+    private final Semaphore inFlight;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> pendingCalls = new ConcurrentHashMap<>();
+
+    public OpenAiClient(OpenAIConfig config) {
+        this.config = config;
+        this.inFlight = new Semaphore(config.getMaxInFlight());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(config.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "openai-client-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "openai-client-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.setRemoveOnCancelPolicy(true);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMs()))
+                .executor(executor)
+                .build();
+    }
+
+    /*
+     * sends a chat completion request and returns the raw response body
+     * blocks until the response arrives or the deadline passes
+     */
+    public String complete(String requestBody) {
+        CompletableFuture<String> call = completeAsync(requestBody);
+        try {
+            // the http request has its own timeout, this is only a safety net
+            return call.get(config.getRequestTimeoutMs() + config.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamUnavailableException("Interrupted while waiting for OpenAI", e);
+        } catch (TimeoutException e) {
+            throw new UpstreamUnavailableException("OpenAI did not respond in time", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    public CompletableFuture<String> completeAsync(String requestBody) {
+        CompletableFuture<String> newCall = new CompletableFuture<>();
+        CompletableFuture<String> existing = pendingCalls.putIfAbsent(requestBody, newCall);
+        if (existing != null) {
+            // same request already on its way, wait for that one instead
+            return existing;
+        }
+
+        try {
+            acquireSlot();
+        } catch (RuntimeException e) {
+            pendingCalls.remove(requestBody, newCall);
+            newCall.completeExceptionally(e);
+            return newCall;
+        }
+
+        try {
+            httpClient.sendAsync(buildRequest(requestBody), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        pendingCalls.remove(requestBody, newCall);
+                        if (error != null) {
+                            newCall.completeExceptionally(unwrap(error));
+                        } else if (response.statusCode() / 100 != 2) {
+                            newCall.completeExceptionally(statusError(response.statusCode(), response.body()));
+                        } else {
+                            newCall.complete(response.body());
+                        }
+                    });
+        } catch (RuntimeException e) {
+            // e.g. a malformed openai.api.url, nothing was sent so whenComplete never runs
+            inFlight.release();
+            pendingCalls.remove(requestBody, newCall);
+            newCall.completeExceptionally(unwrap(e));
+        }
+        return newCall;
+    }
+
+    public void stream(String requestBody, Consumer<String> onLine) {
+        stream(requestBody, onLine, cancel -> { });
+    }
+
+    /*
+     * sends a streamed (stream=true) request, each line of the response is handed to onLine as soon as it arrives
+     * - onStart gets a way to stop the call from another thread, e.g. when the client of the stream went away
+     * - the stream fails with UpstreamUnavailableException once it takes longer than the stream timeout
+     *   or no line arrived within the idle timeout, the body is closed so neither the slot nor the thread stay taken
+     * streams are never shared between callers
+     */
+    public void stream(String requestBody, Consumer<String> onLine, Consumer<Runnable> onStart) {
+        acquireSlot();
+        OpenStream stream = null;
+        ScheduledFuture<?> deadline = null;
+        try {
+            stream = new OpenStream(httpClient.sendAsync(buildRequest(requestBody),
+                    HttpResponse.BodyHandlers.ofInputStream()));
+            OpenStream open = stream;
+            deadline = watchdog.schedule(() -> open.close("OpenAI stream took longer than "
+                    + config.getStreamTimeoutMs() + " ms"), config.getStreamTimeoutMs(), TimeUnit.MILLISECONDS);
+            watchIdle(stream);
+            onStart.accept(() -> open.close("OpenAI stream cancelled"));
+
+            HttpResponse<InputStream> response = stream.response.get();
+            try (InputStream body = stream.open(response.body());
+                 BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                if (response.statusCode() / 100 != 2) {
+                    throw statusError(response.statusCode(),
+                            new String(body.readNBytes(2000), StandardCharsets.UTF_8));
+                }
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    stream.lastLineAt = System.nanoTime();
+                    onLine.accept(line);
+                }
+            }
+            // a body closed by the watchdog or a cancel can look like a normal end
+            stream.failIfClosed();
+        } catch (IOException | CancellationException e) {
+            if (stream != null) stream.failIfClosed();
+            throw new UpstreamUnavailableException("OpenAI stream failed: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamUnavailableException("Interrupted while streaming from OpenAI", e);
+        } finally {
+            if (deadline != null) deadline.cancel(false);
+            if (stream != null) stream.close(null);
+            inFlight.release();
+        }
+    }
+
+    public int getAvailableSlots() {
+        return inFlight.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private HttpRequest buildRequest(String requestBody) {
+        return HttpRequest.newBuilder(URI.create(config.getApiUrl()))
+                .timeout(Duration.ofMillis(config.getRequestTimeoutMs()))
+                .header("Authorization", "Bearer " + config.getOpenaiApiKey())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
+    }
+
+    // checks again whenever the idle timeout would have passed since the last line
+    private void watchIdle(OpenStream stream) {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(config.getStreamIdleTimeoutMs());
+        long remaining = stream.lastLineAt + idleNanos - System.nanoTime();
+        if (stream.closed) {
+            return;
+        }
+        if (remaining <= 0) {
+            stream.close("OpenAI stream sent nothing for " + config.getStreamIdleTimeoutMs() + " ms");
+        } else {
+            watchdog.schedule(() -> watchIdle(stream), remaining, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void acquireSlot() {
+        try {
+            if (!inFlight.tryAcquire(config.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw new UpstreamUnavailableException("Too many chatbot requests in progress, please try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamUnavailableException("Interrupted while waiting for an OpenAI slot", e);
+        }
+    }
+
+    private UpstreamUnavailableException statusError(int status, String body) {
+        String snippet = body == null ? "" : body.substring(0, Math.min(body.length(), 500));
+        return new UpstreamUnavailableException("OpenAI returned status " + status + ": " + snippet);
+    }
+
+    private RuntimeException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new UpstreamUnavailableException("OpenAI call failed: " + cause.getMessage(), cause);
+    }
+
+    // a running stream, closed by the deadline, the idle check, a cancel or the end of stream(), whichever is first
+    private static class OpenStream {
+        private final CompletableFuture<HttpResponse<InputStream>> response;
+        private volatile InputStream body;
+        private volatile long lastLineAt = System.nanoTime();
+        private volatile boolean closed;
+        private volatile String failure; // why it was closed before it ended, null if it ended normally
+
+        private OpenStream(CompletableFuture<HttpResponse<InputStream>> response) {
+            this.response = response;
+        }
+
+        private InputStream open(InputStream body) throws IOException {
+            this.body = body;
+            if (closed) {
+                body.close();
+            }
+            return body;
+        }
+
+        private synchronized void close(String reason) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            failure = reason;
+            // stops an exchange that is still waiting for headers, closing the body ends a blocked read
+            response.cancel(true);
+            InputStream current = body;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (IOException e) {
+                    // already broken, nothing left to release
+                }
+            }
+        }
+
+        private void failIfClosed() {
+            if (failure != null) {
+                throw new UpstreamUnavailableException(failure);
+            }
+        }
+    }
+}
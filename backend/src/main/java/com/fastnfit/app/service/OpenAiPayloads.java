@@ -0,0 +1,98 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.dto.OpenAiCompletionDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/*
+ * openai chat completion bodies on the shared ObjectMapper
+ * - requests are written field by field with a JsonGenerator into a per thread buffer that is reused,
+ *   no JSONObject per message and no tree to serialize afterwards
+ * - the body is handed out as a String, OpenAiClient uses it as the key for sharing identical in-flight calls
+ * - responses and streamed chunks are read into OpenAiCompletionDTO through one cached ObjectReader
+ */
+@Component
+public class OpenAiPayloads {
+
+    // a buffer that grew for one very long conversation is dropped instead of being kept by the thread
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;
+
+    private final JsonFactory jsonFactory;
+    private final ObjectReader completionReader;
+    private final ThreadLocal<StringWriter> buffers = ThreadLocal.withInitial(() -> new StringWriter(4096));
+
+    public OpenAiPayloads(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.completionReader = objectMapper.readerFor(OpenAiCompletionDTO.class);
+    }
+
+    public String chatRequest(String model, double temperature, List<OpenAiCompletionDTO.Message> messages,
+            boolean stream) {
+        StringWriter buffer = buffers.get();
+        buffer.getBuffer().setLength(0);
+        try (JsonGenerator json = jsonFactory.createGenerator(buffer)) {
+            json.writeStartObject();
+            json.writeStringField("model", model);
+            json.writeArrayFieldStart("messages");
+            for (OpenAiCompletionDTO.Message message : messages) {
+                json.writeStartObject();
+                json.writeStringField("role", message.getRole());
+                json.writeStringField("content", message.getContent());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeNumberField("temperature", temperature);
+            if (stream) {
+                json.writeBooleanField("stream", true);
+                // one extra chunk at the end with the token usage and no choices
+                json.writeObjectFieldStart("stream_options");
+                json.writeBooleanField("include_usage", true);
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write OpenAI request", e);
+        }
+
+        String body = buffer.toString();
+        if (buffer.getBuffer().capacity() > MAX_RETAINED_CHARS) {
+            buffers.remove();
+        }
+        return body;
+    }
+
+    public OpenAiCompletionDTO readCompletion(String response) {
+        try {
+            return completionReader.readValue(response);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid OpenAI response: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    // text of the first choice of a complete (not streamed) response
+    public static String messageContent(OpenAiCompletionDTO completion) {
+        List<OpenAiCompletionDTO.Choice> choices = completion.getChoices();
+        if (choices == null || choices.isEmpty() || choices.get(0).getMessage() == null
+                || choices.get(0).getMessage().getContent() == null) {
+            throw new RuntimeException("OpenAI response has no message content");
+        }
+        return choices.get(0).getMessage().getContent();
+    }
+
+    // text of the first choice of a streamed chunk, null for chunks without any (role only, usage, finish)
+    public static String deltaContent(OpenAiCompletionDTO chunk) {
+        List<OpenAiCompletionDTO.Choice> choices = chunk.getChoices();
+        if (choices == null || choices.isEmpty() || choices.get(0).getDelta() == null) return null;
+        return choices.get(0).getDelta().getContent();
+    }
+}
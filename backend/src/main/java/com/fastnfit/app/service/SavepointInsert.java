@@ -0,0 +1,49 @@
+package com.fastnfit.app.service;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/*
+ * insert of a row that another transaction may be inserting at the same time (first row of a rollup)
+ * - runs on the connection of the surrounding transaction, wrapped in a savepoint, so a unique key conflict
+ *   only undoes this insert and not the rest of the transaction (postgres would abort all of it otherwise)
+ * - plain jdbc on purpose, a failed JPA statement marks the whole transaction rollback-only,
+ *   and HibernateJpaDialect has no savepoint support for a nested spring transaction
+ * the caller decides what to do when the row was already there, usually update it instead
+ */
+@Component
+public class SavepointInsert {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SavepointInsert(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // true when the row was inserted, false when it conflicted with a row that already exists
+    public boolean insertIfAbsent(String sql, Object... args) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(sql)) {
+                for (int i = 0; i < args.length; i++) {
+                    insert.setObject(i + 1, args[i]);
+                }
+                insert.executeUpdate();
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                // sql state class 23 is an integrity constraint violation (unique or primary key here)
+                if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                    return false;
+                }
+                throw e;
+            }
+            connection.releaseSavepoint(savepoint);
+            return true;
+        });
+    }
+}
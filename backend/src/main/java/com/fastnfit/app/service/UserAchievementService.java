@@ -5,6 +5,7 @@ import com.fastnfit.app.model.User;
 import com.fastnfit.app.model.UserAchievement;
 import com.fastnfit.app.repository.AchievementRepository;
 import com.fastnfit.app.repository.UserAchievementRepository;
+import com.fastnfit.app.repository.UserRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -18,13 +19,15 @@ public class UserAchievementService {
     
     private final UserAchievementRepository userAchievementRepository;
     private final AchievementRepository achievementRepository;
+    private final UserRepository userRepository;
     
     @Autowired
     public UserAchievementService(
             UserAchievementRepository userAchievementRepository,
-            //UserRepository userRepository,
+            UserRepository userRepository,
             AchievementRepository achievementRepository) {
         this.userAchievementRepository = userAchievementRepository;
+        this.userRepository = userRepository;
         this.achievementRepository = achievementRepository;
     }
     
@@ -64,17 +67,33 @@ public class UserAchievementService {
     
     // /
     //  * Mark an achievement as completed for a user
+    //  * The row is created when the achievement was added after the user signed up
+    //  * Returns true when the user now has the achievement completed
     //  */
     @Transactional
-    public void completeAchievement(Long userId, Long achievementId) {
+    public boolean completeAchievement(Long userId, Long achievementId) {
         Optional<UserAchievement> userAchievementOpt = 
                 userAchievementRepository.findByUserUserIdAndAchievementAchievementId(userId, achievementId);
         
+        UserAchievement userAchievement;
         if (userAchievementOpt.isPresent()) {
-            UserAchievement userAchievement = userAchievementOpt.get();
-            userAchievement.setCompleted(true);
-            userAchievementRepository.save(userAchievement);
+            userAchievement = userAchievementOpt.get();
+            if (userAchievement.isCompleted()) {
+                return true;
+            }
+        } else {
+            Optional<User> user = userRepository.findById(userId);
+            Optional<Achievement> achievement = achievementRepository.findById(achievementId);
+            if (user.isEmpty() || achievement.isEmpty()) {
+                return false;
+            }
+            userAchievement = new UserAchievement();
+            userAchievement.setUser(user.get());
+            userAchievement.setAchievement(achievement.get());
         }
+        userAchievement.setCompleted(true);
+        userAchievementRepository.save(userAchievement);
+        return true;
     }
     
     // /
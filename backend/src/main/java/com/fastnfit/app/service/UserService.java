@@ -2,7 +2,7 @@
 package com.fastnfit.app.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +16,7 @@ import com.fastnfit.app.dto.GoalsDTO;
 import com.fastnfit.app.dto.AuthResponseDTO;
 import com.fastnfit.app.dto.AvatarDTO;
 import com.fastnfit.app.dto.WeeklyWorkoutsDTO;
+import com.fastnfit.app.dto.DailySummaryDTO;
 import com.fastnfit.app.enums.PregnancyStatus;
 import com.fastnfit.app.enums.WorkoutGoal;
 import com.fastnfit.app.enums.WorkoutType;
@@ -41,37 +42,51 @@ public class UserService {
     private final UserDetailsRepository userDetailsRepository;
     private final HistoryRepository historyRepository;
     private final UserAchievementService userAchievementService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final EmailBloomFilter emailBloomFilter;
     private final JwtService jwtService;
+    private final UserTotalsService userTotalsService;
 
     @Autowired
     public UserService(UserRepository userRepository,
             UserDetailsRepository userDetailsRepository,
             HistoryRepository historyRepository,
             UserAchievementService userAchievementService,
-            PasswordEncoder passwordEncoder,
-            JwtService jwtService) {
+            PasswordHashingService passwordHashingService,
+            EmailBloomFilter emailBloomFilter,
+            JwtService jwtService,
+            UserTotalsService userTotalsService) {
         this.userRepository = userRepository;
         this.userDetailsRepository = userDetailsRepository;
         this.historyRepository = historyRepository;
         this.userAchievementService = userAchievementService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.emailBloomFilter = emailBloomFilter;
         this.jwtService = jwtService;
+        this.userTotalsService = userTotalsService;
     }
 
     public AuthResponseDTO registerUser(UserRegistrationDTO registrationDTO) {
-        if (userRepository.existsByEmail(registrationDTO.getEmail())) {
+        // most new emails are definitely not in the filter, only possible duplicates pay for the query
+        String email = registrationDTO.getEmail();
+        if (emailBloomFilter.mightContain(email) && userRepository.existsByEmail(email)) {
             throw new RuntimeException("Email is already in use");
         }
 
         // Create basic user with encrypted password
         User user = new User();
-        user.setEmail(registrationDTO.getEmail());
-        user.setPassword(passwordEncoder.encode(registrationDTO.getPassword()));
+        user.setEmail(email);
+        user.setPassword(passwordHashingService.encode(registrationDTO.getPassword()));
 
         // Use the createUser method to save user, initialize UserDetails if needed,
         // and create achievements
-        user = createUser(user,registrationDTO.getUsername());
+        try {
+            user = createUser(user,registrationDTO.getUsername());
+        } catch (DataIntegrityViolationException e) {
+            // the unique constraint on email catches what the filter missed
+            throw new RuntimeException("Email is already in use");
+        }
+        emailBloomFilter.add(email);
 
         String token = jwtService.generateToken(user.getUserId());
 
@@ -85,10 +100,17 @@ public class UserService {
         User user = userRepository.findByEmail(loginRequest.getEmail())
                 .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid email or password");
         }
 
+        // hash from before the work factor was raised, store a new one without delaying the login
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            Long userId = user.getUserId();
+            passwordHashingService.rehashInBackground(loginRequest.getPassword(),
+                    hash -> userRepository.updatePassword(userId, hash));
+        }
+
         String token = jwtService.generateToken(user.getUserId());
 
         return AuthResponseDTO.builder()
@@ -261,7 +283,7 @@ public class UserService {
         responseDTO.setMenstrualCramps(userDetails.getMenstrualCramps());
         responseDTO.setCycleBasedRecommendations(userDetails.getCycleBasedRecommendations());
         responseDTO.setWorkoutType(userDetails.getWorkoutType().getValue());
-        responseDTO.setCurrentStreak(userDetails.getCurrentStreak());
+        responseDTO.setCurrentStreak(UserStreakService.currentStreak(userDetails, LocalDate.now()));
         responseDTO.setLongestStreak(userDetails.getLongestStreak());
 
         return responseDTO;
@@ -361,7 +383,10 @@ public class UserService {
         Timestamp endTimestamp = Timestamp.valueOf(endDateTime);
 
         // Get the count of workouts completed between Monday and Friday
-        int workoutCount = historyRepository.countByUserAndWorkoutDateTimeBetween(user, startTimestamp, endTimestamp);
+        int workoutCount = historyRepository.findDailySummaries(userId, startTimestamp, endTimestamp)
+                .stream()
+                .mapToInt(DailySummaryDTO::getWorkoutCount)
+                .sum();
 
         WeeklyWorkoutsDTO weeklyWorkoutsDTO = new WeeklyWorkoutsDTO();
         weeklyWorkoutsDTO.setTotalWorkouts(workoutCount);
@@ -427,6 +452,9 @@ public class UserService {
         // Initialize achievements for the new user
         userAchievementService.initializeUserAchievements(savedUser);
 
+        // Empty lifetime totals, workouts only ever update them
+        userTotalsService.createTotals(savedUser.getUserId());
+
         return savedUser;
     }
 
@@ -1,130 +1,100 @@
 package com.fastnfit.app.service;
 
 import com.fastnfit.app.dto.StreakDTO;
-import com.fastnfit.app.model.Achievement;
-import com.fastnfit.app.model.History;
-import com.fastnfit.app.model.User;
+import com.fastnfit.app.enums.AchievementMetric;
 import com.fastnfit.app.model.UserDetails;
-import com.fastnfit.app.repository.HistoryRepository;
 import com.fastnfit.app.repository.UserDetailsRepository;
-import com.fastnfit.app.repository.UserRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
+/*
+ * streaks are kept as state on UserDetails (currentStreak, longestStreak, lastWorkoutDate)
+ * - a completed workout moves the state forward in constant time, history is never read
+ * - the stored streak is only written when a workout is completed, readers decay it themselves:
+ *   if the last workout was before yesterday the streak is shown as 0
+ */
 @Service
 public class UserStreakService {
-    private UserRepository userRepository;
-    private HistoryRepository historyRepository;
-    private AchievementService achievementService;
-    private UserAchievementService userAchievementService;
+    private AchievementEngine achievementEngine;
     private UserDetailsRepository userDetailsRepository;
-    
+
     @Autowired
     public UserStreakService(
-            UserRepository userRepository,
-            HistoryRepository historyRepository,
-            AchievementService achievementService,
-            UserAchievementService userAchievementService,
+            AchievementEngine achievementEngine,
             UserDetailsRepository userDetailsRepository) {
-        this.userRepository = userRepository;
-        this.historyRepository = historyRepository;
-        this.achievementService = achievementService;
-        this.userAchievementService = userAchievementService;
+        this.achievementEngine = achievementEngine;
         this.userDetailsRepository=userDetailsRepository;
     }
-    
+
     // /
-    //  * Update streak when a workout is completed
+    //  * Update streak when a workout is completed today
     //  */
     @Transactional
     public void updateStreak(Long userId) {
-        Optional<User> userOpt = userRepository.findById(userId);
-        
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            UserDetails userDetails = user.getUserDetails();
-            
-            if (userDetails != null) {
-                // Get current date
-                LocalDate today = LocalDate.now();
-                LocalDate yesterday = today.minusDays(1);
-                
-                // Check number of times user worked out today
-                int workedOutToday = hasWorkoutOnDate(userId, today);
-                
-                // Check number of times user worked out yesterday
-                int workedOutYesterday = hasWorkoutOnDate(userId, yesterday);
-                
-                // Update streak
-                int currentStreak = userDetails.getCurrentStreak();
-
-                if (workedOutYesterday == 0){
-                    // Reset streak if missed yesterday
-                    currentStreak = 0;
-                }
-                if (workedOutToday == 1) {
-                    // Increment streak if worked out yesterday or starting a new streak
-                    currentStreak = currentStreak + 1;
-                    userDetails.setCurrentStreak(currentStreak);
-                    
-                    // Update longest streak if needed
-                    if (currentStreak > userDetails.getLongestStreak()) {
-                        userDetails.setLongestStreak(currentStreak);
-                    }
-                    
-                    // Check for streak-based achievements
-                    checkStreakAchievements(userId, currentStreak);
-                }
-                userRepository.save(user);
-            }
-        }
+        updateStreak(userId, LocalDate.now());
     }
-    
+
     // /
-    //  * Check if a user has a workout on a specific date
+    //  * Update streak for a workout completed on the given day
     //  */
-    private int hasWorkoutOnDate(Long userId, LocalDate date) {
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User details not found"));
-        
-        // Convert LocalDate to LocalDateTime for start and end of day
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-        
-        // Convert LocalDateTime to Timestamp
-        Timestamp startTimestamp = Timestamp.valueOf(startOfDay);
-        Timestamp endTimestamp = Timestamp.valueOf(endOfDay);
-        
-        // Use the updated repository method with Timestamp parameters
-        List<History> workouts = historyRepository.findByUserAndWorkoutDateTimeBetween(user, startTimestamp, endTimestamp);
-        return workouts.size();
+    @Transactional
+    public void updateStreak(Long userId, LocalDate workoutDate) {
+        Optional<UserDetails> detailsOpt = userDetailsRepository.findByUserUserId(userId);
+        if (detailsOpt.isEmpty()) {
+            return;
+        }
+
+        UserDetails userDetails = detailsOpt.get();
+        LocalDate lastWorkoutDate = userDetails.getLastWorkoutDate();
+
+        // this day is already counted, or the workout is older than the last counted one
+        if (lastWorkoutDate != null && !workoutDate.isAfter(lastWorkoutDate)) {
+            return;
+        }
+
+        int currentStreak;
+        if (lastWorkoutDate != null && lastWorkoutDate.plusDays(1).equals(workoutDate)) {
+            // worked out the day before, streak continues
+            currentStreak = userDetails.getCurrentStreak() + 1;
+        } else {
+            // first workout ever or at least one day missed, new streak
+            currentStreak = 1;
+        }
+
+        userDetails.setCurrentStreak(currentStreak);
+        userDetails.setLastWorkoutDate(workoutDate);
+        if (currentStreak > userDetails.getLongestStreak()) {
+            userDetails.setLongestStreak(currentStreak);
+        }
+        userDetailsRepository.save(userDetails);
+
+        // Check for streak-based achievements
+        achievementEngine.evaluate(userId, AchievementMetric.STREAK, () -> currentStreak);
     }
 
-    // * Check and update streak-based achievements
-    //  */
-    private void checkStreakAchievements(Long userId, int streak) {
-        // Check for 5-day streak achievement
-        if (streak >= 5) {
-            Optional<Achievement> achievement = achievementService.getAchievementByTitle("5 Day Streak");
-            if (achievement.isPresent()) {
-                userAchievementService.completeAchievement(userId, achievement.get().getAchievementId());
-            }
+    // streak as of today: the stored value only holds while the last workout was today or yesterday
+    public static int currentStreak(UserDetails userDetails, LocalDate today) {
+        LocalDate lastWorkoutDate = userDetails.getLastWorkoutDate();
+        if (lastWorkoutDate == null || lastWorkoutDate.isBefore(today.minusDays(1))) {
+            return 0;
         }
-        
-        // Check for 30-day streak achievement
-        if (streak >= 30) {
-            Optional<Achievement> achievement = achievementService.getAchievementByTitle("30 Day Streak");
-            if (achievement.isPresent()) {
-                userAchievementService.completeAchievement(userId, achievement.get().getAchievementId());
-            }
+        return userDetails.getCurrentStreak();
+    }
+
+    // first start after lastWorkoutDate was added: fill it for existing streaks so they are not shown as 0
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillLastWorkoutDates() {
+        int rows = userDetailsRepository.backfillLastWorkoutDates();
+        if (rows > 0) {
+            System.out.println("Backfilled last workout date for " + rows + " users");
         }
     }
 
@@ -132,7 +102,7 @@ public class UserStreakService {
         UserDetails userDetails = userDetailsRepository.findByUserUserId(userId)
             .orElseThrow(() -> new RuntimeException("User details not found"));
         StreakDTO streakDTO=new StreakDTO();
-        streakDTO.setDays(userDetails.getCurrentStreak());
+        streakDTO.setDays(currentStreak(userDetails, LocalDate.now()));
         return streakDTO;
     }
 
@@ -0,0 +1,145 @@
+package com.fastnfit.app.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * runs background work for users, in order per user
+ * - a fixed number of single threaded shards, a user always goes to the same shard
+ *   so two tasks for one user never run at the same time or out of order
+ * - each shard has a bounded queue, when it is full the caller waits until there is room (back-pressure),
+ *   the tasks update streaks and achievements that nothing else would repair, so they are never dropped
+ * - a failing task is retried on its shard a few times before it is given up and counted
+ */
+@Component
+public class UserTaskExecutor {
+
+    private final ExecutorService[] shards;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public UserTaskExecutor(int shardCount, int queueCapacity, long submitTimeoutMs) {
+        this(shardCount, queueCapacity, submitTimeoutMs, 3, 100);
+    }
+
+    @Autowired
+    public UserTaskExecutor(@Value("${workout.events.shards:4}") int shardCount,
+            @Value("${workout.events.queue-capacity:1000}") int queueCapacity,
+            @Value("${workout.events.submit-timeout-ms:1000}") long submitTimeoutMs,
+            @Value("${workout.events.max-attempts:3}") int maxAttempts,
+            @Value("${workout.events.retry-delay-ms:100}") long retryDelayMs) {
+        this.shards = new ExecutorService[shardCount];
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+        RejectedExecutionHandler waitForRoom = (runnable, shard) -> {
+            if (shard.isShutdown()) {
+                // the app is stopping, the shard only finishes its queue, run it here rather than lose it
+                runnable.run();
+                return;
+            }
+            waited.incrementAndGet();
+            boolean interrupted = false;
+            try {
+                while (!shard.getQueue().offer(runnable, submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    System.err.println("User task queue still full after " + submitTimeoutMs + " ms, waiting for room");
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                // keep the task anyway, waiting without a timeout (the flag is restored below)
+                putUninterruptibly(shard, runnable);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        for (int i = 0; i < shardCount; i++) {
+            String name = "user-tasks-" + i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    waitForRoom);
+        }
+    }
+
+    public void execute(Long userId, Runnable task) {
+        shards[Math.floorMod(userId.hashCode(), shards.length)].execute(() -> runWithRetry(userId, task));
+    }
+
+    // submits that found their shard full and had to wait
+    public long getWaitedCount() {
+        return waited.get();
+    }
+
+    // tasks that still failed after every attempt
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        try {
+            for (ExecutorService shard : shards) {
+                shard.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // retried on the shard thread, so later tasks of the same user still wait for it
+    private void runWithRetry(Long userId, Runnable task) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                task.run();
+                return;
+            } catch (Exception e) {
+                // one failing task must not stop the rest of the queue
+                if (attempt >= maxAttempts) {
+                    failed.incrementAndGet();
+                    System.err.println("Background task for user " + userId + " failed after " + attempt
+                            + " attempts: " + e.getMessage());
+                    return;
+                }
+                System.err.println("Background task for user " + userId + " failed, retrying: " + e.getMessage());
+            }
+            try {
+                Thread.sleep(retryDelayMs * attempt);
+            } catch (InterruptedException e) {
+                // shutting down now, this task is not retried any more
+                Thread.currentThread().interrupt();
+                failed.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private static void putUninterruptibly(ThreadPoolExecutor shard, Runnable runnable) {
+        while (true) {
+            try {
+                shard.getQueue().put(runnable);
+                return;
+            } catch (InterruptedException e) {
+                // try again, the caller restores the interrupt flag
+            }
+        }
+    }
+}
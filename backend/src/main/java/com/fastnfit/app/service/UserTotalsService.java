@@ -0,0 +1,95 @@
+package com.fastnfit.app.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fastnfit.app.model.UserTotals;
+import com.fastnfit.app.repository.HistoryRepository;
+import com.fastnfit.app.repository.UserTotalsRepository;
+
+import java.util.List;
+
+// maintains and reads the user_totals table (lifetime workouts, calories and minutes per user)
+@Service
+public class UserTotalsService {
+
+    private static final String INSERT_TOTALS_SQL = "INSERT INTO user_totals "
+            + "(user_id, workout_count, calories_burned, duration_in_minutes) VALUES (?, 1, ?, ?)";
+
+    private final UserTotalsRepository userTotalsRepository;
+    private final HistoryRepository historyRepository;
+    private final SavepointInsert savepointInsert;
+
+    public UserTotalsService(UserTotalsRepository userTotalsRepository, HistoryRepository historyRepository,
+            SavepointInsert savepointInsert) {
+        this.userTotalsRepository = userTotalsRepository;
+        this.historyRepository = historyRepository;
+        this.savepointInsert = savepointInsert;
+    }
+
+    // runs in the same transaction that saves the history row, so the totals never drift from it
+    @EventListener
+    public void onWorkoutCompleted(WorkoutCompletedEvent event) {
+        recordWorkout(event.getUserId(), event.getCaloriesBurned(), event.getDurationInMinutes());
+    }
+
+    // every user gets a zero row when signing up, so recording a workout is a single update
+    @Transactional
+    public void createTotals(Long userId) {
+        UserTotals totals = new UserTotals();
+        totals.setUserId(userId);
+        userTotalsRepository.save(totals);
+    }
+
+    @Transactional
+    public void recordWorkout(Long userId, int caloriesBurned, int durationInMinutes) {
+        // users from before the table existed have no row until the nightly reconcile, they insert it here
+        // (in a savepoint, see SavepointInsert), the one that loses a race with another first workout updates instead
+        for (int attempt = 0; attempt < 3; attempt++) {
+            if (userTotalsRepository.addWorkout(userId, caloriesBurned, durationInMinutes) > 0
+                    || savepointInsert.insertIfAbsent(INSERT_TOTALS_SQL, userId, caloriesBurned, durationInMinutes)) {
+                return;
+            }
+        }
+        throw new RuntimeException("Could not record totals of user " + userId);
+    }
+
+    // single primary key lookup, users without workouts get zeros
+    public UserTotals getTotals(Long userId) {
+        return userTotalsRepository.findById(userId).orElseGet(() -> {
+            UserTotals empty = new UserTotals();
+            empty.setUserId(userId);
+            return empty;
+        });
+    }
+
+    // first start after the table was introduced: build it from the existing history rows
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (userTotalsRepository.count() > 0 || historyRepository.count() == 0) {
+            return;
+        }
+        int rows = userTotalsRepository.backfillFromHistory();
+        System.out.println("Backfilled user_totals with " + rows + " rows from history");
+    }
+
+    // gives users without a row their zero row, then compares every user's totals with the history table
+    // and recomputes the ones that drifted
+    // the recompute is a single update statement, so it does not write back values read earlier
+    // over increments that were committed in between
+    @Scheduled(cron = "${user-totals.reconcile-cron:0 30 3 * * *}")
+    @Transactional
+    public int reconcile() {
+        userTotalsRepository.insertMissingUsers();
+        List<Long> userIds = userTotalsRepository.findUsersOutOfSync();
+        if (!userIds.isEmpty()) {
+            userTotalsRepository.recomputeFromHistory(userIds);
+            System.out.println("Reconciled user_totals for " + userIds.size() + " users: " + userIds);
+        }
+        return userIds.size();
+    }
+}
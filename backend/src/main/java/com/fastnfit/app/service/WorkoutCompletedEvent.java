@@ -0,0 +1,46 @@
+package com.fastnfit.app.service;
+
+import java.time.LocalDate;
+
+/*
+ * published by HistoryService whenever a history row is saved
+ * listeners that must stay consistent with history (daily rollup) use @EventListener and run in the same transaction,
+ * everything else uses @TransactionalEventListener and hands the work to UserTaskExecutor so it runs after commit
+ */
+public class WorkoutCompletedEvent {
+
+    private final Long userId;
+    private final Long historyId;
+    private final LocalDate workoutDate;
+    private final int caloriesBurned;
+    private final int durationInMinutes;
+
+    public WorkoutCompletedEvent(Long userId, Long historyId, LocalDate workoutDate, Integer caloriesBurned,
+            Integer durationInMinutes) {
+        this.userId = userId;
+        this.historyId = historyId;
+        this.workoutDate = workoutDate;
+        this.caloriesBurned = caloriesBurned == null ? 0 : caloriesBurned;
+        this.durationInMinutes = durationInMinutes == null ? 0 : durationInMinutes;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getHistoryId() {
+        return historyId;
+    }
+
+    public LocalDate getWorkoutDate() {
+        return workoutDate;
+    }
+
+    public int getCaloriesBurned() {
+        return caloriesBurned;
+    }
+
+    public int getDurationInMinutes() {
+        return durationInMinutes;
+    }
+}
@@ -0,0 +1,51 @@
+package com.fastnfit.app.service;
+
+import com.fastnfit.app.enums.AchievementMetric;
+import com.fastnfit.app.model.UserTotals;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/*
+ * side effects of a completed workout that do not have to be done before the request returns
+ * both run after the history row is committed, on the user's shard of UserTaskExecutor,
+ * so for one user the streak is always updated before its achievements are checked
+ */
+@Component
+public class WorkoutCompletedListener {
+
+    private final UserTaskExecutor userTaskExecutor;
+    private final UserStreakService userStreakService;
+    private final AchievementEngine achievementEngine;
+    private final UserTotalsService userTotalsService;
+
+    public WorkoutCompletedListener(UserTaskExecutor userTaskExecutor, UserStreakService userStreakService,
+            AchievementEngine achievementEngine, UserTotalsService userTotalsService) {
+        this.userTaskExecutor = userTaskExecutor;
+        this.userStreakService = userStreakService;
+        this.achievementEngine = achievementEngine;
+        this.userTotalsService = userTotalsService;
+    }
+
+    @Order(1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void updateStreak(WorkoutCompletedEvent event) {
+        userTaskExecutor.execute(event.getUserId(),
+                () -> userStreakService.updateStreak(event.getUserId(), event.getWorkoutDate()));
+    }
+
+    // totals are one primary key lookup, so they are simply read up front
+    @Order(2)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void checkTotalsAchievements(WorkoutCompletedEvent event) {
+        Long userId = event.getUserId();
+        userTaskExecutor.execute(userId, () -> {
+            UserTotals totals = userTotalsService.getTotals(userId);
+            achievementEngine.evaluate(userId, AchievementMetric.WORKOUT_COUNT, totals::getWorkoutCount);
+            achievementEngine.evaluate(userId, AchievementMetric.CALORIES, totals::getCaloriesBurned);
+            achievementEngine.evaluate(userId, AchievementMetric.MINUTES, totals::getDurationInMinutes);
+        });
+    }
+}
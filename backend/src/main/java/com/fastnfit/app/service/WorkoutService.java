@@ -1,8 +1,11 @@
 package com.fastnfit.app.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.fastnfit.app.dto.WorkoutDTO;
 import com.fastnfit.app.dto.WorkoutExerciseDTO;
@@ -13,11 +16,28 @@ import com.fastnfit.app.model.Workout;
 import com.fastnfit.app.model.WorkoutExercise;
 import com.fastnfit.app.repository.ExerciseRepository;
 import com.fastnfit.app.repository.WorkoutRepository;
+import com.fastnfit.app.repository.WorkoutRepository.CatalogState;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+/*
+ * workouts are read from an in memory catalog
+ * - the whole catalog is loaded with one fetch join query and converted to DTOs once
+ * - lists by category, by level and the home page groups are built at load time, sorted by workout id
+ * - every save, update or delete bumps the catalog version after commit, the next read reloads
+ * - changes made by other instances are noticed by a timer that compares a cheap count / max id / max updated_at
+ *   query with the loaded catalog, the catalog is only reloaded when they differ
+ * the cached DTOs are shared between requests, callers must not modify them
+ */
 @Service
 public class WorkoutService {
 
@@ -27,32 +47,172 @@ public class WorkoutService {
     @Autowired
     private ExerciseRepository exerciseRepository;
 
+    @Autowired
+    private ExerciseCatalog exerciseCatalog;
+
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Object catalogLock = new Object();
+    private volatile Catalog catalog;
+
     public WorkoutService(WorkoutRepository workoutRepository) {
         this.workoutRepository = workoutRepository;
     }
 
+    // ordered by workout id
     public List<WorkoutDTO> getAllWorkouts() {
-        return workoutRepository.findAll().stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+        return getCatalog().all;
     }
 
     public WorkoutDTO getWorkoutById(Long id) {
+        WorkoutDTO cached = getCatalog().byId.get(id);
+        if (cached != null) {
+            return cached;
+        }
         Workout workout = workoutRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Workout not found"));
         return convertToDTO(workout);
     }
 
     public List<WorkoutDTO> getWorkoutsByCategory(WorkoutType category) {
-        return workoutRepository.findByCategory(category).stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+        return getCatalog().byCategory.getOrDefault(category, List.of());
     }
 
     public List<WorkoutDTO> getWorkoutsByLevel(WorkoutLevel level) {
-        return workoutRepository.findByLevel(level).stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+        return getCatalog().byLevel.getOrDefault(level, List.of());
+    }
+
+    // home page groups: yoga, hiit, strength, prenatal, postnatal, low-impact, high-energy, body-weight, others
+    public Map<String, List<WorkoutDTO>> getWorkoutsGroupedForHome() {
+        return getCatalog().homeGroups;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    // drops the catalog right away, the next read loads it again
+    public void invalidateCatalog() {
+        catalogVersion.incrementAndGet();
+    }
+
+    // picks up changes made by other instances, only drops the catalog if the workouts table changed
+    @Scheduled(fixedDelayString = "${workout.catalog.refresh-ms:300000}",
+            initialDelayString = "${workout.catalog.refresh-ms:300000}")
+    public void refreshCatalogIfChanged() {
+        Catalog current = catalog;
+        if (current != null && !current.state.equals(catalogState())) {
+            invalidateCatalog();
+        }
+    }
+
+    // inside a transaction the catalog is only dropped once the change is committed,
+    // otherwise a read in between could cache the old rows again
+    private void invalidateCatalogAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateCatalog();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateCatalog();
+            }
+        });
+    }
+
+    private Catalog getCatalog() {
+        Catalog current = catalog;
+        if (current != null && current.version == catalogVersion.get()) {
+            return current;
+        }
+        synchronized (catalogLock) {
+            long version = catalogVersion.get();
+            current = catalog;
+            if (current != null && current.version == version) {
+                return current;
+            }
+            // read before the rows, a change committed in between makes the next check reload once more
+            String state = catalogState();
+            List<WorkoutDTO> workouts = workoutRepository.findAllWithExercises().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+            Catalog loaded = new Catalog(version, state, workouts);
+            // only keep it if nothing changed while loading, else the next read loads again
+            // a read-write transaction may see its own uncommitted rows, that load is used once and not kept
+            boolean writeTransaction = TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            if (catalogVersion.get() == version && !writeTransaction) {
+                catalog = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    private String catalogState() {
+        CatalogState state = workoutRepository.findCatalogState();
+        if (state == null) {
+            return "";
+        }
+        return state.getWorkouts() + "|" + state.getMaxId() + "|" + state.getLastUpdated();
+    }
+
+    private static String homeCategory(String category) {
+        if (category.equalsIgnoreCase("yoga"))
+            return "yoga";
+        if (category.equalsIgnoreCase("hiit"))
+            return "hiit";
+        if (category.equalsIgnoreCase("strength"))
+            return "strength";
+        if (category.equalsIgnoreCase("prenatal"))
+            return "prenatal";
+        if (category.equalsIgnoreCase("postnatal"))
+            return "postnatal";
+        if (category.equalsIgnoreCase("low-impact"))
+            return "low-impact";
+        if (category.equalsIgnoreCase("high-energy"))
+            return "high-energy";
+        if (category.equalsIgnoreCase("body-weight"))
+            return "body-weight";
+        return "others";
+    }
+
+    private static class Catalog {
+        private final long version;
+        private final String state;
+        private final List<WorkoutDTO> all;
+        private final Map<Long, WorkoutDTO> byId;
+        private final Map<WorkoutType, List<WorkoutDTO>> byCategory;
+        private final Map<WorkoutLevel, List<WorkoutDTO>> byLevel;
+        private final Map<String, List<WorkoutDTO>> homeGroups;
+
+        private Catalog(long version, String state, List<WorkoutDTO> workouts) {
+            List<WorkoutDTO> sorted = new ArrayList<>(workouts);
+            sorted.sort((a, b) -> Long.compare(a.getWorkoutId(), b.getWorkoutId()));
+
+            Map<Long, WorkoutDTO> ids = new HashMap<>();
+            Map<WorkoutType, List<WorkoutDTO>> categories = new EnumMap<>(WorkoutType.class);
+            Map<WorkoutLevel, List<WorkoutDTO>> levels = new EnumMap<>(WorkoutLevel.class);
+            Map<String, List<WorkoutDTO>> groups = new LinkedHashMap<>();
+            for (WorkoutDTO workout : sorted) {
+                ids.put(workout.getWorkoutId(), workout);
+                categories.computeIfAbsent(WorkoutType.fromString(workout.getCategory()), type -> new ArrayList<>()).add(workout);
+                if (workout.getLevel() != null) {
+                    levels.computeIfAbsent(workout.getLevel(), level -> new ArrayList<>()).add(workout);
+                }
+                groups.computeIfAbsent(homeCategory(workout.getCategory()), group -> new ArrayList<>()).add(workout);
+            }
+            categories.replaceAll((type, list) -> List.copyOf(list));
+            levels.replaceAll((level, list) -> List.copyOf(list));
+            groups.replaceAll((group, list) -> List.copyOf(list));
+
+            this.version = version;
+            this.state = state;
+            this.all = List.copyOf(sorted);
+            this.byId = Collections.unmodifiableMap(ids);
+            this.byCategory = Collections.unmodifiableMap(categories);
+            this.byLevel = Collections.unmodifiableMap(levels);
+            this.homeGroups = Collections.unmodifiableMap(groups);
+        }
     }
 
     public WorkoutDTO convertToDTO(Workout workout) {
@@ -85,9 +245,7 @@ public class WorkoutService {
     }
 
     public List<WorkoutExerciseDTO> getWorkoutsWorkoutExercisesById(Long workoutId){
-        Workout workout = workoutRepository.findById(workoutId)
-            .orElseThrow(() -> new RuntimeException("Workout not found"));
-        return convertWorkoutExerciseToDTO(workout.getWorkoutExercises());
+        return getWorkoutById(workoutId).getWorkoutExercise();
     }
 
     public List<WorkoutExercise> convertDTOToWorkoutExercise(List<WorkoutExerciseDTO> dtoList, Workout workout) {
@@ -98,8 +256,11 @@ public class WorkoutService {
             workoutExercise.setRest(dto.getRest());
             workoutExercise.setWorkout(workout);
     
-            Exercise exercise = exerciseRepository.findByName(dto.getName())
-                    .orElseThrow(() -> new RuntimeException("Exercise not found: " + dto.getName()));
+            // validated against the in memory catalog, the exercise row itself is only needed as a foreign key
+            if (!exerciseCatalog.contains(dto.getName())) {
+                throw new RuntimeException("Exercise not found: " + dto.getName());
+            }
+            Exercise exercise = exerciseRepository.getReferenceById(dto.getName());
             workoutExercise.setExercise(exercise);
     
             workoutExerciseList.add(workoutExercise);
@@ -118,8 +279,10 @@ public class WorkoutService {
         workout.setLevel(workoutDTO.getLevel());
         workout.setCategory(WorkoutType.fromString(workoutDTO.getCategory()));
         workout.setWorkoutExercises(convertDTOToWorkoutExercise(workoutDTO.getWorkoutExercise(), workout));
+        workout.setUpdatedAt(LocalDateTime.now());
 
         Workout savedWorkout = workoutRepository.save(workout);
+        invalidateCatalogAfterCommit();
 
         return convertToDTO(savedWorkout);
     }
@@ -141,8 +304,11 @@ public class WorkoutService {
 
         // Update exercises
         existingWorkout.setWorkoutExercises(convertDTOToWorkoutExercise(workoutDTO.getWorkoutExercise(), existingWorkout));
+        // also set when only the exercises changed, those rows do not touch the workout row otherwise
+        existingWorkout.setUpdatedAt(LocalDateTime.now());
 
         Workout savedWorkout = workoutRepository.save(existingWorkout);
+        invalidateCatalogAfterCommit();
         return convertToDTO(savedWorkout);
     }
 
@@ -152,5 +318,6 @@ public class WorkoutService {
             .orElseThrow(() -> new RuntimeException("Workout not found"));
         
         workoutRepository.delete(workout);
+        invalidateCatalogAfterCommit();
     }
 }
\ No newline at end of file
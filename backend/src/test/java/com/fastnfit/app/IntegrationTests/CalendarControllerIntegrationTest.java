@@ -2,8 +2,10 @@ package com.fastnfit.app.IntegrationTests;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fastnfit.app.dto.CycleUpdateDTO;
+import com.fastnfit.app.model.History;
 import com.fastnfit.app.model.User;
 import com.fastnfit.app.model.UserDetails;
+import com.fastnfit.app.repository.HistoryRepository;
 import com.fastnfit.app.repository.UserRepository;
 import com.fastnfit.app.service.JwtService;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,7 +20,9 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -40,6 +44,9 @@ public class CalendarControllerIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private HistoryRepository historyRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -96,6 +103,23 @@ public class CalendarControllerIntegrationTest {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON));
     }
 
+    @Test
+    public void testGetWorkoutDatesForMonth_OneDatePerWorkoutDay() throws Exception {
+        createHistory("2024-03-15T08:00:00");
+        createHistory("2024-03-15T18:30:00");
+        createHistory("2024-03-20T10:00:00");
+        createHistory("2024-04-01T00:00:00"); // next month, not included
+
+        mockMvc.perform(get("/api/calendar/workout-dates")
+            .header("Authorization", "Bearer " + authToken)
+            .param("year", "2024")
+            .param("month", "3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0]").value("2024-03-15"))
+            .andExpect(jsonPath("$[1]").value("2024-03-20"));
+    }
+
     @Test
     public void testUpdateCycleInfo() throws Exception {
         CycleUpdateDTO cycleUpdateDTO = new CycleUpdateDTO();
@@ -138,4 +162,13 @@ public class CalendarControllerIntegrationTest {
             .param("month", "3"))
             .andExpect(status().isUnauthorized());
     }
+
+    private void createHistory(String dateTime) {
+        History history = new History();
+        history.setUser(testUser);
+        history.setCaloriesBurned(100);
+        history.setDurationInMinutes(20);
+        history.setWorkoutDateTime(Timestamp.valueOf(LocalDateTime.parse(dateTime)));
+        historyRepository.save(history);
+    }
 }
\ No newline at end of file
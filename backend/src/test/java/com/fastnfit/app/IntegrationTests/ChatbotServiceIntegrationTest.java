@@ -8,6 +8,7 @@ To run:
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fastnfit.app.dto.ChatRequestDTO;
 import com.fastnfit.app.dto.ChatbotResponseDTO;
 import com.fastnfit.app.dto.UserDetailsDTO;
 import com.fastnfit.app.dto.WorkoutDTO;
@@ -21,7 +22,6 @@ import com.fastnfit.app.repository.UserRepository;
 import com.fastnfit.app.service.ChatbotService;
 import com.fastnfit.app.repository.ChatHistoryRepository;
 
-import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
@@ -163,13 +163,8 @@ public class ChatbotServiceIntegrationTest {
                 dto.setMenstrualCramps(details.getMenstrualCramps());
 
                 // Create fullRequest payload
-                JSONObject fullRequest = new JSONObject();
-                fullRequest.put("message", "How many times a week do I exercise?");
-                fullRequest.put("exercises", List.of()); // no active workout
-                fullRequest.put("exercises_supported", List.of(
-                                Map.of("name", "Jumping Jacks"),
-                                Map.of("name", "Push Ups"),
-                                Map.of("name", "Squats")));
+                ChatRequestDTO fullRequest = new ChatRequestDTO(
+                                "How many times a week do I exercise?", List.of()); // no active workout
 
                 // Invoke chatbot
                 ChatbotResponseDTO response = chatbotService.getResponse(fullRequest, dto);
@@ -197,15 +192,9 @@ public class ChatbotServiceIntegrationTest {
                 dto.setMenstrualCramps(userDetails.getMenstrualCramps());
 
                 // create a full request
-                JSONObject fullRequest = new JSONObject();
-                fullRequest.put("message", "Make it easier");
-                fullRequest.put("exercises", List.of(
-                                Map.of("name", "Jumping Jacks", "duration", 40, "rest", 20),
-                                Map.of("name", "Push Ups", "duration", 40, "rest", 20)));
-                fullRequest.put("exercises_supported", List.of(
-                                Map.of("name", "Jumping Jacks"),
-                                Map.of("name", "Push Ups"),
-                                Map.of("name", "Squats")));
+                ChatRequestDTO fullRequest = new ChatRequestDTO("Make it easier", List.of(
+                                new ChatRequestDTO.Exercise("Jumping Jacks", 40, 20),
+                                new ChatRequestDTO.Exercise("Push Ups", 40, 20)));
 
                 // 🧠 Talk to AI
                 ChatbotResponseDTO response = chatbotService.getResponse(fullRequest, dto);
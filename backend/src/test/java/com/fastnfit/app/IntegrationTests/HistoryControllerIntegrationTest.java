@@ -3,7 +3,9 @@ package com.fastnfit.app.IntegrationTests;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fastnfit.app.dto.ActivityOverviewDTO;
 import com.fastnfit.app.dto.HistoryDTO;
+import com.fastnfit.app.dto.HistoryPageDTO;
 import com.fastnfit.app.dto.WorkoutDTO;
+import com.fastnfit.app.enums.ExportFormat;
 import com.fastnfit.app.enums.WorkoutLevel;
 import com.fastnfit.app.enums.WorkoutType;
 import com.fastnfit.app.model.History;
@@ -12,29 +14,46 @@ import com.fastnfit.app.model.Workout;
 import com.fastnfit.app.repository.HistoryRepository;
 import com.fastnfit.app.repository.UserRepository;
 import com.fastnfit.app.repository.WorkoutRepository;
+import com.fastnfit.app.service.HistoryExportService;
 import com.fastnfit.app.service.JwtService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.EntityManagerHolder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.sql.DataSource;
+
+import java.io.OutputStream;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -61,6 +80,15 @@ public class HistoryControllerIntegrationTest {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private HistoryExportService historyExportService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
     private User testUser;
     private Workout testWorkout;
     private String authToken;
@@ -144,12 +172,58 @@ public class HistoryControllerIntegrationTest {
                 .andReturn();
 
         // Parse response
-        List<?> historyList = objectMapper.readValue(
+        HistoryPageDTO page = objectMapper.readValue(
                 result.getResponse().getContentAsString(),
-                List.class);
+                HistoryPageDTO.class);
 
-        // Verify response contains the correct number of entries
-        assertEquals(3, historyList.size(), "Should return 3 history entries");
+        // Verify response contains the correct number of entries, all on one page
+        assertEquals(3, page.getItems().size(), "Should return 3 history entries");
+        assertNull(page.getNextCursor(), "Everything fits on the first page");
+        assertEquals("Test Workout", page.getItems().get(0).getName());
+    }
+
+    @Test
+    public void testGetUserHistory_PagesWithSameTimestamp() throws Exception {
+        // 7 workouts logged at the same moment, a time only cursor would skip or repeat some of them
+        Timestamp sameTime = Timestamp.valueOf(LocalDateTime.now().withNano(0));
+        for (int i = 0; i < 7; i++) {
+            History history = new History();
+            history.setUser(testUser);
+            history.setWorkout(testWorkout);
+            history.setCaloriesBurned(100);
+            history.setDurationInMinutes(20);
+            history.setWorkoutDateTime(sameTime);
+            historyRepository.save(history);
+        }
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MvcResult result = mockMvc.perform(get("/api/history/user/" + testUser.getUserId())
+                    .header("Authorization", "Bearer " + authToken)
+                    .param("limit", "3")
+                    .param("cursor", cursor == null ? "" : cursor))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            HistoryPageDTO page = objectMapper.readValue(result.getResponse().getContentAsString(), HistoryPageDTO.class);
+            for (HistoryDTO item : page.getItems()) {
+                assertTrue(seen.add(item.getHistoryId()), "History entry returned twice");
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(7, seen.size(), "Every history entry should be returned once");
+        assertEquals(3, pages);
+    }
+
+    @Test
+    public void testGetUserHistory_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/history/user/" + testUser.getUserId())
+                .header("Authorization", "Bearer " + authToken)
+                .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -219,12 +293,84 @@ public class HistoryControllerIntegrationTest {
                 .andReturn();
 
         // Parse response
-        List<?> historyList = objectMapper.readValue(
+        HistoryPageDTO page = objectMapper.readValue(
                 result.getResponse().getContentAsString(),
-                List.class);
+                HistoryPageDTO.class);
 
         // Verify response contains the requested number of entries
-        assertEquals(3, historyList.size(), "Should return 3 history entries");
+        assertEquals(3, page.getItems().size(), "Should return 3 history entries");
+        assertNotNull(page.getNextCursor(), "There are older entries to load");
+    }
+
+    @Test
+    public void testExportHistory_StreamsCsv() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/history/export")
+                .header("Authorization", "Bearer " + authToken)
+                .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith("text/csv")))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"history.csv\""))
+                .andExpect(content().string(startsWith("historyId,workoutDateTime")));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testExportHistory_HoldsNoConnectionWhileWriting() throws Exception {
+        // committed rows, so the export sees them on its own connection
+        for (int i = 0; i < 5; i++) {
+            History history = new History();
+            history.setUser(testUser);
+            history.setWorkout(testWorkout);
+            history.setCaloriesBurned(100 + i);
+            history.setDurationInMinutes(20 + i);
+            history.setWorkoutDateTime(Timestamp.valueOf(LocalDateTime.now().minusHours(i)));
+            historyRepository.save(history);
+        }
+
+        // what open-in-view does for the request: an entity manager bound to the thread that writes the body
+        TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                new EntityManagerHolder(entityManagerFactory.createEntityManager()));
+        HikariDataSource pool = (HikariDataSource) dataSource;
+        List<Integer> activeWhileWriting = new ArrayList<>();
+        StringBuilder written = new StringBuilder();
+        try {
+            historyExportService.export(testUser.getUserId(), ExportFormat.CSV, new OutputStream() {
+                @Override
+                public void write(int b) {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    activeWhileWriting.add(pool.getHikariPoolMXBean().getActiveConnections());
+                    written.append(new String(b, off, len));
+                }
+            });
+        } finally {
+            EntityManagerHolder holder =
+                    (EntityManagerHolder) TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            holder.getEntityManager().close();
+            historyRepository.deleteAll();
+            userRepository.deleteAll();
+            workoutRepository.deleteAll();
+        }
+
+        assertEquals(6, written.toString().split("\n").length);
+        assertTrue(written.toString().contains(",Test Workout,"));
+        assertFalse(activeWhileWriting.isEmpty());
+        assertTrue(activeWhileWriting.stream().allMatch(active -> active == 0), activeWhileWriting.toString());
+    }
+
+    @Test
+    public void testExportHistory_UnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/history/export")
+                .header("Authorization", "Bearer " + authToken)
+                .param("format", "xml"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
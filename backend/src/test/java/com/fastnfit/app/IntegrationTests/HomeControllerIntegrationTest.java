@@ -29,6 +29,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -84,6 +85,7 @@ public class HomeControllerIntegrationTest {
                 userDetails.setPregnancyStatus(PregnancyStatus.NO);
                 userDetails.setCurrentStreak(5);
                 userDetails.setLongestStreak(7);
+                userDetails.setLastWorkoutDate(LocalDate.now());
                 userDetailsRepository.save(userDetails);
 
                 // Create test workouts for different categories
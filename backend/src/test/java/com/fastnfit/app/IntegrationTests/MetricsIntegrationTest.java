@@ -0,0 +1,92 @@
+package com.fastnfit.app.IntegrationTests;
+
+import com.fastnfit.app.model.User;
+import com.fastnfit.app.repository.UserRepository;
+import com.fastnfit.app.service.JwtService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// a real server, the actuator endpoints are only served on the (here random) management port
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+@AutoConfigureMockMvc
+@AutoConfigureObservability // metrics export is off in tests unless asked for
+@ActiveProfiles("test")
+@Transactional
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private String authToken;
+
+    @BeforeEach
+    public void setup() {
+        User user = new User();
+        user.setEmail("metrics-test@example.com");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+        authToken = jwtService.generateToken(user.getUserId());
+    }
+
+    @Test
+    public void testPrometheusEndpoint_ExposesRequestAndStatementMetrics() throws Exception {
+        mockMvc.perform(get("/api/workouts").header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+
+        ResponseEntity<String> response = restTemplate.getForEntity(managementUrl("/actuator/prometheus"), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String body = response.getBody();
+
+        assertTrue(body.contains("http_server_requests_seconds_count{"), "request timer missing");
+        assertTrue(body.contains("http_server_requests_db_statements_count{"), "statement summary missing");
+        assertTrue(body.contains("uri=\"/api/workouts\""), "uri tag missing");
+        assertTrue(body.contains("auth_hashing_rejected_total"), "password hashing counter missing");
+        assertTrue(body.contains("openai_client_available_slots"), "openai slots gauge missing");
+    }
+
+    @Test
+    public void testHealthEndpoint_IsServedOnManagementPort() {
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity(managementUrl("/actuator/health"), String.class)
+                .getStatusCode());
+    }
+
+    @Test
+    public void testActuatorEndpoints_AreNotPublic() throws Exception {
+        // the public port has no actuator endpoints, and an anonymous request never gets past security
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        assertEquals(HttpStatus.UNAUTHORIZED, restTemplate.getForEntity("/actuator/prometheus", String.class)
+                .getStatusCode());
+    }
+
+    private String managementUrl(String path) {
+        return "http://localhost:" + managementPort + path;
+    }
+}
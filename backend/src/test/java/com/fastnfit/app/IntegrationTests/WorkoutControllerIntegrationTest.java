@@ -26,12 +26,17 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -112,6 +117,56 @@ public class WorkoutControllerIntegrationTest {
         assertNotNull(workouts, "Response should contain a list of workouts");
     }
 
+    @Test
+    public void testGetAllWorkouts_UnchangedCatalogReturnsNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/workouts")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        // same catalog, the client's copy is still valid
+        mockMvc.perform(get("/api/workouts")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        // a stale etag gets the full body again
+        mockMvc.perform(get("/api/workouts")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag));
+    }
+
+    @Test
+    public void testGetAllWorkouts_GzipWhenAccepted() throws Exception {
+        MvcResult plain = mockMvc.perform(get("/api/workouts")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn();
+
+        MvcResult gzipped = mockMvc.perform(get("/api/workouts")
+                .header("Authorization", "Bearer " + authToken)
+                .header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andReturn();
+
+        byte[] unzipped;
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(gzipped.getResponse().getContentAsByteArray()))) {
+            unzipped = in.readAllBytes();
+        }
+        assertArrayEquals(plain.getResponse().getContentAsByteArray(), unzipped);
+        assertNotEquals(plain.getResponse().getHeader("ETag"), gzipped.getResponse().getHeader("ETag"));
+    }
+
     @Test
     public void testGetWorkoutById_Success() throws Exception {
         // Get a workout ID from the service (assuming there's at least one workout)
@@ -6,11 +6,19 @@ import com.fastnfit.app.dto.WorkoutCompletionResponse;
 import com.fastnfit.app.dto.WorkoutDTO;
 import com.fastnfit.app.enums.WorkoutLevel;
 import com.fastnfit.app.enums.WorkoutType;
+import com.fastnfit.app.model.DailyActivity;
+import com.fastnfit.app.model.History;
 import com.fastnfit.app.model.User;
+import com.fastnfit.app.model.UserTotals;
 import com.fastnfit.app.model.Workout;
+import com.fastnfit.app.repository.DailyActivityRepository;
+import com.fastnfit.app.repository.HistoryRepository;
 import com.fastnfit.app.repository.UserRepository;
 import com.fastnfit.app.repository.WorkoutRepository;
+import com.fastnfit.app.service.DailyActivityService;
 import com.fastnfit.app.service.JwtService;
+import com.fastnfit.app.service.UserTotalsService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,9 +29,18 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -55,6 +72,21 @@ public class WorkoutProgressControllerIntegrationTest {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private DailyActivityService dailyActivityService;
+
+    @Autowired
+    private DailyActivityRepository dailyActivityRepository;
+
+    @Autowired
+    private HistoryRepository historyRepository;
+
+    @Autowired
+    private UserTotalsService userTotalsService;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private static final String TEST_EMAIL = "workout_test@example.com";
     private static final String TEST_PASSWORD = "password123";
 
@@ -179,4 +211,101 @@ public class WorkoutProgressControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isUnauthorized());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testConcurrentFirstWorkoutsOfTheDayAreAllCounted() throws Exception {
+        // daily_activity has no foreign key to users, a made up user keeps the committed rows apart from other tests
+        Long userId = 987654L;
+        LocalDate day = LocalDate.of(2025, 1, 15);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 5; round++) {
+                LocalDate date = day.plusDays(round);
+                CyclicBarrier start = new CyclicBarrier(threads);
+                List<Future<?>> calls = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    calls.add(pool.submit(() -> {
+                        start.await();
+                        dailyActivityService.recordWorkout(userId, date, 100, 10);
+                        return null;
+                    }));
+                }
+                // none of them may fail, that would have rolled back the history row with it
+                for (Future<?> call : calls) {
+                    call.get();
+                }
+
+                List<DailyActivity> rows = dailyActivityRepository
+                        .findByUserIdAndActivityDateBetweenOrderByActivityDateAsc(userId, date, date);
+                assertEquals(1, rows.size());
+                assertEquals(threads, rows.get(0).getWorkoutCount());
+                assertEquals(threads * 100, rows.get(0).getCaloriesBurned());
+            }
+        } finally {
+            pool.shutdown();
+            // setup ran without a transaction as well, nothing is rolled back for this test
+            userRepository.delete(testUser);
+            workoutRepository.delete(testWorkout);
+            dailyActivityRepository.deleteAll(dailyActivityRepository
+                    .findByUserIdAndActivityDateBetweenOrderByActivityDateAsc(userId, day, day.plusDays(5)));
+        }
+    }
+
+    @Test
+    public void testBackfillAddsOnlyMissingDaysAndIsIdempotent() {
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+        for (LocalDate day : List.of(yesterday, today)) {
+            History history = new History();
+            history.setUser(testUser);
+            history.setWorkout(testWorkout);
+            history.setCaloriesBurned(150);
+            history.setDurationInMinutes(20);
+            history.setWorkoutDateTime(Timestamp.valueOf(day.atTime(12, 0)));
+            historyRepository.save(history);
+        }
+        // today already has its row, e.g. a workout recorded before the backfill ran
+        dailyActivityService.recordWorkout(testUser.getUserId(), today, 150, 20);
+
+        dailyActivityService.backfillMissingDays();
+        dailyActivityService.backfillMissingDays();
+        entityManager.clear();
+
+        List<DailyActivity> days = dailyActivityRepository
+                .findByUserIdAndActivityDateBetweenOrderByActivityDateAsc(testUser.getUserId(), yesterday, today);
+        assertEquals(2, days.size());
+        assertEquals(150, days.get(0).getCaloriesBurned());
+        assertEquals(1, days.get(0).getWorkoutCount());
+        assertEquals(1, days.get(1).getWorkoutCount());
+    }
+
+    @Test
+    public void testReconcileRecomputesTotalsFromHistory() {
+        // a user created without a totals row, with two workouts the totals never saw
+        for (int i = 0; i < 2; i++) {
+            History history = new History();
+            history.setUser(testUser);
+            history.setWorkout(testWorkout);
+            history.setCaloriesBurned(150);
+            history.setDurationInMinutes(20);
+            history.setWorkoutDateTime(Timestamp.valueOf(LocalDateTime.now().minusDays(i)));
+            historyRepository.save(history);
+        }
+
+        assertTrue(userTotalsService.reconcile() >= 1);
+
+        UserTotals totals = userTotalsService.getTotals(testUser.getUserId());
+        assertEquals(2, totals.getWorkoutCount());
+        assertEquals(300, totals.getCaloriesBurned());
+        assertEquals(40, totals.getDurationInMinutes());
+
+        // recorded workouts add to the row that now exists
+        userTotalsService.recordWorkout(testUser.getUserId(), 50, 10);
+        entityManager.clear();
+        totals = userTotalsService.getTotals(testUser.getUserId());
+        assertEquals(3, totals.getWorkoutCount());
+        assertEquals(350, totals.getCaloriesBurned());
+    }
+}
@@ -0,0 +1,129 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.fastnfit.app.enums.AchievementMetric;
+import com.fastnfit.app.model.Achievement;
+import com.fastnfit.app.model.UserAchievement;
+import com.fastnfit.app.repository.AchievementRepository;
+import com.fastnfit.app.repository.UserAchievementRepository;
+import com.fastnfit.app.service.AchievementEngine;
+import com.fastnfit.app.service.UserAchievementService;
+
+public class AchievementEngineTest {
+
+    @Mock
+    private AchievementRepository achievementRepository;
+
+    @Mock
+    private UserAchievementRepository userAchievementRepository;
+
+    @Mock
+    private UserAchievementService userAchievementService;
+
+    private AchievementEngine achievementEngine;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(achievementRepository.findAll()).thenReturn(Arrays.asList(
+                achievement(1L, "5 Day Streak", AchievementMetric.STREAK, 5),
+                achievement(2L, "10 Workouts", AchievementMetric.WORKOUT_COUNT, 10),
+                achievement(3L, "30 Day Streak", AchievementMetric.STREAK, 30),
+                achievement(4L, "Welcome", null, null)));
+        when(userAchievementRepository.findByUserUserIdAndCompletedTrue(1L)).thenReturn(List.of());
+        when(userAchievementService.completeAchievement(anyLong(), anyLong())).thenReturn(true);
+        achievementEngine = new AchievementEngine(achievementRepository, userAchievementRepository,
+                userAchievementService, 100);
+    }
+
+    @Test
+    public void testCompletesRulesAtOrBelowValue() {
+        achievementEngine.evaluate(1L, AchievementMetric.STREAK, () -> 5);
+
+        verify(userAchievementService).completeAchievement(1L, 1L);
+        verify(userAchievementService, never()).completeAchievement(1L, 3L);
+    }
+
+    @Test
+    public void testCompletedRulesAreSkippedWithoutDatabase() {
+        achievementEngine.evaluate(1L, AchievementMetric.WORKOUT_COUNT, () -> 10);
+
+        AtomicInteger calls = new AtomicInteger();
+        achievementEngine.evaluate(1L, AchievementMetric.WORKOUT_COUNT, () -> {
+            calls.incrementAndGet();
+            return 11;
+        });
+
+        // the only workout count rule is done, the counter is not even computed
+        assertEquals(0, calls.get());
+        verify(userAchievementService, times(1)).completeAchievement(1L, 2L);
+        verify(userAchievementRepository, times(1)).findByUserUserIdAndCompletedTrue(1L);
+        verify(achievementRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void testAlreadyCompletedInDatabaseIsSkipped() {
+        UserAchievement done = new UserAchievement();
+        done.setAchievement(achievement(1L, "5 Day Streak", AchievementMetric.STREAK, 5));
+        done.setCompleted(true);
+        when(userAchievementRepository.findByUserUserIdAndCompletedTrue(2L)).thenReturn(List.of(done));
+
+        achievementEngine.evaluate(2L, AchievementMetric.STREAK, () -> 6);
+
+        verify(userAchievementService, never()).completeAchievement(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testMetricWithoutRulesDoesNothing() {
+        achievementEngine.evaluate(1L, AchievementMetric.CALORIES, () -> {
+            throw new AssertionError("counter should not be computed");
+        });
+
+        verifyNoInteractions(userAchievementRepository, userAchievementService);
+    }
+
+    @Test
+    public void testRefreshPicksUpNewRules() {
+        achievementEngine.evaluate(1L, AchievementMetric.CALORIES, () -> 1000);
+        verify(userAchievementService, never()).completeAchievement(anyLong(), anyLong());
+
+        when(achievementRepository.findAll()).thenReturn(Arrays.asList(
+                achievement(5L, "Burn 1000 Calories", AchievementMetric.CALORIES, 1000)));
+        achievementEngine.refresh();
+        achievementEngine.evaluate(1L, AchievementMetric.CALORIES, () -> 1000);
+
+        verify(userAchievementService).completeAchievement(1L, 5L);
+    }
+
+    @Test
+    public void testNotCachedWhenNothingWasCompleted() {
+        when(userAchievementService.completeAchievement(1L, 2L)).thenReturn(false, true);
+
+        achievementEngine.evaluate(1L, AchievementMetric.WORKOUT_COUNT, () -> 10);
+        achievementEngine.evaluate(1L, AchievementMetric.WORKOUT_COUNT, () -> 10);
+        achievementEngine.evaluate(1L, AchievementMetric.WORKOUT_COUNT, () -> 10);
+
+        // first attempt did not complete a row, so the rule stays open until one did
+        verify(userAchievementService, times(2)).completeAchievement(1L, 2L);
+    }
+
+    private Achievement achievement(Long id, String title, AchievementMetric metric, Integer threshold) {
+        Achievement achievement = new Achievement();
+        achievement.setAchievementId(id);
+        achievement.setTitle(title);
+        achievement.setMetric(metric);
+        achievement.setThreshold(threshold);
+        return achievement;
+    }
+}
@@ -2,6 +2,7 @@ package com.fastnfit.app.UnitTests;
 
 import com.fastnfit.app.model.Achievement;
 import com.fastnfit.app.repository.AchievementRepository;
+import com.fastnfit.app.service.AchievementEngine;
 import com.fastnfit.app.service.AchievementService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -24,6 +25,9 @@ public class AchievementServiceTest {
     @Mock
     private AchievementRepository achievementRepository;
 
+    @Mock
+    private AchievementEngine achievementEngine;
+
     @InjectMocks
     private AchievementService achievementService;
 
@@ -147,6 +151,7 @@ public class AchievementServiceTest {
         // Assert
         assertEquals(updatedAchievement, result);
         verify(achievementRepository).save(updatedAchievement);
+        verify(achievementEngine).refresh();
     }
 
     @Test
@@ -156,5 +161,6 @@ public class AchievementServiceTest {
 
         // Assert
         verify(achievementRepository).deleteById(1L);
+        verify(achievementEngine).refresh();
     }
 }
\ No newline at end of file
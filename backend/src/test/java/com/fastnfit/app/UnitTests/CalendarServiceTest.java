@@ -2,6 +2,7 @@ package com.fastnfit.app.UnitTests;
 
 import com.fastnfit.app.dto.CycleInfoDTO;
 import com.fastnfit.app.dto.CycleUpdateDTO;
+import com.fastnfit.app.dto.DailySummaryDTO;
 import com.fastnfit.app.model.User;
 import com.fastnfit.app.model.UserDetails;
 import com.fastnfit.app.repository.HistoryRepository;
@@ -59,18 +60,14 @@ public class CalendarServiceTest {
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
 
-        // Mock history repository return
-        com.fastnfit.app.model.History history1 = mock(com.fastnfit.app.model.History.class);
-        com.fastnfit.app.model.History history2 = mock(com.fastnfit.app.model.History.class);
-
-        when(history1.getWorkoutDateTime()).thenReturn(Timestamp.valueOf("2024-03-15 10:00:00"));
-        when(history2.getWorkoutDateTime()).thenReturn(Timestamp.valueOf("2024-03-20 14:30:00"));
-
-        when(historyRepository.findByUserAndWorkoutDateTimeBetween(
-                eq(testUser), 
+        // Mock grouped history query return
+        when(historyRepository.findDailySummaries(
+                eq(userId), 
                 any(Timestamp.class), 
                 any(Timestamp.class)
-        )).thenReturn(Arrays.asList(history1, history2));
+        )).thenReturn(Arrays.asList(
+                new DailySummaryDTO(LocalDate.of(2024, 3, 15), 200L, 30L, 1L),
+                new DailySummaryDTO(LocalDate.of(2024, 3, 20), 350L, 45L, 2L)));
 
         // Act
         List<LocalDate> workoutDates = calendarService.getWorkoutDatesForMonth(userId, year, month);
@@ -81,8 +78,8 @@ public class CalendarServiceTest {
         assertTrue(workoutDates.contains(LocalDate.of(2024, 3, 20)));
         
         verify(userRepository).findById(userId);
-        verify(historyRepository).findByUserAndWorkoutDateTimeBetween(
-                eq(testUser), 
+        verify(historyRepository).findDailySummaries(
+                eq(userId), 
                 any(Timestamp.class), 
                 any(Timestamp.class)
         );
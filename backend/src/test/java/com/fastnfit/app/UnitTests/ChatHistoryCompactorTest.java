@@ -0,0 +1,214 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.json.JSONObject;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fastnfit.app.model.ChatHistory;
+import com.fastnfit.app.model.ChatSummary;
+import com.fastnfit.app.model.User;
+import com.fastnfit.app.repository.ChatHistoryRepository;
+import com.fastnfit.app.repository.ChatSummaryRepository;
+import com.fastnfit.app.repository.UserRepository;
+import com.fastnfit.app.service.ChatHistoryCompactor;
+import com.fastnfit.app.service.ChatHistoryWriter;
+import com.fastnfit.app.service.ChatMetrics;
+import com.fastnfit.app.service.OpenAiClient;
+import com.fastnfit.app.service.OpenAiPayloads;
+
+public class ChatHistoryCompactorTest {
+
+    @Mock
+    private ChatHistoryRepository chatHistoryRepository;
+
+    @Mock
+    private ChatSummaryRepository chatSummaryRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OpenAiClient openAiClient;
+
+    @Mock
+    private ChatHistoryWriter chatHistoryWriter;
+
+    @Mock
+    private ChatMetrics chatMetrics;
+
+    @Spy
+    private OpenAiPayloads openAiPayloads = new OpenAiPayloads(new ObjectMapper());
+
+    @InjectMocks
+    private ChatHistoryCompactor chatHistoryCompactor;
+
+    private User testUser;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(chatHistoryCompactor, "tokenBudget", 100);
+        ReflectionTestUtils.setField(chatHistoryCompactor, "maxMessages", 20);
+        ReflectionTestUtils.setField(chatHistoryCompactor, "summaryMaxWords", 150);
+        ReflectionTestUtils.setField(chatHistoryCompactor, "foldMaxMessages", 50);
+        ReflectionTestUtils.setField(chatHistoryCompactor, "foldMaxTokens", 4000);
+
+        testUser = new User();
+        testUser.setUserId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+    }
+
+    // 36 characters of content = 9 tokens + 4 overhead = 13 tokens per message
+    private ChatHistory message(long id, String role) {
+        return ChatHistory.builder()
+                .id(id)
+                .user(testUser)
+                .role(role)
+                .content("a".repeat(36))
+                .timestamp(LocalDateTime.now().minusMinutes(100 - id))
+                .build();
+    }
+
+    private List<ChatHistory> messages(int count) {
+        List<ChatHistory> list = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            list.add(message(i, i % 2 == 1 ? "user" : "assistant"));
+        }
+        return list;
+    }
+
+    // unsummarized messages after lastMessageId, served a page at a time like the repository does
+    private void history(long lastMessageId, List<ChatHistory> messages) {
+        when(chatHistoryRepository.findByUserAndIdGreaterThanOrderByIdAsc(eq(testUser), eq(lastMessageId), any()))
+                .thenAnswer(invocation -> {
+                    Pageable page = invocation.getArgument(2);
+                    return messages.subList(0, Math.min(page.getPageSize(), messages.size()));
+                });
+        when(chatHistoryRepository.findByUserAndIdGreaterThanOrderByIdDesc(eq(testUser), eq(lastMessageId), any()))
+                .thenAnswer(invocation -> {
+                    Pageable page = invocation.getArgument(2);
+                    List<ChatHistory> newestFirst = new ArrayList<>(messages);
+                    Collections.reverse(newestFirst);
+                    return newestFirst.subList(0, Math.min(page.getPageSize(), newestFirst.size()));
+                });
+    }
+
+    private void summaryReply(String summary) {
+        JSONObject response = new JSONObject().put("choices", List.of(
+                Map.of("message", Map.of("content", summary))));
+        when(openAiClient.complete(anyString())).thenReturn(response.toString());
+    }
+
+    @Test
+    public void testLoadWindowKeepsNewestMessagesWithinBudget() {
+        List<ChatHistory> newestFirst = new ArrayList<>(messages(10));
+        Collections.reverse(newestFirst);
+        when(chatSummaryRepository.findById(1L)).thenReturn(Optional.empty());
+        when(chatHistoryRepository.findByUserOrderByTimestampDesc(eq(testUser), any())).thenReturn(newestFirst);
+
+        ChatHistoryCompactor.HistoryWindow window = chatHistoryCompactor.loadWindow(testUser);
+
+        // 7 * 13 = 91 fits in 100, 8 would not
+        assertNull(window.getSummary());
+        assertEquals(7, window.getMessages().size());
+        assertEquals(4L, window.getMessages().get(0).getId());
+        assertEquals(10L, window.getMessages().get(6).getId());
+        assertEquals(91, window.getMessageTokens());
+    }
+
+    @Test
+    public void testLoadWindowUsesSummaryAndOnlyLaterMessages() {
+        ChatSummary summary = ChatSummary.builder().userId(1L).summary("b".repeat(40)).lastMessageId(5L).build();
+        when(chatSummaryRepository.findById(1L)).thenReturn(Optional.of(summary));
+        when(chatHistoryRepository.findByUserAndIdGreaterThanOrderByTimestampDesc(eq(testUser), eq(5L), any()))
+                .thenReturn(List.of(message(7, "user"), message(6, "assistant")));
+
+        ChatHistoryCompactor.HistoryWindow window = chatHistoryCompactor.loadWindow(testUser);
+
+        assertEquals(summary.getSummary(), window.getSummary());
+        assertEquals(2, window.getMessages().size());
+        assertEquals(6L, window.getMessages().get(0).getId());
+        verify(chatHistoryRepository, never()).findByUserOrderByTimestampDesc(any(), any());
+    }
+
+    @Test
+    public void testCompactSkipsWhenWithinBudget() {
+        when(chatSummaryRepository.findById(1L)).thenReturn(Optional.empty());
+        history(0L, messages(4));
+
+        chatHistoryCompactor.compact(1L);
+
+        verifyNoInteractions(openAiClient);
+        verify(chatSummaryRepository, never()).save(any());
+    }
+
+    @Test
+    public void testCompactFoldsOlderMessagesIntoSummary() {
+        when(chatSummaryRepository.findById(1L)).thenReturn(Optional.empty());
+        history(0L, messages(10));
+        summaryReply("Wants short HIIT workouts.");
+
+        chatHistoryCompactor.compact(1L);
+
+        // 130 tokens > 100, keep the newest 3 (39 tokens <= 50), fold 1..7
+        ArgumentCaptor<ChatSummary> captor = ArgumentCaptor.forClass(ChatSummary.class);
+        verify(chatSummaryRepository).save(captor.capture());
+        assertEquals("Wants short HIIT workouts.", captor.getValue().getSummary());
+        assertEquals(7L, captor.getValue().getLastMessageId());
+        assertEquals(1L, captor.getValue().getUserId());
+    }
+
+    @Test
+    public void testCompactFoldsLongHistoryOnePageAtATime() {
+        // a long history from before the summary existed
+        ReflectionTestUtils.setField(chatHistoryCompactor, "foldMaxMessages", 5);
+        when(chatSummaryRepository.findById(1L)).thenReturn(Optional.empty());
+        history(0L, messages(200));
+        summaryReply("First part.");
+
+        chatHistoryCompactor.compact(1L);
+
+        // only the oldest page is folded, the next pass starts after it
+        ArgumentCaptor<ChatSummary> captor = ArgumentCaptor.forClass(ChatSummary.class);
+        verify(chatSummaryRepository).save(captor.capture());
+        assertEquals(5L, captor.getValue().getLastMessageId());
+        verify(openAiClient, times(1)).complete(anyString());
+        verify(chatHistoryRepository, never()).findByUserAndIdGreaterThanOrderByTimestampDesc(any(), any(), any());
+    }
+
+    @Test
+    public void testCompactFoldsAtMostTheTokenLimit() {
+        ReflectionTestUtils.setField(chatHistoryCompactor, "foldMaxTokens", 30);
+        ChatSummary summary = ChatSummary.builder().userId(1L).summary("Earlier part.").lastMessageId(5L).build();
+        when(chatSummaryRepository.findById(1L)).thenReturn(Optional.of(summary));
+        history(5L, messages(200).subList(5, 200));
+        summaryReply("Earlier and next part.");
+
+        chatHistoryCompactor.compact(1L);
+
+        // 2 * 13 = 26 fits in 30, a third would not
+        ArgumentCaptor<ChatSummary> captor = ArgumentCaptor.forClass(ChatSummary.class);
+        verify(chatSummaryRepository).save(captor.capture());
+        assertEquals(7L, captor.getValue().getLastMessageId());
+        assertEquals("Earlier and next part.", captor.getValue().getSummary());
+    }
+}
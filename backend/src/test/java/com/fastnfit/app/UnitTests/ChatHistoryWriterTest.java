@@ -0,0 +1,111 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fastnfit.app.model.ChatHistory;
+import com.fastnfit.app.model.User;
+import com.fastnfit.app.repository.ChatHistoryRepository;
+import com.fastnfit.app.service.ChatHistoryWriter;
+
+public class ChatHistoryWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ChatHistoryRepository chatHistoryRepository;
+
+    private ChatHistoryWriter writer;
+    private User testUser;
+    private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        testUser = new User();
+        testUser.setUserId(1L);
+
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<ChatHistory> batch = invocation.getArgument(1);
+                    batch.forEach(message -> written.add(message.getContent()));
+                    return new int[0][0];
+                });
+
+        writer = new ChatHistoryWriter(jdbcTemplate, transactionManager, chatHistoryRepository, 100, 10, 100, 2000);
+        writer.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writer.shutdown();
+    }
+
+    private ChatHistory message(String content) {
+        return ChatHistory.builder()
+                .user(testUser)
+                .role("user")
+                .content(content)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    public void testMessagesAreWrittenInOrderBeforeAwaitFlushedReturns() {
+        for (int i = 0; i < 25; i++) {
+            writer.enqueue(message("message " + i));
+        }
+
+        writer.awaitFlushed(1L);
+
+        assertEquals(25, written.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals("message " + i, written.get(i));
+        }
+        verify(chatHistoryRepository, never()).save(any());
+    }
+
+    @Test
+    public void testShutdownFlushesPendingMessages() {
+        writer.enqueue(message("first"));
+        writer.enqueue(message("second"));
+
+        writer.shutdown();
+
+        assertEquals(List.of("first", "second"), written);
+        assertEquals(0, writer.getQueuedCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedBatchFallsBackToSingleInserts() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("batch failed"));
+
+        writer.enqueue(message("only"));
+        writer.awaitFlushed(1L);
+
+        verify(chatHistoryRepository).save(argThat(message -> message.getContent().equals("only")));
+    }
+}
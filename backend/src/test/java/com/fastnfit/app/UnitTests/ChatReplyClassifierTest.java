@@ -0,0 +1,145 @@
+package com.fastnfit.app.UnitTests;
+
+//./mvnw test "-Dtest=ChatReplyClassifierTest"
+
+import com.fastnfit.app.service.ChatReplyClassifier;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChatReplyClassifierTest {
+
+    private static final String WORKOUT_REPLY = "<BEGIN_JSON>\n{ \"name\": \"Core\" }\n<END_JSON>\n"
+            + "Here's a quick workout!\n"
+            + "**Main Workout**\n"
+            + "• Plank - 40 seconds work, 20 seconds rest\n"
+            + "• Push-ups - 30 seconds work, 15 seconds rest\n"
+            + "• Crunches - 45 seconds work, 15 seconds rest\n"
+            + "**Cool Down**\nStretch.";
+
+    @Test
+    void findsJsonBlockBoundaries() {
+        ChatReplyClassifier.Classification shape = ChatReplyClassifier.classify(WORKOUT_REPLY);
+
+        assertTrue(shape.hasJsonBlock());
+        assertFalse(shape.isJsonUnclosed());
+        assertEquals("{ \"name\": \"Core\" }",
+                WORKOUT_REPLY.substring(shape.getJsonStart(), shape.getJsonEnd()).trim());
+        assertTrue(WORKOUT_REPLY.substring(shape.getBlockEnd()).startsWith("\nHere's a quick workout!"));
+    }
+
+    @Test
+    void beginWithoutEndIsUnclosed() {
+        ChatReplyClassifier.Classification shape = ChatReplyClassifier.classify("<BEGIN_JSON>{ \"name\": ");
+
+        assertTrue(shape.isJsonUnclosed());
+        assertFalse(shape.hasJsonBlock());
+    }
+
+    @Test
+    void countsBulletLinesAndKeywords() {
+        ChatReplyClassifier.Classification shape = ChatReplyClassifier.classify(WORKOUT_REPLY);
+
+        assertEquals(3, shape.getWorkoutBullets());
+        // here's a quick workout, main workout, cool down
+        assertEquals(3, shape.getKeywordMatches());
+        assertTrue(shape.looksLikeWorkout());
+    }
+
+    @Test
+    void keywordsIgnoreCaseAndMarkdown() {
+        ChatReplyClassifier.Classification shape = ChatReplyClassifier.classify("**MAIN** __workout__ then a _Warm-Up_");
+
+        assertEquals(2, shape.getKeywordMatches());
+        assertTrue(shape.looksLikeWorkout());
+    }
+
+    @Test
+    void conversationalReplyDoesNotLookLikeWorkout() {
+        ChatReplyClassifier.Classification shape = ChatReplyClassifier.classify(
+                "Burpees are a full-body exercise. Do a warm-up first and rest 20 seconds between sets.");
+
+        assertEquals(1, shape.getKeywordMatches());
+        assertEquals(0, shape.getWorkoutBullets());
+        assertFalse(shape.looksLikeWorkout());
+    }
+
+    @Test
+    void bulletsNeedTheWholeTimingFormat() {
+        ChatReplyClassifier.Classification shape = ChatReplyClassifier.classify(
+                "• Plank - 40 seconds work\n• - 40 seconds work, 20 seconds rest\n•Plank - 40 seconds work, 20 seconds rest\n"
+                        + "• Plank - 40 seconds work, 20 seconds rest");
+
+        assertEquals(1, shape.getWorkoutBullets());
+    }
+
+    @Test
+    void chunkedFeedGivesTheSameResult() {
+        ChatReplyClassifier.Classification whole = ChatReplyClassifier.classify(WORKOUT_REPLY);
+
+        for (int size = 1; size <= 13; size++) {
+            ChatReplyClassifier classifier = new ChatReplyClassifier();
+            for (int i = 0; i < WORKOUT_REPLY.length(); i += size) {
+                classifier.feed(WORKOUT_REPLY.substring(i, Math.min(WORKOUT_REPLY.length(), i + size)));
+            }
+            ChatReplyClassifier.Classification chunked = classifier.finish();
+
+            assertEquals(whole.getJsonStart(), chunked.getJsonStart());
+            assertEquals(whole.getJsonEnd(), chunked.getJsonEnd());
+            assertEquals(whole.getBlockEnd(), chunked.getBlockEnd());
+            assertEquals(whole.getKeywordMatches(), chunked.getKeywordMatches());
+            assertEquals(whole.getWorkoutBullets(), chunked.getWorkoutBullets());
+        }
+    }
+
+    @Test
+    void agreesWithTheRegexChecksItReplaced() {
+        List<String> pieces = List.of("Main Workout", "**main workout**", "warm-up", "Cool Down", "cool-down",
+                "Would you like to try this workout?", "Here's a quick workout", "• Squats - 40 seconds work, 20 seconds rest",
+                "• Squats - 40 seconds work", "\n", " ", "rest", "<BEGIN_JSON>", "<END_JSON>", "{}", "cool", "_");
+        Random random = new Random(42);
+
+        for (int run = 0; run < 2000; run++) {
+            StringBuilder reply = new StringBuilder();
+            int count = random.nextInt(12);
+            for (int i = 0; i < count; i++) {
+                reply.append(pieces.get(random.nextInt(pieces.size())));
+                if (random.nextBoolean()) reply.append('\n');
+            }
+            String text = reply.toString();
+            ChatReplyClassifier.Classification shape = ChatReplyClassifier.classify(text);
+
+            assertEquals(regexLooksLikeWorkout(text), shape.looksLikeWorkout(), text);
+            Matcher block = Pattern.compile("<BEGIN_JSON>\\s*([\\s\\S]*?)\\s*<END_JSON>").matcher(text);
+            if (block.find()) {
+                assertTrue(shape.hasJsonBlock(), text);
+                assertEquals(block.group(1).trim(), text.substring(shape.getJsonStart(), shape.getJsonEnd()).trim());
+                assertEquals(block.end(), shape.getBlockEnd());
+            } else {
+                assertFalse(shape.hasJsonBlock(), text);
+                assertEquals(text.contains("<BEGIN_JSON>"), shape.isJsonUnclosed(), text);
+            }
+        }
+    }
+
+    // what ChatbotService did before the classifier
+    private static boolean regexLooksLikeWorkout(String text) {
+        String cleaned = text.toLowerCase().replaceAll("[*_]{1,2}", "");
+        int keywords = 0;
+        for (String keyword : List.of("main workout", "warm-up", "cool down", "would you like to try this workout?",
+                "here's a quick workout", "cool-down")) {
+            if (cleaned.contains(keyword)) keywords++;
+        }
+        Matcher bullets = Pattern.compile("•\\s+.+\\s-\\s\\d+\\sseconds work,\\s\\d+\\sseconds rest",
+                Pattern.CASE_INSENSITIVE).matcher(text);
+        int bulletCount = 0;
+        while (bullets.find()) bulletCount++;
+        return bulletCount >= 3 || keywords >= 2;
+    }
+}
@@ -0,0 +1,83 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import com.fastnfit.app.service.ChatReplyRepairer;
+
+public class ChatReplyRepairerTest {
+
+    private static final Set<String> EXERCISES = Set.of("Jumping Jacks", "Bodyweight Squats", "Plank", "Lunges");
+
+    private final ChatReplyRepairer repairer = new ChatReplyRepairer();
+
+    private JSONObject workoutJson(String repaired) {
+        int start = repaired.indexOf("<BEGIN_JSON>") + "<BEGIN_JSON>".length();
+        int end = repaired.indexOf("<END_JSON>");
+        return new JSONObject(repaired.substring(start, end));
+    }
+
+    @Test
+    public void testRepairsMissingEndTagAndTrailingComma() {
+        String reply = "<BEGIN_JSON>\n{ \"name\": \"Legs\", \"workoutExercise\": ["
+                + "{ \"name\": \"Lunges\", \"duration\": 40, \"rest\": 20 },"
+                + "{ \"name\": \"Plank\", \"duration\": 40, \"rest\": 20 },\n] }\nHave fun!";
+
+        String repaired = repairer.repair(reply, EXERCISES);
+
+        assertNotNull(repaired);
+        assertTrue(repaired.contains("<END_JSON>"));
+        assertTrue(repaired.endsWith("Have fun!"));
+        assertEquals(2, workoutJson(repaired).getInt("durationInMinutes"));
+    }
+
+    @Test
+    public void testRepairsSmartQuotesTagVariantsAndCodeFences() {
+        String reply = "<BEGIN JSON>```json\n{ “name”: “Legs”, “workoutExercise”: ["
+                + "{ “name”: “Lunges”, “duration”: 30, “rest”: 30 }] }\n```</END_JSON>\nEnjoy";
+
+        String repaired = repairer.repair(reply, EXERCISES);
+
+        assertNotNull(repaired);
+        assertEquals("Lunges", workoutJson(repaired).getJSONArray("workoutExercise").getJSONObject(0).getString("name"));
+        assertEquals(1, workoutJson(repaired).getInt("durationInMinutes"));
+    }
+
+    @Test
+    public void testFuzzyMatchesExerciseNamesAndFixesText() {
+        String reply = "<BEGIN_JSON>{ \"name\": \"Mix\", \"durationInMinutes\": 9, \"workoutExercise\": ["
+                + "{ \"name\": \"Body weight squats\", \"duration\": 40, \"rest\": 20 },"
+                + "{ \"name\": \"Jumpin Jacks\", \"duration\": 40, \"rest\": 20 }] }<END_JSON>\n"
+                + "• Jumpin Jacks - 40 seconds work";
+
+        String repaired = repairer.repair(reply, EXERCISES);
+
+        assertNotNull(repaired);
+        JSONObject json = workoutJson(repaired);
+        assertEquals("Bodyweight Squats", json.getJSONArray("workoutExercise").getJSONObject(0).getString("name"));
+        assertEquals("Jumping Jacks", json.getJSONArray("workoutExercise").getJSONObject(1).getString("name"));
+        assertEquals(2, json.getInt("durationInMinutes"));
+        assertTrue(repaired.contains("• Jumping Jacks - 40 seconds work"));
+    }
+
+    @Test
+    public void testGivesUpOnUnknownExercisesAndMissingJson() {
+        String unknown = "<BEGIN_JSON>{ \"name\": \"X\", \"workoutExercise\": ["
+                + "{ \"name\": \"Deadlift\", \"duration\": 40, \"rest\": 20 }] }<END_JSON>";
+
+        assertNull(repairer.repair(unknown, EXERCISES));
+        assertNull(repairer.repair("Here's a quick workout for you!", EXERCISES));
+        assertNull(repairer.repair("<BEGIN_JSON>{ not json at all <END_JSON>", EXERCISES));
+    }
+
+    @Test
+    public void testClosestName() {
+        assertEquals("Plank", ChatReplyRepairer.closestName("PLANK", EXERCISES));
+        assertEquals("Lunges", ChatReplyRepairer.closestName("Lunge", EXERCISES));
+        assertNull(ChatReplyRepairer.closestName("Burpees", EXERCISES));
+    }
+}
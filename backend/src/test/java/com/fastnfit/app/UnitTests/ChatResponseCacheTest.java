@@ -0,0 +1,87 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fastnfit.app.dto.UserDetailsDTO;
+import com.fastnfit.app.enums.FitnessLevel;
+import com.fastnfit.app.service.ChatResponseCache;
+
+public class ChatResponseCacheTest {
+
+    private ChatResponseCache cache;
+    private UserDetailsDTO profile;
+
+    @BeforeEach
+    public void setup() {
+        cache = new ChatResponseCache(2, 60);
+
+        profile = new UserDetailsDTO();
+        profile.setFitnessLevel(FitnessLevel.Beginner);
+        profile.setPregnancyStatus("NO");
+        profile.setWorkoutType("HIIT");
+    }
+
+    @Test
+    public void testNormalizeIgnoresFillerWordsAndPunctuation() {
+        assertEquals(ChatResponseCache.normalize("Give me a 7 minute workout!"),
+                ChatResponseCache.normalize("7 min workout please"));
+        assertEquals(ChatResponseCache.normalize("Something gentle today"),
+                ChatResponseCache.normalize("gentle"));
+        assertNotEquals(ChatResponseCache.normalize("gentle workout"),
+                ChatResponseCache.normalize("intense workout"));
+    }
+
+    @Test
+    public void testNormalizeKeepsWordOrder() {
+        assertEquals("10 minute workout not 7", ChatResponseCache.normalize("10 minutes workout, not 7"));
+        assertNotEquals(ChatResponseCache.normalize("10 minute workout not 7"),
+                ChatResponseCache.normalize("7 minute workout not 10"));
+        assertNotEquals(ChatResponseCache.normalize("no jumping only squats"),
+                ChatResponseCache.normalize("only jumping no squats"));
+    }
+
+    @Test
+    public void testKeyDependsOnProfileBucketAndVersion() {
+        String key = cache.buildKey("7 minute workout", profile, "1.1", false);
+        assertEquals(key, cache.buildKey("give me a 7 minute workout", profile, "1.1", false));
+        assertNotEquals(key, cache.buildKey("7 minute workout", profile, "1.2", false));
+
+        profile.setFitnessLevel(FitnessLevel.Advanced);
+        assertNotEquals(key, cache.buildKey("7 minute workout", profile, "1.1", false));
+    }
+
+    @Test
+    public void testNoKeyWithCurrentWorkoutOrEmptyMessage() {
+        assertNull(cache.buildKey("7 minute workout", profile, "1.1", true));
+        assertNull(cache.buildKey("please!", profile, "1.1", false));
+    }
+
+    @Test
+    public void testHitsMissesAndLruEviction() {
+        assertNull(cache.get("a"));
+        cache.put("a", "reply a");
+        cache.put("b", "reply b");
+        assertEquals("reply a", cache.get("a")); // a is now most recently used
+
+        cache.put("c", "reply c"); // evicts b
+
+        assertNull(cache.get("b"));
+        assertEquals("reply c", cache.get("c"));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testExpiredEntriesAreMisses() {
+        ChatResponseCache expiring = new ChatResponseCache(10, 0);
+        expiring.put("a", "reply a");
+
+        assertNull(expiring.get("a"));
+        assertEquals(0, expiring.size());
+    }
+}
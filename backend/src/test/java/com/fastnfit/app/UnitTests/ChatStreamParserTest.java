@@ -0,0 +1,73 @@
+package com.fastnfit.app.UnitTests;
+
+//./mvnw test "-Dtest=ChatStreamParserTest"
+
+import com.fastnfit.app.service.ChatStreamParser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChatStreamParserTest {
+
+    private StringBuilder text;
+    private List<String> jsonBlocks;
+    private ChatStreamParser parser;
+
+    @BeforeEach
+    void setUp() {
+        text = new StringBuilder();
+        jsonBlocks = new ArrayList<>();
+        parser = new ChatStreamParser(text::append, jsonBlocks::add);
+    }
+
+    @Test
+    void plainTextIsForwardedAsItArrives() {
+        parser.feed("Burpees are ");
+        parser.feed("a full-body exercise.");
+        parser.finish();
+
+        assertEquals("Burpees are a full-body exercise.", text.toString());
+        assertTrue(jsonBlocks.isEmpty());
+        assertFalse(parser.isJsonCompleted());
+    }
+
+    @Test
+    void jsonBlockSplitAcrossChunksIsEmittedOnce() {
+        parser.feed("<BEGIN_");
+        parser.feed("JSON>\n{ \"name\": ");
+        parser.feed("\"Full Body Blast\" }\n<END_J");
+        parser.feed("SON>\nHere's a quick workout");
+        parser.finish();
+
+        assertEquals(1, jsonBlocks.size());
+        assertEquals("{ \"name\": \"Full Body Blast\" }", jsonBlocks.get(0));
+        assertEquals("\nHere's a quick workout", text.toString());
+        assertTrue(parser.isJsonCompleted());
+    }
+
+    @Test
+    void partialTagIsHeldBackUntilResolved() {
+        parser.feed("Less than <BEG");
+        assertEquals("Less than ", text.toString());
+
+        parser.feed("IN soon");
+        parser.finish();
+        assertEquals("Less than <BEGIN soon", text.toString());
+        assertTrue(jsonBlocks.isEmpty());
+    }
+
+    @Test
+    void missingEndTagDoesNotLeakJsonAsText() {
+        parser.feed("<BEGIN_JSON>{ \"name\": \"Unfinished\"");
+        parser.finish();
+
+        assertEquals("", text.toString());
+        assertTrue(jsonBlocks.isEmpty());
+        assertEquals("<BEGIN_JSON>{ \"name\": \"Unfinished\"", parser.getFullReply());
+    }
+}
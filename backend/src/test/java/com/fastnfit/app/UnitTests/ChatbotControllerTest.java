@@ -24,6 +24,7 @@ import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfigurat
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -36,6 +37,7 @@ import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -64,6 +66,9 @@ public class ChatbotControllerTest {
     @MockBean
     private WorkoutService workoutService;
 
+    @MockBean(name = "chatStreamExecutor")
+    private TaskExecutor chatStreamExecutor;
+
     @MockBean
     private JwtConfig jwtConfig;
     @MockBean
@@ -101,7 +106,7 @@ public class ChatbotControllerTest {
         mockResponse.setWorkout(null);
 
         Mockito.when(userService.getUserDetails(1L)).thenReturn(mockUserDetails);
-        Mockito.when(chatbotService.getResponse(any(org.json.JSONObject.class), any()))
+        Mockito.when(chatbotService.getResponse(any(com.fastnfit.app.dto.ChatRequestDTO.class), any()))
                 .thenReturn(mockResponse);
 
         String requestJson = """
@@ -130,4 +135,49 @@ public class ChatbotControllerTest {
 
         System.out.println("💬 Chatbot replied: " + result.getResponse().getContentAsString());
     }
+
+    @WithMockUser(username = "testuser", roles = { "USER" })
+    @Test
+    void testChatbotStream_SendsTokensThenResult() throws Exception {
+        ChatbotResponseDTO mockResponse = new ChatbotResponseDTO(null, "Burpees are great.");
+
+        Mockito.when(userService.getUserDetails(1L)).thenReturn(mockUserDetails);
+        // run the streamed reply inline instead of on the executor
+        Mockito.doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(chatStreamExecutor).execute(any(Runnable.class));
+        Mockito.when(chatbotService.streamResponse(any(com.fastnfit.app.dto.ChatRequestDTO.class), any(), any()))
+                .thenAnswer(invocation -> {
+                    ChatbotService.ChatStreamListener listener = invocation.getArgument(2);
+                    listener.onToken("Burpees ");
+                    listener.onToken("are great.");
+                    listener.onResult(mockResponse);
+                    return mockResponse;
+                });
+
+        String requestJson = """
+                {
+                    "message": "What are burpees?",
+                    "exercises": []
+                }
+                """;
+
+        MvcResult result = mockMvc.perform(post("/api/chatbot/1/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains("event:token"));
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains("\"text\":\"Burpees \""));
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains("event:result"));
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains("Burpees are great."));
+    }
 }
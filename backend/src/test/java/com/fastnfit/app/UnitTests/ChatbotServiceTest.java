@@ -1,5 +1,6 @@
 package com.fastnfit.app.UnitTests;
 
+import com.fastnfit.app.dto.ChatRequestDTO;
 import com.fastnfit.app.dto.ChatbotResponseDTO;
 
 //./mvnw test "-Dtest=ChatbotServiceTest"
@@ -9,17 +10,25 @@ import com.fastnfit.app.dto.WorkoutDTO;
 import com.fastnfit.app.enums.FitnessLevel;
 import com.fastnfit.app.model.ChatHistory;
 import com.fastnfit.app.model.User;
-import com.fastnfit.app.repository.ChatHistoryRepository;
 import com.fastnfit.app.repository.UserRepository;
+import com.fastnfit.app.service.ChatHistoryCompactor;
+import com.fastnfit.app.service.ChatHistoryWriter;
+import com.fastnfit.app.service.ChatMetrics;
+import com.fastnfit.app.service.ChatReplyRepairer;
+import com.fastnfit.app.service.ChatResponseCache;
 import com.fastnfit.app.service.ChatbotService;
+import com.fastnfit.app.service.ExerciseCatalog;
+import com.fastnfit.app.service.OpenAiClient;
+import com.fastnfit.app.service.OpenAiPayloads;
+import com.fastnfit.app.service.SystemPromptTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -38,13 +47,39 @@ public class ChatbotServiceTest {
     private ChatbotService chatbotService;
 
     @Mock
-    private ChatHistoryRepository chatHistoryRepository;
+    private ChatHistoryWriter chatHistoryWriter;
 
     @Mock
     private UserRepository userRepository;
 
     @Mock
-    private RestTemplate restTemplate;
+    private OpenAiClient openAiClient;
+
+    @Mock
+    private ExerciseCatalog exerciseCatalog;
+
+    @Mock
+    private SystemPromptTemplate systemPromptTemplate;
+
+    @Mock
+    private ChatHistoryCompactor chatHistoryCompactor;
+
+    @Mock
+    private ChatResponseCache responseCache;
+
+    @Spy
+    private ChatReplyRepairer chatReplyRepairer = new ChatReplyRepairer();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ChatMetrics chatMetrics = new ChatMetrics(meterRegistry);
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private OpenAiPayloads openAiPayloads = new OpenAiPayloads(new ObjectMapper());
 
     private User testUser;
     private UserDetailsDTO testUserDetails;
@@ -68,7 +103,7 @@ public class ChatbotServiceTest {
     void chatbotShouldRespondWithMemory() {
         // Arrange: mock previous history
         when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(testUser));
-        when(chatHistoryRepository.findByUserOrderByTimestampDesc(eq(testUser), any())).thenReturn(List.of(
+        when(chatHistoryCompactor.loadWindow(testUser)).thenReturn(new ChatHistoryCompactor.HistoryWindow(null, List.of(
                 ChatHistory.builder()
                         .user(testUser)
                         .role("user")
@@ -81,35 +116,31 @@ public class ChatbotServiceTest {
                         .content("You should consider something light.")
                         .timestamp(LocalDateTime.now().minusMinutes(9))
                         .build()
-        ));
+        ), 20));
 
         JSONObject mockResponse = new JSONObject()
                 .put("choices", List.of(
                         Map.of("message", Map.of("content", "Here's a light workout plan."))
                 ));
 
-        ResponseEntity<String> mockEntity = new ResponseEntity<>(mockResponse.toString(), HttpStatus.OK);
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(), eq(String.class)))
-                .thenReturn(mockEntity);
+        when(openAiClient.complete(anyString())).thenReturn(mockResponse.toString());
 
         // Act
-        JSONObject request = new JSONObject();
-        request.put("message", "What workout should I do?");
-        request.put("exercises", List.of());
-        request.put("exercises_supported", List.of(Map.of("name", "Jumping Jacks")));
+        ChatRequestDTO request = new ChatRequestDTO("What workout should I do?", List.of());
 
 
         String reply = chatbotService.getResponse(request, testUserDetails).getResponse();
 
         // Assert
         assertTrue(reply.contains("light workout"));
-        verify(chatHistoryRepository, times(2)).save(any());
+        verify(chatHistoryWriter, times(2)).enqueue(any());
+        verify(chatHistoryCompactor).compactAsync(1L);
     }
 
     @Test
     void chatbotShouldReturnWorkoutJson() {
         when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(testUser));
-        when(chatHistoryRepository.findByUserOrderByTimestampDesc(eq(testUser), any())).thenReturn(List.of());
+        when(chatHistoryCompactor.loadWindow(testUser)).thenReturn(new ChatHistoryCompactor.HistoryWindow(null, List.of(), 0));
 
         JSONObject mockResponse = new JSONObject()
                 .put("choices", List.of(
@@ -117,13 +148,9 @@ public class ChatbotServiceTest {
                                 "Sure! Here's your plan:\n<BEGIN_JSON>{ \"name\": \"Full Body Blast\" }<END_JSON>"))
                 ));
 
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(), eq(String.class)))
-                .thenReturn(new ResponseEntity<>(mockResponse.toString(), HttpStatus.OK));
+        when(openAiClient.complete(anyString())).thenReturn(mockResponse.toString());
 
-        JSONObject request = new JSONObject();
-        request.put("message", "Give me a beginner workout");
-        request.put("exercises", List.of());
-        request.put("exercises_supported", List.of(Map.of("name", "Jumping Jacks")));
+        ChatRequestDTO request = new ChatRequestDTO("Give me a beginner workout", List.of());
 
 
         WorkoutDTO workout = chatbotService.getResponse(request, testUserDetails).getWorkout();
@@ -134,7 +161,7 @@ public class ChatbotServiceTest {
     @Test
     void chatbotShouldReturnConversationalAnswer() {
         when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(testUser));
-        when(chatHistoryRepository.findByUserOrderByTimestampDesc(eq(testUser), any())).thenReturn(List.of());
+        when(chatHistoryCompactor.loadWindow(testUser)).thenReturn(new ChatHistoryCompactor.HistoryWindow(null, List.of(), 0));
 
         JSONObject mockResponse = new JSONObject()
                 .put("choices", List.of(
@@ -142,13 +169,9 @@ public class ChatbotServiceTest {
                                 "Burpees are a full-body exercise that improve strength and cardio."))
                 ));
 
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(), eq(String.class)))
-                .thenReturn(new ResponseEntity<>(mockResponse.toString(), HttpStatus.OK));
+        when(openAiClient.complete(anyString())).thenReturn(mockResponse.toString());
 
-        JSONObject request = new JSONObject();
-        request.put("message", "What are burpees?");
-        request.put("exercises", List.of());
-        request.put("exercises_supported", List.of(Map.of("name", "Jumping Jacks")));
+        ChatRequestDTO request = new ChatRequestDTO("What are burpees?", List.of());
 
 
         ChatbotResponseDTO response = chatbotService.getResponse(request, testUserDetails);
@@ -157,4 +180,93 @@ public class ChatbotServiceTest {
         assertFalse(reply.contains("<BEGIN_JSON>"));
         assertTrue(reply.contains("Burpees"));
     }
+
+    @Test
+    void chatbotShouldServeCachedReplyWithoutCallingOpenAi() {
+        when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(testUser));
+        when(chatHistoryCompactor.loadWindow(testUser)).thenReturn(new ChatHistoryCompactor.HistoryWindow(null, List.of(), 0));
+        when(systemPromptTemplate.getVersion()).thenReturn("1.1");
+        when(responseCache.buildKey(eq("Give me a 7 minute workout"), eq(testUserDetails), eq("1.1"), eq(false)))
+                .thenReturn("cache-key");
+        when(responseCache.get("cache-key")).thenReturn(
+                "<BEGIN_JSON>{ \"name\": \"Quick Burn\", \"workoutExercise\": [] }<END_JSON>\nHere you go!");
+
+        ChatRequestDTO request = new ChatRequestDTO("Give me a 7 minute workout", List.of());
+
+        ChatbotResponseDTO response = chatbotService.getResponse(request, testUserDetails);
+
+        assertEquals("Quick Burn", response.getWorkout().getName());
+        assertEquals("Here you go!", response.getResponse());
+        verifyNoInteractions(openAiClient);
+        verify(chatHistoryWriter, times(2)).enqueue(any());
+    }
+
+    @Test
+    void chatbotShouldRepairNearMissExerciseNamesWithoutRetrying() {
+        when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(testUser));
+        when(chatHistoryCompactor.loadWindow(testUser)).thenReturn(new ChatHistoryCompactor.HistoryWindow(null, List.of(), 0));
+        when(exerciseCatalog.getNames()).thenReturn(java.util.Set.of("Push-ups", "Plank"));
+
+        // wrong casing/spacing, trailing comma, smart quotes and no <END_JSON>
+        String reply = "<BEGIN_JSON>{ \"name\": \"Core\", \"durationInMinutes\": 5, \"workoutExercise\": ["
+                + "{ \"name\": \"Push Ups\", \"duration\": 40, \"rest\": 20 },"
+                + "{ “name”: “plank”, \"duration\": 40, \"rest\": 20 },] }\nTry this!";
+        JSONObject mockResponse = new JSONObject()
+                .put("choices", List.of(Map.of("message", Map.of("content", reply))));
+        when(openAiClient.complete(anyString())).thenReturn(mockResponse.toString());
+
+        ChatRequestDTO request = new ChatRequestDTO("Core workout please", List.of());
+
+        ChatbotResponseDTO response = chatbotService.getResponse(request, testUserDetails);
+
+        assertEquals("Push-ups", response.getWorkout().getWorkoutExercise().get(0).getName());
+        assertEquals("Plank", response.getWorkout().getWorkoutExercise().get(1).getName());
+        assertEquals(2, response.getWorkout().getDurationInMinutes());
+        assertEquals("Try this!", response.getResponse());
+        verify(openAiClient, times(1)).complete(anyString());
+    }
+
+    @Test
+    void chatbotShouldRecordStageTimingsAndTokenUsage() {
+        when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(testUser));
+        when(chatHistoryCompactor.loadWindow(testUser)).thenReturn(new ChatHistoryCompactor.HistoryWindow(null, List.of(), 0));
+
+        JSONObject mockResponse = new JSONObject()
+                .put("choices", List.of(Map.of("message", Map.of("content", "Burpees work the whole body."))))
+                .put("usage", Map.of("prompt_tokens", 420, "completion_tokens", 12));
+        when(openAiClient.complete(anyString())).thenReturn(mockResponse.toString());
+
+        ChatRequestDTO request = new ChatRequestDTO("What are burpees?", List.of());
+
+        chatbotService.getResponse(request, testUserDetails);
+
+        for (String stage : List.of(ChatMetrics.PROMPT, ChatMetrics.HISTORY, ChatMetrics.UPSTREAM,
+                ChatMetrics.PARSE, ChatMetrics.VALIDATE, ChatMetrics.PERSIST)) {
+            assertEquals(1, meterRegistry.get("chatbot.stage").tag("stage", stage).timer().count(), stage);
+        }
+        assertEquals(420, meterRegistry.get("openai.tokens").tag("type", "prompt").counter().count());
+        assertEquals(12, meterRegistry.get("openai.tokens").tag("type", "completion").counter().count());
+        assertEquals(1, meterRegistry.get("chatbot.replies").tag("outcome", "ok").counter().count());
+    }
+
+    @Test
+    void chatbotShouldSendCurrentWorkoutAndMessagesAsJson() throws Exception {
+        when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(testUser));
+        when(chatHistoryCompactor.loadWindow(testUser)).thenReturn(new ChatHistoryCompactor.HistoryWindow(null, List.of(), 0));
+        when(systemPromptTemplate.render(testUserDetails, "Plank (40s work, 20s rest)")).thenReturn("system \"prompt\"");
+        when(openAiClient.complete(anyString())).thenReturn(new JSONObject()
+                .put("choices", List.of(Map.of("message", Map.of("content", "Sure, shorter intervals."))))
+                .toString());
+
+        ChatRequestDTO request = new ChatRequestDTO("Make it easier",
+                List.of(new ChatRequestDTO.Exercise("Plank", 40, 20)));
+        chatbotService.getResponse(request, testUserDetails);
+
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(openAiClient).complete(body.capture());
+        com.fasterxml.jackson.databind.JsonNode json = new ObjectMapper().readTree(body.getValue());
+        assertEquals("system \"prompt\"", json.get("messages").get(0).get("content").asText());
+        assertEquals("Make it easier", json.get("messages").get(1).get("content").asText());
+        assertEquals("user", json.get("messages").get(1).get("role").asText());
+    }
 }
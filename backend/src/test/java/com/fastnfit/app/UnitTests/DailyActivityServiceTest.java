@@ -0,0 +1,149 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fastnfit.app.dto.DailySummaryDTO;
+import com.fastnfit.app.model.DailyActivity;
+import com.fastnfit.app.repository.DailyActivityRepository;
+import com.fastnfit.app.repository.HistoryRepository;
+import com.fastnfit.app.service.DailyActivityService;
+import com.fastnfit.app.service.SavepointInsert;
+
+public class DailyActivityServiceTest {
+
+    @Mock
+    private DailyActivityRepository dailyActivityRepository;
+
+    @Mock
+    private HistoryRepository historyRepository;
+
+    @Mock
+    private SavepointInsert savepointInsert;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DailyActivityService dailyActivityService;
+
+    private final LocalDate today = LocalDate.of(2025, 4, 10);
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private DailyActivity day(LocalDate date, int calories, int minutes) {
+        DailyActivity day = new DailyActivity();
+        day.setUserId(1L);
+        day.setActivityDate(date);
+        day.setCaloriesBurned(calories);
+        day.setDurationInMinutes(minutes);
+        day.setWorkoutCount(1);
+        return day;
+    }
+
+    @Test
+    public void testRecordWorkoutUpdatesExistingDay() {
+        when(dailyActivityRepository.addWorkout(1L, today, 100, 7)).thenReturn(1);
+
+        dailyActivityService.recordWorkout(1L, today, 100, 7);
+
+        verifyNoInteractions(savepointInsert);
+    }
+
+    @Test
+    public void testRecordWorkoutInsertsFirstWorkoutOfTheDay() {
+        when(dailyActivityRepository.addWorkout(1L, today, 0, 7)).thenReturn(0);
+        when(savepointInsert.insertIfAbsent(anyString(), any(Object[].class))).thenReturn(true);
+
+        dailyActivityService.recordWorkout(1L, today, null, 7);
+
+        verify(savepointInsert).insertIfAbsent(anyString(), eq(1L), eq(Date.valueOf(today)), eq(0), eq(7));
+        verify(dailyActivityRepository, times(1)).addWorkout(1L, today, 0, 7);
+    }
+
+    @Test
+    public void testRecordWorkoutLosingTheInsertRaceAddsToTheOtherRow() {
+        // no row when it updates, but another transaction inserted the day before this insert
+        when(dailyActivityRepository.addWorkout(1L, today, 100, 7)).thenReturn(0, 1);
+        when(savepointInsert.insertIfAbsent(anyString(), any(Object[].class))).thenReturn(false);
+
+        dailyActivityService.recordWorkout(1L, today, 100, 7);
+
+        verify(dailyActivityRepository, times(2)).addWorkout(1L, today, 100, 7);
+    }
+
+    @Test
+    public void testRecordWorkoutGivesUpAfterRepeatedConflicts() {
+        when(dailyActivityRepository.addWorkout(1L, today, 100, 7)).thenReturn(0);
+        when(savepointInsert.insertIfAbsent(anyString(), any(Object[].class))).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> dailyActivityService.recordWorkout(1L, today, 100, 7));
+
+        verify(dailyActivityRepository, times(3)).addWorkout(1L, today, 100, 7);
+    }
+
+    @Test
+    public void testGetDailySummariesFillsMissingDays() {
+        LocalDate start = today.minusDays(6);
+        when(dailyActivityRepository.findByUserIdAndActivityDateBetweenOrderByActivityDateAsc(1L, start, today))
+                .thenReturn(List.of(day(start.plusDays(1), 150, 25), day(today, 330, 63)));
+
+        List<DailySummaryDTO> week = dailyActivityService.getDailySummaries(1L, start, today);
+
+        assertEquals(7, week.size());
+        assertEquals(start, week.get(0).getDate());
+        assertEquals(0, week.get(0).getCaloriesBurned());
+        assertEquals(150, week.get(1).getCaloriesBurned());
+        assertEquals(330, week.get(6).getCaloriesBurned());
+        assertEquals(63, week.get(6).getDurationInMinutes());
+    }
+
+    @Test
+    public void testBackfillRunsEvenWhenSomeDaysExist() {
+        // a workout completed before the backfill ran must not make it skip the older days
+        when(historyRepository.count()).thenReturn(12L);
+        when(dailyActivityRepository.backfillFromHistory()).thenReturn(9);
+
+        dailyActivityService.backfillMissingDays();
+
+        verify(dailyActivityRepository).backfillFromHistory();
+        verify(dailyActivityRepository, never()).count();
+    }
+
+    @Test
+    public void testBackfillSkippedWithoutHistory() {
+        when(historyRepository.count()).thenReturn(0L);
+
+        dailyActivityService.backfillMissingDays();
+
+        verify(dailyActivityRepository, never()).backfillFromHistory();
+    }
+
+    @Test
+    public void testBackfillRetriesAfterRacingAnotherInstance() {
+        when(historyRepository.count()).thenReturn(12L);
+        when(dailyActivityRepository.backfillFromHistory())
+                .thenThrow(new DataIntegrityViolationException("uk_daily_activity_user_date"))
+                .thenReturn(0);
+
+        dailyActivityService.backfillMissingDays();
+
+        verify(dailyActivityRepository, times(2)).backfillFromHistory();
+    }
+}
@@ -0,0 +1,73 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.fastnfit.app.repository.UserRepository;
+import com.fastnfit.app.service.EmailBloomFilter;
+
+public class EmailBloomFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private EmailBloomFilter emailBloomFilter;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        emailBloomFilter = new EmailBloomFilter(userRepository, 1000, 0.01);
+    }
+
+    @Test
+    public void testEverythingIsMaybeBeforeRebuild() {
+        assertFalse(emailBloomFilter.isReady());
+        assertTrue(emailBloomFilter.mightContain("anyone@example.com"));
+    }
+
+    @Test
+    public void testNoFalseNegativesAfterRebuild() {
+        when(userRepository.count()).thenReturn(500L);
+        when(userRepository.streamAllEmails()).thenReturn(IntStream.range(0, 500).mapToObj(i -> "user" + i + "@example.com"));
+
+        emailBloomFilter.rebuild();
+
+        assertTrue(emailBloomFilter.isReady());
+        for (int i = 0; i < 500; i++) {
+            assertTrue(emailBloomFilter.mightContain("user" + i + "@example.com"));
+        }
+    }
+
+    @Test
+    public void testMostUnknownEmailsAreRuledOut() {
+        when(userRepository.count()).thenReturn(500L);
+        when(userRepository.streamAllEmails()).thenReturn(IntStream.range(0, 500).mapToObj(i -> "user" + i + "@example.com"));
+        emailBloomFilter.rebuild();
+
+        long falsePositives = IntStream.range(0, 10000)
+                .filter(i -> emailBloomFilter.mightContain("new" + i + "@example.com"))
+                .count();
+
+        // sized for 1000 at 1%, holding 500 should stay well under that
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testAddedEmailIsFound() {
+        when(userRepository.count()).thenReturn(0L);
+        when(userRepository.streamAllEmails()).thenReturn(Stream.empty());
+        emailBloomFilter.rebuild();
+
+        assertFalse(emailBloomFilter.mightContain("fresh@example.com"));
+        emailBloomFilter.add("fresh@example.com");
+        assertTrue(emailBloomFilter.mightContain("fresh@example.com"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.fastnfit.app.repository.ExerciseRepository;
+import com.fastnfit.app.service.ExerciseCatalog;
+
+public class ExerciseCatalogTest {
+
+    @Mock
+    private ExerciseRepository exerciseRepository;
+
+    @InjectMocks
+    private ExerciseCatalog exerciseCatalog;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(exerciseRepository.findAllExerciseNames()).thenReturn(Arrays.asList("Squats", "Push-ups"));
+    }
+
+    @Test
+    public void testLoadsOnceAndServesFromMemory() {
+        assertTrue(exerciseCatalog.contains("Squats"));
+        assertFalse(exerciseCatalog.contains("Burpees"));
+        assertFalse(exerciseCatalog.contains(null));
+        assertEquals("- Squats\n- Push-ups", exerciseCatalog.getPromptFragment());
+        assertEquals(2, exerciseCatalog.getNames().size());
+
+        verify(exerciseRepository, times(1)).findAllExerciseNames();
+    }
+
+    @Test
+    public void testNamesAreUnmodifiable() {
+        assertThrows(UnsupportedOperationException.class, () -> exerciseCatalog.getNames().add("Burpees"));
+    }
+
+    @Test
+    public void testRefreshOnlyBumpsVersionWhenChanged() {
+        long version = exerciseCatalog.getVersion();
+
+        exerciseCatalog.refresh();
+        assertEquals(version, exerciseCatalog.getVersion());
+
+        when(exerciseRepository.findAllExerciseNames()).thenReturn(Arrays.asList("Squats", "Push-ups", "Burpees"));
+        exerciseCatalog.refresh();
+
+        assertEquals(version + 1, exerciseCatalog.getVersion());
+        assertTrue(exerciseCatalog.contains("Burpees"));
+    }
+}
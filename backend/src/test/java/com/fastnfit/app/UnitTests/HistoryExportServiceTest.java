@@ -0,0 +1,122 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fastnfit.app.dto.HistoryDTO;
+import com.fastnfit.app.dto.WorkoutDTO;
+import com.fastnfit.app.enums.ExportFormat;
+import com.fastnfit.app.service.HistoryExportService;
+
+public class HistoryExportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private HistoryExportService historyExportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Timestamp time = Timestamp.valueOf("2025-05-01 10:00:00");
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        historyExportService = new HistoryExportService(jdbcTemplate, objectMapper, 2, 60000);
+
+        // three rows with the same time, read in chunks of two
+        when(chunkQuery()).thenAnswer(invocation -> {
+            Object[] args = invocation.getArgument(1);
+            if (!args[0].equals(1L)) {
+                return List.of();
+            }
+            return args[3].equals(Long.MAX_VALUE)
+                    ? List.of(row(3L, 100, 20), row(2L, 110, 25))
+                    : List.of(row(1L, 120, 30));
+        });
+    }
+
+    @Test
+    public void testNdjsonExportReadsInChunks() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        historyExportService.export(1L, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(3, first.get("historyId").asInt());
+        assertEquals("2025-05-01T10:00", first.get("workoutDateTime").asText());
+        assertEquals("Stretch, \"easy\"", first.get("workoutName").asText());
+        assertEquals(1, objectMapper.readTree(lines[2]).get("historyId").asInt());
+        // the second chunk continues after the last row of the first one
+        verify(jdbcTemplate).query(anyString(), eq(new Object[] {1L, time, time, 2L, 2}), any(int[].class),
+                any(RowMapper.class));
+        verify(jdbcTemplate, times(2)).query(anyString(), any(Object[].class), any(int[].class), any(RowMapper.class));
+    }
+
+    @Test
+    public void testCsvExportEscapesNames() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        historyExportService.export(1L, ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("historyId,workoutDateTime,workoutId,workoutName,caloriesBurned,durationInMinutes", lines[0]);
+        assertEquals("3,2025-05-01T10:00,7,\"Stretch, \"\"easy\"\"\",100,20", lines[1]);
+    }
+
+    @Test
+    public void testEmptyHistoryWritesOnlyHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        historyExportService.export(2L, ExportFormat.CSV, out);
+
+        assertEquals("historyId,workoutDateTime,workoutId,workoutName,caloriesBurned,durationInMinutes\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testExportStopsAfterTimeout() throws Exception {
+        historyExportService = new HistoryExportService(jdbcTemplate, objectMapper, 2, 20);
+        when(chunkQuery()).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return List.of(row(3L, 100, 20), row(2L, 110, 25));
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(IOException.class, () -> historyExportService.export(1L, ExportFormat.NDJSON, out));
+
+        // the first chunk was sent, the next one is never read
+        assertEquals(2, out.toString(StandardCharsets.UTF_8).split("\n").length);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(Object[].class), any(int[].class), any(RowMapper.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<HistoryDTO> chunkQuery() {
+        return jdbcTemplate.query(anyString(), any(Object[].class), any(int[].class), any(RowMapper.class));
+    }
+
+    // what the chunk query maps a row to, the workout name comes from the join
+    private HistoryDTO row(Long historyId, int calories, int minutes) {
+        HistoryDTO row = new HistoryDTO(historyId, time, calories, minutes, 7L);
+        row.getWorkout().setName("Stretch, \"easy\"");
+        return row;
+    }
+}
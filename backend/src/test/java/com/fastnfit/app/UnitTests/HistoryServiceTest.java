@@ -10,18 +10,17 @@ to run in prod"
 import com.fastnfit.app.dto.ActivityOverviewDTO;
 import com.fastnfit.app.dto.DailySummaryDTO;
 import com.fastnfit.app.dto.HistoryDTO;
+import com.fastnfit.app.dto.HistoryPageDTO;
 import com.fastnfit.app.dto.WorkoutDTO;
-import com.fastnfit.app.model.Achievement;
 import com.fastnfit.app.model.History;
 import com.fastnfit.app.model.User;
 import com.fastnfit.app.model.Workout;
 import com.fastnfit.app.repository.HistoryRepository;
 import com.fastnfit.app.repository.UserRepository;
 import com.fastnfit.app.repository.WorkoutRepository;
-import com.fastnfit.app.service.AchievementService;
+import com.fastnfit.app.service.DailyActivityService;
 import com.fastnfit.app.service.HistoryService;
-import com.fastnfit.app.service.UserAchievementService;
-import com.fastnfit.app.service.UserStreakService;
+import com.fastnfit.app.service.WorkoutCompletedEvent;
 import com.fastnfit.app.service.WorkoutService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -30,9 +29,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -57,13 +59,10 @@ class HistoryServiceTest {
     private WorkoutService workoutService;
     
     @Mock
-    private UserStreakService userStreakService;
+    private ApplicationEventPublisher eventPublisher;
 
     @Mock
-    private AchievementService achievementService;
-
-    @Mock
-    private UserAchievementService userAchievementService;
+    private DailyActivityService dailyActivityService;
 
     private HistoryService historyService;
     
@@ -83,9 +82,8 @@ class HistoryServiceTest {
             userRepository,
             workoutRepository,
             workoutService,
-            userStreakService,
-            achievementService,
-            userAchievementService
+            dailyActivityService,
+            eventPublisher
         );
         
         // Setup test data
@@ -223,36 +221,61 @@ class HistoryServiceTest {
     }
 
     @Test
-    void getUserHistory_shouldReturnUserHistory() {
-        // Given
-        List<History> histories = Collections.singletonList(testHistory);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(historyRepository.findByUser(testUser)).thenReturn(histories);
-        when(workoutService.convertToDTO(testWorkout)).thenReturn(testWorkoutDTO);
-        
+    void getHistoryPage_shouldReturnCursorWhenMoreRows() {
+        // Given, one row more than the page size
+        Timestamp time = Timestamp.valueOf("2025-05-01 10:00:00");
+        List<HistoryDTO> rows = List.of(
+            new HistoryDTO(5L, time, 150, 30, 1L),
+            new HistoryDTO(4L, time, 150, 30, 1L),
+            new HistoryDTO(3L, time, 150, 30, 1L));
+        when(historyRepository.findHistoryPage(eq(1L), any(Timestamp.class), eq(Long.MAX_VALUE), any()))
+            .thenReturn(rows);
+        when(workoutService.getWorkoutById(1L)).thenReturn(testWorkoutDTO);
+
         // When
-        List<HistoryDTO> result = historyService.getUserHistory(1L);
-        
+        HistoryPageDTO page = historyService.getHistoryPage(1L, null, 2);
+
         // Then
-        assertEquals(1, result.size());
-        assertEquals(testHistory.getHistoryId(), result.get(0).getHistoryId());
-        verify(userRepository).findById(1L);
-        verify(historyRepository).findByUser(testUser);
+        assertEquals(2, page.getItems().size());
+        assertEquals("Test Workout", page.getItems().get(0).getName());
+        assertSame(testWorkoutDTO, page.getItems().get(0).getWorkout());
+        assertNotNull(page.getNextCursor());
+        verify(workoutRepository, never()).findById(anyLong());
     }
 
     @Test
-    void getUserHistory_shouldThrowExceptionWhenUserNotFound() {
+    void getHistoryPage_cursorContinuesAfterLastRow() {
         // Given
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
-        
-        // When & Then
-        Exception exception = assertThrows(RuntimeException.class, () -> {
-            historyService.getUserHistory(1L);
-        });
-        
-        assertEquals("User not found", exception.getMessage());
-        verify(userRepository).findById(1L);
-        verify(historyRepository, never()).findByUser(any(User.class));
+        Timestamp time = Timestamp.valueOf("2025-05-01 10:00:00");
+        when(historyRepository.findHistoryPage(eq(1L), any(Timestamp.class), eq(Long.MAX_VALUE), any()))
+            .thenReturn(List.of(new HistoryDTO(5L, time, 150, 30, 1L), new HistoryDTO(4L, time, 150, 30, 1L)));
+        when(workoutService.getWorkoutById(1L)).thenReturn(testWorkoutDTO);
+        String cursor = historyService.getHistoryPage(1L, null, 1).getNextCursor();
+
+        // When
+        HistoryPageDTO next = historyService.getHistoryPage(1L, cursor, 1);
+
+        // Then, same time and the id of the last row returned
+        verify(historyRepository).findHistoryPage(1L, time, 5L, PageRequest.of(0, 2));
+        assertTrue(next.getItems().isEmpty());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getHistoryPage_shouldRejectInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> historyService.getHistoryPage(1L, "%%%", 5));
+        assertThrows(IllegalArgumentException.class, () -> historyService.getHistoryPage(1L, "bm90LWEtY3Vyc29y", 5));
+        verifyNoInteractions(historyRepository);
+    }
+
+    @Test
+    void getHistoryPage_shouldCapPageSize() {
+        when(historyRepository.findHistoryPage(eq(1L), any(Timestamp.class), anyLong(), any())).thenReturn(List.of());
+
+        historyService.getHistoryPage(1L, null, 10_000);
+
+        verify(historyRepository).findHistoryPage(eq(1L), any(Timestamp.class), eq(Long.MAX_VALUE),
+            eq(PageRequest.of(0, HistoryService.MAX_PAGE_SIZE + 1)));
     }
 
     @Test
@@ -309,10 +332,20 @@ class HistoryServiceTest {
         assertEquals(testHistory.getWorkout().getName(), capturedHistory.getWorkout().getName());
         assertEquals(testHistoryDTO.getCaloriesBurned(), capturedHistory.getCaloriesBurned());
         assertEquals(testHistoryDTO.getDurationInMinutes(), capturedHistory.getDurationInMinutes());
+
+        // completion event published with the saved row
+        ArgumentCaptor<WorkoutCompletedEvent> eventCaptor = ArgumentCaptor.forClass(WorkoutCompletedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        WorkoutCompletedEvent event = eventCaptor.getValue();
+        assertEquals(1L, event.getUserId());
+        assertEquals(testHistory.getHistoryId(), event.getHistoryId());
+        assertEquals(testHistory.getWorkoutDateTime().toLocalDateTime().toLocalDate(), event.getWorkoutDate());
+        assertEquals(150, event.getCaloriesBurned());
+        assertEquals(30, event.getDurationInMinutes());
     }
 
     @Test
-    void recordWorkoutCompletion_shouldCreateHistoryAndUpdateStreak() {
+    void recordWorkoutCompletion_shouldCreateHistoryAndPublishEvent() {
         // Given
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(workoutRepository.findById(1L)).thenReturn(Optional.of(testWorkout));
@@ -324,7 +357,7 @@ class HistoryServiceTest {
         
         // Then
         assertNotNull(result);
-        verify(userStreakService).updateStreak(1L);
+        verify(eventPublisher).publishEvent(any(WorkoutCompletedEvent.class));
         
         // Verify the history was created with correct data
         ArgumentCaptor<History> historyCaptor = ArgumentCaptor.forClass(History.class);
@@ -359,8 +392,9 @@ class HistoryServiceTest {
     @Test
     void getTodaySummary_shouldReturnCorrectSummary() {
         // Total from IDs 9–11: 100 + 110 + 120 = 330 calories, 20 + 21 + 22 = 63 minutes
-        when(historyRepository.sumCaloriesBurnedByUserBetween(eq(1L), any(), any())).thenReturn(330);
-        when(historyRepository.sumTimeExercisedByUserBetween(eq(1L), any(), any())).thenReturn(63);
+        LocalDate today = LocalDate.now();
+        when(dailyActivityService.getDailySummaries(1L, today, today))
+                .thenReturn(List.of(new DailySummaryDTO(today, 330, 63)));
     
         DailySummaryDTO result = historyService.getTodaySummary(1L);
     
@@ -372,12 +406,9 @@ class HistoryServiceTest {
     }
     @Test
     void getWeeklySummary_shouldAggregateCorrectly() {
-        // Simulate 7 return values for 7 days
-        when(historyRepository.sumCaloriesBurnedByUserBetween(eq(1L), any(), any()))
-            .thenReturn(160, 0, 0, 150, 0, 270, 330);
-
-        when(historyRepository.sumTimeExercisedByUserBetween(eq(1L), any(), any()))
-            .thenReturn(26, 0, 0, 25, 0, 47, 63);
+        // Simulate 7 days from the rollup, read in one range query
+        when(dailyActivityService.getDailySummaries(1L, LocalDate.now().minusDays(6), LocalDate.now()))
+            .thenReturn(weekOf(new int[] {160, 0, 0, 150, 0, 270, 330}, new int[] {26, 0, 0, 25, 0, 47, 63}));
 
         List<DailySummaryDTO> result = historyService.getWeeklySummary(1L);
 
@@ -432,22 +463,26 @@ class HistoryServiceTest {
         // Arrange expected values from your realistic data:
         // Today: IDs 9–11 = Calories: 330, Minutes: 63
         // Recent: most recent 5 histories (IDs 7–11)
-        List<History> recent = historyList.stream()
+        List<HistoryDTO> recent = historyList.stream()
                 .sorted(Comparator.comparing(History::getWorkoutDateTime).reversed())
                 .limit(5)
+                .map(h -> new HistoryDTO(h.getHistoryId(), h.getWorkoutDateTime(), h.getCaloriesBurned(),
+                        h.getDurationInMinutes(), h.getWorkout().getWorkoutId()))
                 .toList();
 
-        when(historyRepository.sumCaloriesBurnedByUserBetween(eq(1L), any(), any())).thenReturn(330);
-        when(historyRepository.sumTimeExercisedByUserBetween(eq(1L), any(), any())).thenReturn(63);
-        when(historyRepository.findMoreHistory(eq(1L), any(), any())).thenReturn(recent);
-        when(workoutService.convertToDTO(testWorkout)).thenReturn(testWorkoutDTO);
+        when(dailyActivityService.getDailySummaries(1L, LocalDate.now().minusDays(6), LocalDate.now()))
+            .thenReturn(weekOf(new int[] {160, 0, 0, 150, 0, 270, 330}, new int[] {26, 0, 0, 25, 0, 47, 63}));
+        when(historyRepository.findHistoryPage(eq(1L), any(), anyLong(), any())).thenReturn(recent);
+        when(workoutService.getWorkoutById(anyLong())).thenReturn(testWorkoutDTO);
 
         ActivityOverviewDTO overview = historyService.getActivityOverview(1L);
 
         assertNotNull(overview);
         assertEquals(330, overview.getToday().getCaloriesBurned());
         assertEquals(63, overview.getToday().getDurationInMinutes());
+        assertEquals(7, overview.getWeekly().size());
         assertEquals(5, overview.getRecentWorkouts().size());
+        verify(dailyActivityService, times(1)).getDailySummaries(anyLong(), any(), any());
 
         System.out.println("🧩 Activity Overview:");
         System.out.printf("  🔥 Today → Calories: %d, Minutes: %d%n",
@@ -459,6 +494,15 @@ class HistoryServiceTest {
         }
     }
 
+    //test method, 7 days ending today
+    private List<DailySummaryDTO> weekOf(int[] calories, int[] minutes) {
+        List<DailySummaryDTO> week = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            week.add(new DailySummaryDTO(LocalDate.now().minusDays(6 - i), calories[i], minutes[i]));
+        }
+        return week;
+    }
+
     //test method
     private HistoryDTO convertToDTO(History history) {
         HistoryDTO dto = new HistoryDTO();
@@ -508,49 +552,6 @@ class HistoryServiceTest {
         verify(historyRepository, never()).countByUser(any(User.class));
     }
 
-        @Test
-    void recordWorkoutCompletion_shouldUnlockAchievementFor10Workouts() {
-        Achievement testAchievement = new Achievement();
-        testAchievement.setAchievementId(1L);
-        testAchievement.setTitle("10 Workouts");
-        testAchievement.setDescription("Complete 10 workouts");
-        // Given
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(workoutRepository.findById(1L)).thenReturn(Optional.of(testWorkout));
-        when(historyRepository.save(any(History.class))).thenReturn(testHistory);
-        when(workoutService.convertToDTO(any(Workout.class))).thenReturn(testWorkoutDTO);
-        when(historyRepository.countByUser(testUser)).thenReturn(10); // 10th workout completed
-        when(achievementService.getAchievementByTitle("10 Workouts")).thenReturn(Optional.of(testAchievement));
-        
-        // When
-        HistoryDTO result = historyService.recordWorkoutCompletion(1L, testWorkoutDTO);
-        
-        // Then
-        assertNotNull(result);
-        verify(userStreakService).updateStreak(1L);
-        verify(achievementService).getAchievementByTitle("10 Workouts");
-        verify(userAchievementService).completeAchievement(1L, 1L);
-    }
-
-    @Test
-    void recordWorkoutCompletion_shouldNotUnlockAchievementBelow10Workouts() {
-        // Given
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(workoutRepository.findById(1L)).thenReturn(Optional.of(testWorkout));
-        when(historyRepository.save(any(History.class))).thenReturn(testHistory);
-        when(workoutService.convertToDTO(any(Workout.class))).thenReturn(testWorkoutDTO);
-        when(historyRepository.countByUser(testUser)).thenReturn(9); // 9th workout (not yet at 10)
-        
-        // When
-        HistoryDTO result = historyService.recordWorkoutCompletion(1L, testWorkoutDTO);
-        
-        // Then
-        assertNotNull(result);
-        verify(userStreakService).updateStreak(1L);
-        verify(achievementService, never()).getAchievementByTitle(any());
-        verify(userAchievementService, never()).completeAchievement(anyLong(), anyLong());
-    }
-    
     @Test
     void getTotalCaloriesBurnedByUser_shouldReturnTotalCalories() {
         // Given
@@ -3,7 +3,12 @@ package com.fastnfit.app.UnitTests;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +22,8 @@ import com.fastnfit.app.config.JwtConfig;
 import com.fastnfit.app.service.JwtService;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 
 @ExtendWith(MockitoExtension.class)
 class JwtServiceTest {
@@ -164,4 +171,91 @@ class JwtServiceTest {
         // Then
         assertFalse(isValid);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldVerifyUserIdAndReuseVerification() {
+        // Given
+        String token = jwtService.generateToken(USER_ID);
+
+        // When, the second call is answered from the verified token cache
+        Long first = jwtService.verifyUserId(token);
+        Long second = jwtService.verifyUserId(token);
+
+        // Then
+        assertEquals(USER_ID, first);
+        assertEquals(USER_ID, second);
+    }
+
+    @Test
+    void shouldNotCacheTamperedToken() {
+        // Given
+        String token = jwtService.generateToken(USER_ID);
+        jwtService.verifyUserId(token);
+        String tamperedToken = token.substring(0, token.lastIndexOf('.') + 1) + "tamperedSignature";
+
+        // When & Then
+        assertThrows(JwtException.class, () -> jwtService.verifyUserId(tamperedToken));
+    }
+
+    @Test
+    void shouldRejectCachedTokenOnceExpired() throws Exception {
+        // Given
+        JwtConfig shortConfig = Mockito.mock(JwtConfig.class);
+        when(shortConfig.getSecret()).thenReturn(SECRET_KEY);
+        when(shortConfig.getExpiration()).thenReturn(1500L);
+        JwtService shortJwtService = new JwtService(shortConfig);
+        String token = shortJwtService.generateToken(USER_ID);
+        assertEquals(USER_ID, shortJwtService.verifyUserId(token));
+
+        // When, the cached entry outlives the token
+        TimeUnit.MILLISECONDS.sleep(2000);
+
+        // Then
+        assertThrows(ExpiredJwtException.class, () -> shortJwtService.verifyUserId(token));
+    }
+
+    @Test
+    void shouldVerifyWithCacheDisabled() {
+        // Given
+        JwtService uncached = new JwtService(jwtConfig, 0);
+        String token = uncached.generateToken(USER_ID);
+
+        // When & Then
+        assertEquals(USER_ID, uncached.verifyUserId(token));
+        assertEquals(USER_ID, uncached.verifyUserId(token));
+    }
+
+    @Test
+    void shouldKeepCacheBoundedUnderConcurrentVerification() throws Exception {
+        // Given, more distinct tokens than the cache holds
+        JwtService small = new JwtService(jwtConfig, 50);
+        List<String> tokens = new ArrayList<>();
+        for (long userId = 0; userId < 400; userId++) {
+            tokens.add(small.generateToken(userId));
+        }
+
+        // When, verified from several threads at once
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(threads.submit(() -> {
+                    for (int round = 0; round < 3; round++) {
+                        for (int i = 0; i < tokens.size(); i++) {
+                            assertEquals(Long.valueOf(i), small.verifyUserId(tokens.get(i)));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        // Then, the bound is approximate (threads insert while another one evicts) but far below the 400 tokens
+        assertTrue(small.getCachedTokenCount() <= 100, "cache size " + small.getCachedTokenCount());
+    }
+}
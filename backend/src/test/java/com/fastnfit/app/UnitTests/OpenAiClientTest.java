@@ -0,0 +1,122 @@
+package com.fastnfit.app.UnitTests;
+
+//./mvnw test "-Dtest=OpenAiClientTest"
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fastnfit.app.config.OpenAIConfig;
+import com.fastnfit.app.exception.UpstreamUnavailableException;
+import com.fastnfit.app.service.OpenAiClient;
+import com.sun.net.httpserver.HttpServer;
+
+public class OpenAiClientTest {
+
+    private HttpServer server;
+    private OpenAIConfig config;
+    private OpenAiClient client;
+    private final CountDownLatch releaseServer = new CountDownLatch(1);
+
+    @BeforeEach
+    void setup() throws Exception {
+        // sends one line and then stalls with the response still open, like an upstream that hangs mid reply
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write("data: first\n".getBytes(StandardCharsets.UTF_8));
+                body.flush();
+                releaseServer.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+
+        config = new OpenAIConfig();
+        ReflectionTestUtils.setField(config, "openaiApiKey", "test");
+        ReflectionTestUtils.setField(config, "apiUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(config, "requestTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(config, "streamTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(config, "streamIdleTimeoutMs", 200L);
+        ReflectionTestUtils.setField(config, "maxInFlight", 2);
+        ReflectionTestUtils.setField(config, "acquireTimeoutMs", 100L);
+        ReflectionTestUtils.setField(config, "threads", 2);
+        client = new OpenAiClient(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseServer.countDown();
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void stalledStreamIsClosedAfterIdleTimeout() {
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+
+        long start = System.currentTimeMillis();
+        UpstreamUnavailableException error = assertThrows(UpstreamUnavailableException.class,
+                () -> client.stream("{}", lines::add));
+
+        assertTrue(System.currentTimeMillis() - start < 3000);
+        assertTrue(error.getMessage().contains("sent nothing"), error.getMessage());
+        assertEquals(List.of("data: first"), lines);
+        assertEquals(2, client.getAvailableSlots());
+    }
+
+    @Test
+    void streamStopsAtTotalDeadline() {
+        ReflectionTestUtils.setField(config, "streamIdleTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(config, "streamTimeoutMs", 300L);
+
+        UpstreamUnavailableException error = assertThrows(UpstreamUnavailableException.class,
+                () -> client.stream("{}", line -> { }));
+
+        assertTrue(error.getMessage().contains("took longer"), error.getMessage());
+        assertEquals(2, client.getAvailableSlots());
+    }
+
+    @Test
+    void cancelStopsTheStream() {
+        ReflectionTestUtils.setField(config, "streamIdleTimeoutMs", 5000L);
+
+        // cancelled as soon as the first line arrived, the way the controller does when its emitter is done
+        Runnable[] cancel = new Runnable[1];
+        UpstreamUnavailableException error = assertThrows(UpstreamUnavailableException.class,
+                () -> client.stream("{}", line -> new Thread(cancel[0]).start(), handle -> cancel[0] = handle));
+
+        assertTrue(error.getMessage().contains("cancelled"), error.getMessage());
+        assertEquals(2, client.getAvailableSlots());
+    }
+
+    @Test
+    void requestThatCannotBeBuiltReleasesItsSlot() {
+        ReflectionTestUtils.setField(config, "apiUrl", "not a url");
+
+        for (int i = 0; i < 3; i++) {
+            // the same body again must fail too instead of waiting on a call that was never sent
+            CompletableFuture<String> call = client.completeAsync("{}");
+            assertThrows(ExecutionException.class, () -> call.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(2, client.getAvailableSlots());
+    }
+}
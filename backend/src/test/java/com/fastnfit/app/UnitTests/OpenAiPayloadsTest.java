@@ -0,0 +1,84 @@
+package com.fastnfit.app.UnitTests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fastnfit.app.dto.OpenAiCompletionDTO;
+import com.fastnfit.app.service.OpenAiPayloads;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenAiPayloadsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OpenAiPayloads payloads = new OpenAiPayloads(objectMapper);
+
+    @Test
+    public void testChatRequest_WritesMessagesInOrderWithEscaping() throws Exception {
+        String body = payloads.chatRequest("gpt-4o-mini", 0.3, List.of(
+                new OpenAiCompletionDTO.Message("system", "Be \"brief\"\nand kind"),
+                new OpenAiCompletionDTO.Message("user", "Plank \\ push-ups ✓")), false);
+
+        JsonNode json = objectMapper.readTree(body);
+        assertEquals("gpt-4o-mini", json.get("model").asText());
+        assertEquals(0.3, json.get("temperature").asDouble());
+        assertEquals("system", json.get("messages").get(0).get("role").asText());
+        assertEquals("Be \"brief\"\nand kind", json.get("messages").get(0).get("content").asText());
+        assertEquals("Plank \\ push-ups ✓", json.get("messages").get(1).get("content").asText());
+        assertFalse(json.has("stream"));
+    }
+
+    @Test
+    public void testChatRequest_StreamAsksForUsage() throws Exception {
+        String body = payloads.chatRequest("gpt-4o-mini", 0.3,
+                List.of(new OpenAiCompletionDTO.Message("user", "hi")), true);
+
+        JsonNode json = objectMapper.readTree(body);
+        assertTrue(json.get("stream").asBoolean());
+        assertTrue(json.get("stream_options").get("include_usage").asBoolean());
+    }
+
+    @Test
+    public void testChatRequest_ReusedBufferDoesNotLeakIntoNextBody() {
+        String first = payloads.chatRequest("m", 0.3,
+                List.of(new OpenAiCompletionDTO.Message("user", "a much longer first message")), false);
+        String second = payloads.chatRequest("m", 0.3, List.of(new OpenAiCompletionDTO.Message("user", "b")), false);
+
+        assertTrue(first.contains("a much longer first message"));
+        assertEquals("{\"model\":\"m\",\"messages\":[{\"role\":\"user\",\"content\":\"b\"}],\"temperature\":0.3}", second);
+    }
+
+    @Test
+    public void testReadCompletion_MessageUsageAndUnknownFields() {
+        OpenAiCompletionDTO completion = payloads.readCompletion("{\"id\":\"x\",\"object\":\"chat.completion\","
+                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"Hello\"},\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":3,\"total_tokens\":15}}");
+
+        assertEquals("Hello", OpenAiPayloads.messageContent(completion));
+        assertEquals(12, completion.getUsage().getPromptTokens());
+        assertEquals(3, completion.getUsage().getCompletionTokens());
+    }
+
+    @Test
+    public void testReadCompletion_StreamChunks() {
+        assertEquals("Hel", OpenAiPayloads.deltaContent(
+                payloads.readCompletion("{\"choices\":[{\"index\":0,\"delta\":{\"content\":\"Hel\"}}]}")));
+        // role only first chunk and the usage chunk without choices
+        assertNull(OpenAiPayloads.deltaContent(
+                payloads.readCompletion("{\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\"}}]}")));
+        OpenAiCompletionDTO usage = payloads.readCompletion("{\"choices\":[],\"usage\":{\"prompt_tokens\":5,\"completion_tokens\":7}}");
+        assertNull(OpenAiPayloads.deltaContent(usage));
+        assertEquals(7, usage.getUsage().getCompletionTokens());
+    }
+
+    @Test
+    public void testReadCompletion_WithoutContentFails() {
+        OpenAiCompletionDTO completion = payloads.readCompletion("{\"choices\":[]}");
+
+        assertThrows(RuntimeException.class, () -> OpenAiPayloads.messageContent(completion));
+        assertThrows(RuntimeException.class, () -> payloads.readCompletion("not json"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.fastnfit.app.config.AsyncConfig;
+import com.fastnfit.app.exception.OverloadedException;
+import com.fastnfit.app.service.PasswordHashingService;
+
+public class PasswordHashingServiceTest {
+
+    private ThreadPoolTaskExecutor executor;
+    private PasswordHashingService passwordHashingService;
+
+    @BeforeEach
+    public void setup() {
+        // one thread and one queued task, a third concurrent hash is rejected
+        executor = new AsyncConfig().passwordHashExecutor(1, 1);
+        passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(5), executor, 5000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testEncodeAndMatches() {
+        String hash = passwordHashingService.encode("password123");
+
+        assertTrue(passwordHashingService.matches("password123", hash));
+        assertFalse(passwordHashingService.matches("wrong", hash));
+    }
+
+    @Test
+    public void testNeedsRehashOnlyForLowerWorkFactor() {
+        String weak = new BCryptPasswordEncoder(4).encode("password123");
+        String current = passwordHashingService.encode("password123");
+
+        assertTrue(passwordHashingService.needsRehash(weak));
+        assertFalse(passwordHashingService.needsRehash(current));
+    }
+
+    @Test
+    public void testFullPoolRejectsImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> { });
+        assertEquals(1, passwordHashingService.getQueueDepth());
+
+        assertThrows(OverloadedException.class, () -> passwordHashingService.encode("password123"));
+        assertEquals(1, passwordHashingService.getRejectedCount());
+        assertEquals(1, passwordHashingService.getActiveCount());
+
+        release.countDown();
+    }
+
+    @Test
+    public void testRehashInBackgroundStoresNewHash() throws Exception {
+        String weak = new BCryptPasswordEncoder(4).encode("password123");
+        AtomicReference<String> stored = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        passwordHashingService.rehashInBackground("password123", hash -> {
+            stored.set(hash);
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNotEquals(weak, stored.get());
+        assertFalse(passwordHashingService.needsRehash(stored.get()));
+        assertTrue(passwordHashingService.matches("password123", stored.get()));
+    }
+}
@@ -0,0 +1,80 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fastnfit.app.service.SavepointInsert;
+
+public class SavepointInsertTest {
+
+    private static final String SQL = "INSERT INTO user_totals (user_id) VALUES (?)";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement insert;
+
+    @Mock
+    private Savepoint savepoint;
+
+    @InjectMocks
+    private SavepointInsert savepointInsert;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        // the insert runs against the connection of the surrounding transaction
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+                invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(connection.prepareStatement(SQL)).thenReturn(insert);
+    }
+
+    @Test
+    public void testInsertReleasesItsSavepoint() throws Exception {
+        assertTrue(savepointInsert.insertIfAbsent(SQL, 1L));
+
+        verify(insert).setObject(1, 1L);
+        verify(insert).executeUpdate();
+        verify(connection).releaseSavepoint(savepoint);
+        verify(connection, never()).rollback(any(Savepoint.class));
+    }
+
+    @Test
+    public void testConflictOnlyRollsBackTheInsert() throws Exception {
+        when(insert.executeUpdate()).thenThrow(new SQLException("duplicate key", "23505"));
+
+        assertFalse(savepointInsert.insertIfAbsent(SQL, 1L));
+
+        // the surrounding transaction goes on
+        verify(connection).rollback(savepoint);
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    public void testOtherErrorsAreRethrown() throws Exception {
+        when(insert.executeUpdate()).thenThrow(new SQLException("connection reset", "08006"));
+
+        assertThrows(SQLException.class, () -> savepointInsert.insertIfAbsent(SQL, 1L));
+
+        verify(connection).rollback(savepoint);
+    }
+}
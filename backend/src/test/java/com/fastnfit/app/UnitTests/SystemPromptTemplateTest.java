@@ -0,0 +1,92 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.fastnfit.app.dto.UserDetailsDTO;
+import com.fastnfit.app.enums.FitnessLevel;
+import com.fastnfit.app.service.ExerciseCatalog;
+import com.fastnfit.app.service.SystemPromptTemplate;
+
+public class SystemPromptTemplateTest {
+
+    @Mock
+    private ExerciseCatalog exerciseCatalog;
+
+    @InjectMocks
+    private SystemPromptTemplate systemPromptTemplate;
+
+    private UserDetailsDTO userDetails;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(exerciseCatalog.getVersion()).thenReturn(1L);
+        when(exerciseCatalog.getPromptFragment()).thenReturn("- Squats\n- Plank");
+
+        userDetails = new UserDetailsDTO();
+        userDetails.setUserId(1L);
+        userDetails.setDob(LocalDate.now().minusYears(30));
+        userDetails.setHeight(165.0);
+        userDetails.setWeight(55.0);
+        userDetails.setFitnessLevel(FitnessLevel.Beginner);
+        userDetails.setWorkoutGoal("weight-loss");
+        userDetails.setWorkoutType("HIIT");
+        userDetails.setMenstrualCramps(false);
+    }
+
+    @Test
+    public void testRenderFillsAllSegments() {
+        String prompt = systemPromptTemplate.render(userDetails, "Squats (40s work, 20s rest)");
+
+        assertTrue(prompt.contains("Supported Exercises:\n - Squats\n- Plank\n"));
+        assertTrue(prompt.contains("- Age: 30\n"));
+        assertTrue(prompt.contains("- Height: 165.0 cm\n"));
+        assertTrue(prompt.contains("- Weight: 55.0 kg\n"));
+        assertTrue(prompt.contains("- Fitness Level: Beginner\n"));
+        assertTrue(prompt.contains("- Menstrual Cramps: No\n"));
+        assertTrue(prompt.endsWith("- Exercises: Squats (40s work, 20s rest)\n"));
+        assertFalse(prompt.contains("%s"));
+    }
+
+    @Test
+    public void testMissingProfileFieldsShowNA() {
+        userDetails.setDob(null);
+        userDetails.setHeight(null);
+
+        String prompt = systemPromptTemplate.render(userDetails, "");
+
+        assertTrue(prompt.contains("- Age: N/A\n"));
+        assertTrue(prompt.contains("- Height: N/A cm\n"));
+    }
+
+    @Test
+    public void testStaticPartRebuiltOnlyWhenCatalogChanges() {
+        systemPromptTemplate.render(userDetails, "");
+        systemPromptTemplate.render(userDetails, "");
+        verify(exerciseCatalog, times(1)).getPromptFragment();
+
+        when(exerciseCatalog.getVersion()).thenReturn(2L);
+        when(exerciseCatalog.getPromptFragment()).thenReturn("- Burpees");
+        String prompt = systemPromptTemplate.render(userDetails, "");
+
+        assertTrue(prompt.contains("Supported Exercises:\n - Burpees\n"));
+        assertEquals("1.2", systemPromptTemplate.getVersion());
+    }
+
+    @Test
+    public void testTokenEstimate() {
+        assertEquals(0, SystemPromptTemplate.estimateTokens(""));
+        assertEquals(1, SystemPromptTemplate.estimateTokens("abcd"));
+        assertEquals(2, SystemPromptTemplate.estimateTokens("abcde"));
+        assertTrue(systemPromptTemplate.getStaticTokenCount() > 1000);
+    }
+}
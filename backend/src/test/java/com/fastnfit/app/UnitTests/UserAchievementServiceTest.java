@@ -5,6 +5,7 @@ import com.fastnfit.app.model.User;
 import com.fastnfit.app.model.UserAchievement;
 import com.fastnfit.app.repository.AchievementRepository;
 import com.fastnfit.app.repository.UserAchievementRepository;
+import com.fastnfit.app.repository.UserRepository;
 import com.fastnfit.app.service.UserAchievementService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +21,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +33,9 @@ public class UserAchievementServiceTest {
     @Mock
     private AchievementRepository achievementRepository;
 
+    @Mock
+    private UserRepository userRepository;
+
     @InjectMocks
     private UserAchievementService userAchievementService;
 
@@ -148,9 +153,10 @@ public class UserAchievementServiceTest {
                 .thenReturn(Optional.of(testUserAchievement2));
 
         // Act
-        userAchievementService.completeAchievement(1L, 2L);
+        boolean completed = userAchievementService.completeAchievement(1L, 2L);
 
         // Assert
+        assertTrue(completed);
         assertTrue(testUserAchievement2.isCompleted());
         verify(userAchievementRepository).findByUserUserIdAndAchievementAchievementId(1L, 2L);
         verify(userAchievementRepository).save(testUserAchievement2);
@@ -162,14 +168,40 @@ public class UserAchievementServiceTest {
         when(userAchievementRepository.findByUserUserIdAndAchievementAchievementId(1L, 3L))
                 .thenReturn(Optional.empty());
 
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(achievementRepository.findById(3L)).thenReturn(Optional.empty());
+
         // Act
-        userAchievementService.completeAchievement(1L, 3L);
+        boolean completed = userAchievementService.completeAchievement(1L, 3L);
 
         // Assert
+        assertFalse(completed);
         verify(userAchievementRepository).findByUserUserIdAndAchievementAchievementId(1L, 3L);
         verify(userAchievementRepository, never()).save(any());
     }
 
+    @Test
+    void testCompleteAchievement_AddedAfterSignup() {
+        // Arrange: the achievement exists but the user has no row for it
+        Achievement addedLater = new Achievement();
+        addedLater.setAchievementId(3L);
+        addedLater.setTitle("Burn 1000 Calories");
+        when(userAchievementRepository.findByUserUserIdAndAchievementAchievementId(1L, 3L))
+                .thenReturn(Optional.empty());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(achievementRepository.findById(3L)).thenReturn(Optional.of(addedLater));
+
+        // Act
+        boolean completed = userAchievementService.completeAchievement(1L, 3L);
+
+        // Assert
+        assertTrue(completed);
+        verify(userAchievementRepository).save(argThat(userAchievement ->
+                userAchievement.isCompleted()
+                        && userAchievement.getUser() == testUser
+                        && userAchievement.getAchievement() == addedLater));
+    }
+
     @Test
     void testGetCompletedAchievements() {
         // Arrange
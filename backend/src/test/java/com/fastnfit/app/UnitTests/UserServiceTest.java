@@ -10,9 +10,12 @@ import com.fastnfit.app.model.UserDetails;
 import com.fastnfit.app.repository.HistoryRepository;
 import com.fastnfit.app.repository.UserDetailsRepository;
 import com.fastnfit.app.repository.UserRepository;
+import com.fastnfit.app.service.EmailBloomFilter;
 import com.fastnfit.app.service.JwtService;
+import com.fastnfit.app.service.PasswordHashingService;
 import com.fastnfit.app.service.UserAchievementService;
 import com.fastnfit.app.service.UserService;
+import com.fastnfit.app.service.UserTotalsService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,13 +23,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -48,11 +53,17 @@ class UserServiceTest {
     private UserAchievementService userAchievementService;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
 
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private UserTotalsService userTotalsService;
+
     private UserService userService;
     private User testUser;
     private UserDetails testUserDetails;
@@ -64,8 +75,10 @@ class UserServiceTest {
                 userDetailsRepository,
                 historyRepository,
                 userAchievementService,
-                passwordEncoder,
-                jwtService
+                passwordHashingService,
+                emailBloomFilter,
+                jwtService,
+                userTotalsService
         );
 
         testUser = new User();
@@ -95,7 +108,7 @@ class UserServiceTest {
         loginRequest.setPassword("password123");
 
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches("password123", "hashedPassword")).thenReturn(true);
+        when(passwordHashingService.matches("password123", "hashedPassword")).thenReturn(true);
         when(jwtService.generateToken(1L)).thenReturn("jwtToken123");
 
         // When
@@ -106,8 +119,32 @@ class UserServiceTest {
         assertEquals("jwtToken123", response.getToken());
 
         verify(userRepository).findByEmail("test@example.com");
-        verify(passwordEncoder).matches("password123", "hashedPassword");
+        verify(passwordHashingService).matches("password123", "hashedPassword");
         verify(jwtService).generateToken(1L);
+        verify(passwordHashingService, never()).rehashInBackground(anyString(), any());
+    }
+
+    @Test
+    void login_shouldRehashWhenWorkFactorIsOutdated() {
+        // Given
+        LoginRequestDTO loginRequest = new LoginRequestDTO();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("password123");
+
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(passwordHashingService.matches("password123", "hashedPassword")).thenReturn(true);
+        when(passwordHashingService.needsRehash("hashedPassword")).thenReturn(true);
+        when(jwtService.generateToken(1L)).thenReturn("jwtToken123");
+
+        // When
+        userService.login(loginRequest);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<String>> storeCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(passwordHashingService).rehashInBackground(eq("password123"), storeCaptor.capture());
+        storeCaptor.getValue().accept("newHash");
+        verify(userRepository).updatePassword(1L, "newHash");
     }
 
     @Test
@@ -126,7 +163,7 @@ class UserServiceTest {
 
         assertEquals("Invalid email or password", exception.getMessage());
         verify(userRepository).findByEmail("nonexistent@example.com");
-        verify(passwordEncoder, never()).matches(anyString(), anyString());
+        verify(passwordHashingService, never()).matches(anyString(), anyString());
         verify(jwtService, never()).generateToken(anyLong());
     }
 
@@ -138,7 +175,7 @@ class UserServiceTest {
         loginRequest.setPassword("wrongPassword");
 
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches("wrongPassword", "hashedPassword")).thenReturn(false);
+        when(passwordHashingService.matches("wrongPassword", "hashedPassword")).thenReturn(false);
 
         // When/Then
         Exception exception = assertThrows(RuntimeException.class, () -> {
@@ -147,7 +184,7 @@ class UserServiceTest {
 
         assertEquals("Invalid email or password", exception.getMessage());
         verify(userRepository).findByEmail("test@example.com");
-        verify(passwordEncoder).matches("wrongPassword", "hashedPassword");
+        verify(passwordHashingService).matches("wrongPassword", "hashedPassword");
         verify(jwtService, never()).generateToken(anyLong());
     }
 
@@ -164,8 +201,8 @@ class UserServiceTest {
         savedUser.setEmail("newuser@example.com");
         savedUser.setPassword("encodedPassword");
 
-        when(userRepository.existsByEmail("newuser@example.com")).thenReturn(false);
-        when(passwordEncoder.encode("newpassword123")).thenReturn("encodedPassword");
+        when(emailBloomFilter.mightContain("newuser@example.com")).thenReturn(false);
+        when(passwordHashingService.encode("newpassword123")).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(savedUser);
         when(jwtService.generateToken(2L)).thenReturn("newJwtToken123");
 
@@ -185,6 +222,31 @@ class UserServiceTest {
         ArgumentCaptor<UserDetails> userDetailsCaptor = ArgumentCaptor.forClass(UserDetails.class);
         verify(userDetailsRepository).save(userDetailsCaptor.capture());
         assertEquals(savedUser, userDetailsCaptor.getValue().getUser());
+
+        // the filter ruled the email out, no existence query
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(emailBloomFilter).add("newuser@example.com");
+    }
+
+    @Test
+    void registerUser_shouldMapUniqueConstraintToEmailInUse() {
+        // Given
+        UserRegistrationDTO registrationDTO = new UserRegistrationDTO();
+        registrationDTO.setEmail("missed@example.com");
+        registrationDTO.setPassword("password123");
+
+        when(emailBloomFilter.mightContain("missed@example.com")).thenReturn(false);
+        when(passwordHashingService.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate email"));
+
+        // When/Then
+        Exception exception = assertThrows(RuntimeException.class, () -> {
+            userService.registerUser(registrationDTO);
+        });
+
+        assertEquals("Email is already in use", exception.getMessage());
+        verify(emailBloomFilter, never()).add(anyString());
+        verify(userDetailsRepository, never()).save(any(UserDetails.class));
     }
 
     @Test
@@ -194,6 +256,7 @@ class UserServiceTest {
         registrationDTO.setEmail("existing@example.com");
         registrationDTO.setPassword("password123");
 
+        when(emailBloomFilter.mightContain("existing@example.com")).thenReturn(true);
         when(userRepository.existsByEmail("existing@example.com")).thenReturn(true);
 
         // When/Then
@@ -339,8 +402,10 @@ class UserServiceTest {
     void getWeeklyWorkouts_shouldReturnWorkoutCount() {
         // Given
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(historyRepository.countByUserAndWorkoutDateTimeBetween(
-                eq(testUser), any(Timestamp.class), any(Timestamp.class))).thenReturn(3);
+        when(historyRepository.findDailySummaries(
+                eq(1L), any(Timestamp.class), any(Timestamp.class))).thenReturn(Arrays.asList(
+                        new DailySummaryDTO(LocalDate.now(), 300L, 40L, 2L),
+                        new DailySummaryDTO(LocalDate.now().minusDays(1), 150L, 20L, 1L)));
 
         // When
         WeeklyWorkoutsDTO result = userService.getWeeklyWorkouts(1L);
@@ -350,8 +415,8 @@ class UserServiceTest {
         assertEquals(3, result.getTotalWorkouts());
         
         // Verify the repository was called with appropriate date range parameters
-        verify(historyRepository).countByUserAndWorkoutDateTimeBetween(
-                eq(testUser), any(Timestamp.class), any(Timestamp.class));
+        verify(historyRepository).findDailySummaries(
+                eq(1L), any(Timestamp.class), any(Timestamp.class));
     }
 
     @Test
@@ -402,6 +467,9 @@ class UserServiceTest {
 
         // Verify achievements initialization
         verify(userAchievementService).initializeUserAchievements(savedUser);
+
+        // Verify the totals row is created with the user
+        verify(userTotalsService).createTotals(3L);
     }
 
     @Test
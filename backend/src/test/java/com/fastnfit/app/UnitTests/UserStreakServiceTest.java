@@ -1,30 +1,24 @@
 package com.fastnfit.app.UnitTests;
 
 import com.fastnfit.app.dto.StreakDTO;
-import com.fastnfit.app.model.Achievement;
-import com.fastnfit.app.model.History;
+import com.fastnfit.app.enums.AchievementMetric;
 import com.fastnfit.app.model.User;
 import com.fastnfit.app.model.UserDetails;
-import com.fastnfit.app.repository.AchievementRepository;
-import com.fastnfit.app.repository.HistoryRepository;
 import com.fastnfit.app.repository.UserDetailsRepository;
-import com.fastnfit.app.repository.UserRepository;
-import com.fastnfit.app.service.AchievementService;
-import com.fastnfit.app.service.UserAchievementService;
+import com.fastnfit.app.service.AchievementEngine;
 import com.fastnfit.app.service.UserStreakService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
+import java.util.function.IntSupplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -34,29 +28,18 @@ import static org.mockito.Mockito.*;
 public class UserStreakServiceTest {
 
     @Mock
-    private UserRepository userRepository;
-
-    @Mock
-    private HistoryRepository historyRepository;
-
-    @Mock
-    private AchievementRepository achievementRepository;
-
-    @Mock
-    private UserAchievementService userAchievementService;
+    private AchievementEngine achievementEngine;
 
     @Mock
     private UserDetailsRepository userDetailsRepository;
 
-    @Mock
-    private AchievementService achievementService;
-
     @InjectMocks
     private UserStreakService userStreakService;
 
     private User testUser;
     private UserDetails testUserDetails;
     private final Long userId = 1L;
+    private final LocalDate today = LocalDate.now();
 
     @BeforeEach
     public void setup() {
@@ -67,218 +50,181 @@ public class UserStreakServiceTest {
         testUser = new User();
         testUser.setUserId(userId);
         testUser.setUserDetails(testUserDetails);
+        testUserDetails.setUser(testUser);
     }
 
     @Test
-    public void testUpdateStreak_WorkedOutTodayButMissedYesterday_StreakStaysUnchanged() {
+    public void testUpdateStreak_FirstWorkoutEver_StreakSetToOne() {
         // Arrange
-        testUserDetails.setCurrentStreak(3);
-        testUserDetails.setLongestStreak(5);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
-        // Mock workouts for today but not yesterday
-        List<History> todayWorkouts = new ArrayList<>();
-        todayWorkouts.add(new History());
-        List<History> emptyList = new ArrayList<>();
+        // Act
+        userStreakService.updateStreak(userId, today);
 
-        when(historyRepository.findByUserAndWorkoutDateTimeBetween(eq(testUser), any(Timestamp.class),
-                any(Timestamp.class)))
-                .thenReturn(todayWorkouts) // First call for today
-                .thenReturn(emptyList); // Second call for yesterday
+        // Assert
+        assertEquals(1, testUserDetails.getCurrentStreak());
+        assertEquals(1, testUserDetails.getLongestStreak());
+        assertEquals(today, testUserDetails.getLastWorkoutDate());
+        verify(userDetailsRepository).save(testUserDetails);
+    }
+
+    @Test
+    public void testUpdateStreak_WorkedOutYesterday_StreakIncremented() {
+        // Arrange
+        testUserDetails.setCurrentStreak(1);
+        testUserDetails.setLongestStreak(3);
+        testUserDetails.setLastWorkoutDate(today.minusDays(1));
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
         // Act
-        userStreakService.updateStreak(userId);
+        userStreakService.updateStreak(userId, today);
 
         // Assert
-        assertEquals(3, testUserDetails.getCurrentStreak());
-        assertEquals(5, testUserDetails.getLongestStreak());
-        verify(userRepository).save(testUser);
+        assertEquals(2, testUserDetails.getCurrentStreak());
+        assertEquals(3, testUserDetails.getLongestStreak());
+        assertEquals(today, testUserDetails.getLastWorkoutDate());
+        verify(userDetailsRepository).save(testUserDetails);
     }
 
     @Test
-    public void testUpdateStreak_MissedTwoDaysInARow_StreakResetsToZero() {
+    public void testUpdateStreak_MissedYesterday_NewStreakStarted() {
         // Arrange
         testUserDetails.setCurrentStreak(7);
         testUserDetails.setLongestStreak(10);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-
-        // Mock no workouts for today and yesterday
-        List<History> emptyList = new ArrayList<>();
-
-        when(historyRepository.findByUserAndWorkoutDateTimeBetween(eq(testUser), any(Timestamp.class),
-                any(Timestamp.class)))
-                .thenReturn(emptyList) // First call for today
-                .thenReturn(emptyList); // Second call for yesterday
+        testUserDetails.setLastWorkoutDate(today.minusDays(3));
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
         // Act
-        userStreakService.updateStreak(userId);
+        userStreakService.updateStreak(userId, today);
 
         // Assert
-        assertEquals(0, testUserDetails.getCurrentStreak());
+        assertEquals(1, testUserDetails.getCurrentStreak());
         assertEquals(10, testUserDetails.getLongestStreak());
-        verify(userRepository).save(testUser);
+        verify(userDetailsRepository).save(testUserDetails);
     }
 
     @Test
-    public void testUpdateStreak_NewStreakBecomesBest_LongestStreakUpdated() {
+    public void testUpdateStreak_SecondWorkoutSameDay_StreakUnchanged() {
         // Arrange
-        testUserDetails.setCurrentStreak(9);
-        testUserDetails.setLongestStreak(9);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-
-        // Mock workouts for today and yesterday
-        List<History> workouts = new ArrayList<>();
-        workouts.add(new History());
-
-        when(historyRepository.findByUserAndWorkoutDateTimeBetween(eq(testUser), any(Timestamp.class),
-                any(Timestamp.class)))
-                .thenReturn(workouts) // First call for today
-                .thenReturn(workouts); // Second call for yesterday
-        when(achievementService.getAchievementByTitle("5 Day Streak")).thenReturn(Optional.empty());
+        testUserDetails.setCurrentStreak(3);
+        testUserDetails.setLongestStreak(5);
+        testUserDetails.setLastWorkoutDate(today);
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
         // Act
-        userStreakService.updateStreak(userId);
+        userStreakService.updateStreak(userId, today);
 
         // Assert
-        assertEquals(10, testUserDetails.getCurrentStreak());
-        assertEquals(10, testUserDetails.getLongestStreak());
-        verify(userRepository).save(testUser);
+        assertEquals(3, testUserDetails.getCurrentStreak());
+        assertEquals(5, testUserDetails.getLongestStreak());
+        verify(userDetailsRepository, never()).save(any(UserDetails.class));
     }
 
     @Test
-    public void testUpdateStreak_StartingNewStreak_StreakSetToOne() {
+    public void testUpdateStreak_OlderThanLastWorkout_StreakUnchanged() {
         // Arrange
-        testUserDetails.setCurrentStreak(0);
-        testUserDetails.setLongestStreak(5);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        testUserDetails.setCurrentStreak(3);
+        testUserDetails.setLastWorkoutDate(today);
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
-        // Mock workout for today but not yesterday
-        List<History> todayWorkouts = new ArrayList<>();
-        todayWorkouts.add(new History());
-        List<History> emptyList = new ArrayList<>();
+        // Act
+        userStreakService.updateStreak(userId, today.minusDays(2));
 
-        when(historyRepository.findByUserAndWorkoutDateTimeBetween(eq(testUser), any(Timestamp.class),
-                any(Timestamp.class)))
-                .thenReturn(todayWorkouts) // First call for today
-                .thenReturn(emptyList); // Second call for yesterday
+        // Assert
+        assertEquals(3, testUserDetails.getCurrentStreak());
+        assertEquals(today, testUserDetails.getLastWorkoutDate());
+        verify(userDetailsRepository, never()).save(any(UserDetails.class));
+    }
+
+    @Test
+    public void testUpdateStreak_NewStreakBecomesBest_LongestStreakUpdated() {
+        // Arrange
+        testUserDetails.setCurrentStreak(9);
+        testUserDetails.setLongestStreak(9);
+        testUserDetails.setLastWorkoutDate(today.minusDays(1));
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
         // Act
-        userStreakService.updateStreak(userId);
+        userStreakService.updateStreak(userId, today);
 
         // Assert
-        assertEquals(1, testUserDetails.getCurrentStreak());
-        assertEquals(5, testUserDetails.getLongestStreak());
-        verify(userRepository).save(testUser);
+        assertEquals(10, testUserDetails.getCurrentStreak());
+        assertEquals(10, testUserDetails.getLongestStreak());
     }
 
     @Test
-    public void testUpdateStreak_Reaches5DayStreak_AchievementUnlocked() {
+    public void testUpdateStreak_PassesNewStreakToAchievementEngine() {
         // Arrange
         testUserDetails.setCurrentStreak(4);
         testUserDetails.setLongestStreak(4);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-
-        // Mock workouts for today and yesterday
-        List<History> workouts = new ArrayList<>();
-        workouts.add(new History());
-
-        when(historyRepository.findByUserAndWorkoutDateTimeBetween(eq(testUser), any(Timestamp.class),
-                any(Timestamp.class)))
-                .thenReturn(workouts) // First call for today
-                .thenReturn(workouts); // Second call for yesterday
-
-        // Mock achievement
-        Achievement fiveDayAchievement = new Achievement();
-        fiveDayAchievement.setAchievementId(1L);
-        fiveDayAchievement.setTitle("5 Day Streak");
-        when(achievementService.getAchievementByTitle("5 Day Streak")).thenReturn(Optional.of(fiveDayAchievement));
+        testUserDetails.setLastWorkoutDate(today.minusDays(1));
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
         // Act
         userStreakService.updateStreak(userId);
 
         // Assert
         assertEquals(5, testUserDetails.getCurrentStreak());
-        assertEquals(5, testUserDetails.getLongestStreak());
-        verify(userRepository).save(testUser);
-        verify(userAchievementService).completeAchievement(userId, 1L);
+        ArgumentCaptor<IntSupplier> streakCaptor = ArgumentCaptor.forClass(IntSupplier.class);
+        verify(achievementEngine).evaluate(eq(userId), eq(AchievementMetric.STREAK), streakCaptor.capture());
+        assertEquals(5, streakCaptor.getValue().getAsInt());
     }
 
     @Test
-    public void testUpdateStreak_WorkedOutTodayAndYesterday_StreakIncremented() {
+    public void testUpdateStreak_SameDay_AchievementsNotEvaluated() {
         // Arrange
-        testUserDetails.setCurrentStreak(1);
-        testUserDetails.setLongestStreak(3);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-
-        // Mock workouts for today and yesterday
-        List<History> todayWorkouts = new ArrayList<>();
-        todayWorkouts.add(new History());
-        List<History> yesterdayWorkouts = new ArrayList<>();
-        yesterdayWorkouts.add(new History());
-
-        // Use doAnswer to handle different timestamp ranges
-        doAnswer(invocation -> {
-            Timestamp start = invocation.getArgument(1);
-
-            // Return today's workouts if the timestamp is for today
-            LocalDate today = LocalDate.now();
-            if (start.toLocalDateTime().toLocalDate().equals(today)) {
-                return todayWorkouts;
-            }
-            // Return yesterday's workouts if the timestamp is for yesterday
-            else if (start.toLocalDateTime().toLocalDate().equals(today.minusDays(1))) {
-                return yesterdayWorkouts;
-            }
-            return new ArrayList<History>();
-        }).when(historyRepository).findByUserAndWorkoutDateTimeBetween(any(User.class), any(Timestamp.class),
-                any(Timestamp.class));
+        testUserDetails.setCurrentStreak(4);
+        testUserDetails.setLastWorkoutDate(today);
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
         // Act
         userStreakService.updateStreak(userId);
 
         // Assert
-        assertEquals(2, testUserDetails.getCurrentStreak());
-        assertEquals(3, testUserDetails.getLongestStreak());
-        verify(userRepository).save(testUser);
+        verifyNoInteractions(achievementEngine);
     }
 
     @Test
-    public void testUpdateStreak_UserNotFound_NoChanges() {
+    public void testUpdateStreak_UserDetailsNotFound_NoChanges() {
         // Arrange
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.empty());
 
         // Act
         userStreakService.updateStreak(userId);
 
         // Assert
-        verify(userRepository, never()).save(any(User.class));
+        verify(userDetailsRepository, never()).save(any(UserDetails.class));
     }
 
     @Test
-    public void testUpdateStreak_UserDetailsNull_NoChanges() {
+    public void testGetUserStreak_ReturnsCorrectStreak() {
         // Arrange
-        testUser.setUserDetails(null);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        testUserDetails.setCurrentStreak(7);
+        testUserDetails.setLastWorkoutDate(today.minusDays(1));
+        when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
         // Act
-        userStreakService.updateStreak(userId);
+        StreakDTO result = userStreakService.getUserStreak(userId);
 
         // Assert
-        verify(userRepository, never()).save(any(User.class));
+        assertNotNull(result);
+        assertEquals(7, result.getDays());
     }
 
     @Test
-    public void testGetUserStreak_ReturnsCorrectStreak() {
+    public void testGetUserStreak_LastWorkoutBeforeYesterday_ReturnsZeroWithoutWrite() {
         // Arrange
         testUserDetails.setCurrentStreak(7);
+        testUserDetails.setLastWorkoutDate(today.minusDays(2));
         when(userDetailsRepository.findByUserUserId(userId)).thenReturn(Optional.of(testUserDetails));
 
         // Act
         StreakDTO result = userStreakService.getUserStreak(userId);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(7, result.getDays());
+        assertEquals(0, result.getDays());
+        assertEquals(7, testUserDetails.getCurrentStreak());
+        verify(userDetailsRepository, never()).save(any(UserDetails.class));
     }
 
     @Test
@@ -312,4 +258,4 @@ public class UserStreakServiceTest {
         // Act & Assert
         assertThrows(RuntimeException.class, () -> userStreakService.getLongestUserStreak(userId));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fastnfit.app.service.UserTaskExecutor;
+
+public class UserTaskExecutorTest {
+
+    private UserTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void tasksForOneUserRunInOrder() throws Exception {
+        executor = new UserTaskExecutor(4, 100, 1000);
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            int index = i;
+            executor.execute(7L, () -> {
+                seen.add(index);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, seen.get(i));
+        }
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheShard() throws Exception {
+        executor = new UserTaskExecutor(1, 10, 1000);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(1L, () -> {
+            throw new RuntimeException("boom");
+        });
+        executor.execute(1L, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fullShardKeepsOrderAndNeverRunsOnCaller() throws Exception {
+        executor = new UserTaskExecutor(1, 2, 5000);
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(20);
+
+        // several submitters at once against a queue of 2, they have to wait for room
+        Thread[] submitters = new Thread[4];
+        for (int t = 0; t < submitters.length; t++) {
+            int offset = t * 5;
+            submitters[t] = new Thread(() -> {
+                for (int i = 0; i < 5; i++) {
+                    int index = offset + i;
+                    executor.execute(offset + 1L, () -> {
+                        seen.add(index);
+                        threads.add(Thread.currentThread().getName());
+                        sleep(2);
+                        done.countDown();
+                    });
+                }
+            });
+            submitters[t].start();
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getFailedCount());
+        assertTrue(threads.stream().allMatch("user-tasks-0"::equals));
+        // every submitter used its own user, each user's tasks ran in the order they were submitted
+        for (int t = 0; t < submitters.length; t++) {
+            int offset = t * 5;
+            List<Integer> forUser = seen.stream().filter(i -> i >= offset && i < offset + 5).toList();
+            assertEquals(List.of(offset, offset + 1, offset + 2, offset + 3, offset + 4), forUser);
+        }
+    }
+
+    @Test
+    void taskThatDoesNotFitInTimeWaitsInsteadOfBeingDropped() throws Exception {
+        executor = new UserTaskExecutor(1, 1, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        // occupy the only thread and fill its queue
+        executor.execute(1L, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(1L, () -> { });
+
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        Thread submitter = new Thread(() -> executor.execute(1L, () -> {
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        }));
+        submitter.start();
+
+        // still waiting well past the submit timeout, nothing was dropped
+        submitter.join(300);
+        assertTrue(submitter.isAlive());
+        assertEquals(1, executor.getWaitedCount());
+
+        release.countDown();
+        submitter.join(5000);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("user-tasks-0"), threads);
+    }
+
+    @Test
+    void failingTaskIsRetriedBeforeTheNextOne() throws Exception {
+        executor = new UserTaskExecutor(1, 10, 1000, 3, 10);
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+
+        int[] calls = new int[1];
+        executor.execute(1L, () -> {
+            seen.add("attempt " + ++calls[0]);
+            if (calls[0] < 3) {
+                throw new RuntimeException("deadlock, try again");
+            }
+        });
+        executor.execute(1L, () -> {
+            seen.add("next");
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("attempt 1", "attempt 2", "attempt 3", "next"), seen);
+        assertEquals(0, executor.getFailedCount());
+    }
+
+    @Test
+    void taskFailingEveryAttemptIsCounted() throws Exception {
+        executor = new UserTaskExecutor(1, 10, 1000, 2, 10);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(1L, () -> {
+            throw new RuntimeException("boom");
+        });
+        executor.execute(1L, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, executor.getFailedCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
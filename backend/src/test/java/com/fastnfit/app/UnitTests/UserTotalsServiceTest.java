@@ -0,0 +1,129 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.fastnfit.app.model.UserTotals;
+import com.fastnfit.app.repository.HistoryRepository;
+import com.fastnfit.app.repository.UserTotalsRepository;
+import com.fastnfit.app.service.SavepointInsert;
+import com.fastnfit.app.service.UserTotalsService;
+import com.fastnfit.app.service.WorkoutCompletedEvent;
+
+public class UserTotalsServiceTest {
+
+    @Mock
+    private UserTotalsRepository userTotalsRepository;
+
+    @Mock
+    private HistoryRepository historyRepository;
+
+    @Mock
+    private SavepointInsert savepointInsert;
+
+    @InjectMocks
+    private UserTotalsService userTotalsService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testRecordWorkoutUpdatesExistingTotals() {
+        when(userTotalsRepository.addWorkout(1L, 200, 30)).thenReturn(1);
+
+        userTotalsService.onWorkoutCompleted(new WorkoutCompletedEvent(1L, 5L, LocalDate.now(), 200, 30));
+
+        verify(userTotalsRepository, never()).save(any());
+        verifyNoInteractions(savepointInsert);
+    }
+
+    @Test
+    public void testRecordWorkoutWithoutRowInsertsIt() {
+        when(userTotalsRepository.addWorkout(1L, 0, 30)).thenReturn(0);
+        when(savepointInsert.insertIfAbsent(anyString(), any(Object[].class))).thenReturn(true);
+
+        userTotalsService.onWorkoutCompleted(new WorkoutCompletedEvent(1L, 5L, LocalDate.now(), null, 30));
+
+        verify(savepointInsert).insertIfAbsent(anyString(), eq(1L), eq(0), eq(30));
+        verify(userTotalsRepository, times(1)).addWorkout(1L, 0, 30);
+    }
+
+    @Test
+    public void testRecordWorkoutLosingTheInsertRaceUpdatesTheOtherRow() {
+        when(userTotalsRepository.addWorkout(1L, 200, 30)).thenReturn(0, 1);
+        when(savepointInsert.insertIfAbsent(anyString(), any(Object[].class))).thenReturn(false);
+
+        userTotalsService.recordWorkout(1L, 200, 30);
+
+        verify(userTotalsRepository, times(2)).addWorkout(1L, 200, 30);
+    }
+
+    @Test
+    public void testCreateTotalsStartsAtZero() {
+        userTotalsService.createTotals(1L);
+
+        ArgumentCaptor<UserTotals> captor = ArgumentCaptor.forClass(UserTotals.class);
+        verify(userTotalsRepository).save(captor.capture());
+        assertEquals(1L, captor.getValue().getUserId());
+        assertEquals(0, captor.getValue().getWorkoutCount());
+        assertEquals(0, captor.getValue().getCaloriesBurned());
+        assertEquals(0, captor.getValue().getDurationInMinutes());
+    }
+
+    @Test
+    public void testGetTotalsWithoutRowIsZero() {
+        when(userTotalsRepository.findById(2L)).thenReturn(Optional.empty());
+
+        UserTotals totals = userTotalsService.getTotals(2L);
+
+        assertEquals(2L, totals.getUserId());
+        assertEquals(0, totals.getWorkoutCount());
+        assertEquals(0, totals.getCaloriesBurned());
+        verifyNoInteractions(historyRepository);
+    }
+
+    @Test
+    public void testReconcileRecomputesOnlyDriftedUsers() {
+        when(userTotalsRepository.findUsersOutOfSync()).thenReturn(List.of(1L, 4L));
+
+        assertEquals(2, userTotalsService.reconcile());
+
+        // one statement recomputes them from history, nothing is read and written back
+        verify(userTotalsRepository).insertMissingUsers();
+        verify(userTotalsRepository).recomputeFromHistory(List.of(1L, 4L));
+        verify(userTotalsRepository, never()).save(any());
+        verifyNoInteractions(historyRepository);
+    }
+
+    @Test
+    public void testReconcileWithNothingDriftedWritesNothing() {
+        when(userTotalsRepository.findUsersOutOfSync()).thenReturn(List.of());
+
+        assertEquals(0, userTotalsService.reconcile());
+
+        verify(userTotalsRepository, never()).recomputeFromHistory(any());
+    }
+
+    @Test
+    public void testBackfillSkippedWhenTableHasRows() {
+        when(userTotalsRepository.count()).thenReturn(5L);
+
+        userTotalsService.backfillIfEmpty();
+
+        verify(userTotalsRepository, never()).backfillFromHistory();
+    }
+}
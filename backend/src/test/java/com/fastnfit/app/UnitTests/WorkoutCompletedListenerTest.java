@@ -0,0 +1,90 @@
+package com.fastnfit.app.UnitTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.function.IntSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fastnfit.app.enums.AchievementMetric;
+import com.fastnfit.app.model.UserTotals;
+import com.fastnfit.app.service.AchievementEngine;
+import com.fastnfit.app.service.UserStreakService;
+import com.fastnfit.app.service.UserTaskExecutor;
+import com.fastnfit.app.service.UserTotalsService;
+import com.fastnfit.app.service.WorkoutCompletedEvent;
+import com.fastnfit.app.service.WorkoutCompletedListener;
+
+@ExtendWith(MockitoExtension.class)
+public class WorkoutCompletedListenerTest {
+
+    @Mock
+    private UserTaskExecutor userTaskExecutor;
+
+    @Mock
+    private UserStreakService userStreakService;
+
+    @Mock
+    private AchievementEngine achievementEngine;
+
+    @Mock
+    private UserTotalsService userTotalsService;
+
+    @InjectMocks
+    private WorkoutCompletedListener listener;
+
+    private final LocalDate today = LocalDate.now();
+    private WorkoutCompletedEvent event;
+
+    @BeforeEach
+    void setUp() {
+        event = new WorkoutCompletedEvent(1L, 10L, today, 200, 30);
+        // run submitted tasks straight away
+        doAnswer(invocation -> {
+            invocation.getArgument(1, Runnable.class).run();
+            return null;
+        }).when(userTaskExecutor).execute(eq(1L), any(Runnable.class));
+    }
+
+    @Test
+    void updateStreak_shouldUseWorkoutDateOnUserShard() {
+        listener.updateStreak(event);
+
+        verify(userTaskExecutor).execute(eq(1L), any(Runnable.class));
+        verify(userStreakService).updateStreak(1L, today);
+    }
+
+    @Test
+    void checkTotalsAchievements_shouldEvaluateEveryTotalFromOneLookup() {
+        UserTotals totals = new UserTotals();
+        totals.setUserId(1L);
+        totals.setWorkoutCount(10);
+        totals.setCaloriesBurned(2500);
+        totals.setDurationInMinutes(300);
+        when(userTotalsService.getTotals(1L)).thenReturn(totals);
+
+        listener.checkTotalsAchievements(event);
+
+        ArgumentCaptor<IntSupplier> countCaptor = ArgumentCaptor.forClass(IntSupplier.class);
+        ArgumentCaptor<IntSupplier> caloriesCaptor = ArgumentCaptor.forClass(IntSupplier.class);
+        ArgumentCaptor<IntSupplier> minutesCaptor = ArgumentCaptor.forClass(IntSupplier.class);
+        InOrder inOrder = inOrder(achievementEngine);
+        inOrder.verify(achievementEngine).evaluate(eq(1L), eq(AchievementMetric.WORKOUT_COUNT), countCaptor.capture());
+        inOrder.verify(achievementEngine).evaluate(eq(1L), eq(AchievementMetric.CALORIES), caloriesCaptor.capture());
+        inOrder.verify(achievementEngine).evaluate(eq(1L), eq(AchievementMetric.MINUTES), minutesCaptor.capture());
+        assertEquals(10, countCaptor.getValue().getAsInt());
+        assertEquals(2500, caloriesCaptor.getValue().getAsInt());
+        assertEquals(300, minutesCaptor.getValue().getAsInt());
+        verify(userTotalsService, times(1)).getTotals(1L);
+    }
+}
@@ -6,6 +6,7 @@ import static org.mockito.Mockito.*;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -57,7 +58,7 @@ public class WorkoutServiceTest {
     @Test
     public void testGetAllWorkouts() {
         // Arrange
-        when(workoutRepository.findAll()).thenReturn(Arrays.asList(testWorkout1, testWorkout2));
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout2, testWorkout1));
         
         // Act
         List<WorkoutDTO> result = workoutService.getAllWorkouts();
@@ -68,12 +69,115 @@ public class WorkoutServiceTest {
         assertEquals("Running", result.get(1).getName());
         assertEquals("strength", result.get(0).getCategory());
         assertEquals("low-impact", result.get(1).getCategory());
-        verify(workoutRepository, times(1)).findAll();
+        verify(workoutRepository, times(1)).findAllWithExercises();
+    }
+
+    @Test
+    public void testCatalogIsLoadedOnce() {
+        // Arrange
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout1, testWorkout2));
+        
+        // Act
+        List<WorkoutDTO> first = workoutService.getAllWorkouts();
+        workoutService.getWorkoutsByCategory(WorkoutType.STRENGTH);
+        WorkoutDTO byId = workoutService.getWorkoutById(2L);
+        List<WorkoutDTO> second = workoutService.getAllWorkouts();
+        
+        // Assert
+        assertSame(first, second);
+        assertSame(first.get(1), byId);
+        verify(workoutRepository, times(1)).findAllWithExercises();
+        verify(workoutRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testInvalidateCatalogReloads() {
+        // Arrange
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout1));
+        workoutService.getAllWorkouts();
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout1, testWorkout2));
+        long version = workoutService.getCatalogVersion();
+        
+        // Act
+        workoutService.invalidateCatalog();
+        List<WorkoutDTO> result = workoutService.getAllWorkouts();
+        
+        // Assert
+        assertEquals(2, result.size());
+        assertTrue(workoutService.getCatalogVersion() > version);
+        verify(workoutRepository, times(2)).findAllWithExercises();
+    }
+
+    private WorkoutRepository.CatalogState catalogState(long workouts, long maxId) {
+        WorkoutRepository.CatalogState state = mock(WorkoutRepository.CatalogState.class);
+        when(state.getWorkouts()).thenReturn(workouts);
+        when(state.getMaxId()).thenReturn(maxId);
+        return state;
+    }
+
+    @Test
+    public void testRefreshReloadsOnlyWhenTheTableChanged() {
+        // Arrange
+        WorkoutRepository.CatalogState unchanged = catalogState(2, 2);
+        when(workoutRepository.findCatalogState()).thenReturn(unchanged);
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout1, testWorkout2));
+        workoutService.getAllWorkouts();
+        long version = workoutService.getCatalogVersion();
+
+        // Act, nothing changed
+        workoutService.refreshCatalogIfChanged();
+        workoutService.getAllWorkouts();
+
+        // Assert
+        assertEquals(version, workoutService.getCatalogVersion());
+        verify(workoutRepository, times(1)).findAllWithExercises();
+
+        // Act, another instance added a workout
+        WorkoutRepository.CatalogState changed = catalogState(3, 3);
+        when(workoutRepository.findCatalogState()).thenReturn(changed);
+        workoutService.refreshCatalogIfChanged();
+        workoutService.getAllWorkouts();
+
+        // Assert
+        assertTrue(workoutService.getCatalogVersion() > version);
+        verify(workoutRepository, times(2)).findAllWithExercises();
+    }
+
+    @Test
+    public void testDeleteWorkoutInvalidatesCatalog() {
+        // Arrange
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout1, testWorkout2));
+        workoutService.getAllWorkouts();
+        when(workoutRepository.findById(2L)).thenReturn(Optional.of(testWorkout2));
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout1));
+        
+        // Act
+        workoutService.deleteWorkout(2L);
+        List<WorkoutDTO> result = workoutService.getAllWorkouts();
+        
+        // Assert
+        assertEquals(1, result.size());
+        verify(workoutRepository).delete(testWorkout2);
+    }
+
+    @Test
+    public void testGetWorkoutsGroupedForHome() {
+        // Arrange
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout1, testWorkout2));
+        
+        // Act
+        Map<String, List<WorkoutDTO>> result = workoutService.getWorkoutsGroupedForHome();
+        
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("Push-ups", result.get("strength").get(0).getName());
+        assertEquals("Running", result.get("low-impact").get(0).getName());
+        assertThrows(UnsupportedOperationException.class, () -> result.get("strength").clear());
     }
     
     @Test
     public void testGetWorkoutById() {
-        // Arrange
+        // Arrange, not in the catalog yet so it falls back to the repository
         when(workoutRepository.findById(1L)).thenReturn(Optional.of(testWorkout1));
         
         // Act
@@ -107,7 +211,7 @@ public class WorkoutServiceTest {
     @Test
     public void testGetWorkoutsByCategory() {
         // Arrange
-        when(workoutRepository.findByCategory(WorkoutType.STRENGTH)).thenReturn(Arrays.asList(testWorkout1));
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout1, testWorkout2));
         
         // Act
         List<WorkoutDTO> result = workoutService.getWorkoutsByCategory(WorkoutType.STRENGTH);
@@ -116,13 +220,13 @@ public class WorkoutServiceTest {
         assertEquals(1, result.size());
         assertEquals("Push-ups", result.get(0).getName());
         assertEquals("strength", result.get(0).getCategory());
-        verify(workoutRepository, times(1)).findByCategory(WorkoutType.STRENGTH);
+        assertTrue(workoutService.getWorkoutsByCategory(WorkoutType.Yoga).isEmpty());
     }
     
     @Test
     public void testGetWorkoutsByLevel() {
         // Arrange
-        when(workoutRepository.findByLevel(WorkoutLevel.Intermediate)).thenReturn(Arrays.asList(testWorkout2));
+        when(workoutRepository.findAllWithExercises()).thenReturn(Arrays.asList(testWorkout1, testWorkout2));
         
         // Act
         List<WorkoutDTO> result = workoutService.getWorkoutsByLevel(WorkoutLevel.Intermediate);
@@ -131,7 +235,6 @@ public class WorkoutServiceTest {
         assertEquals(1, result.size());
         assertEquals("Running", result.get(0).getName());
         assertEquals(WorkoutLevel.Intermediate, result.get(0).getLevel());
-        verify(workoutRepository, times(1)).findByLevel(WorkoutLevel.Intermediate);
     }
     
     @Test